@@ -28,6 +28,7 @@ import de.featjar.formula.analysis.bool.ABooleanAssignment;
 import de.featjar.formula.analysis.bool.BooleanAssignment;
 import de.featjar.formula.analysis.bool.BooleanClauseList;
 import de.featjar.formula.analysis.sat4j.solver.SAT4JExplanationSolver;
+import de.featjar.formula.analysis.sat4j.solver.SAT4JPortfolioSolver;
 import de.featjar.formula.analysis.sat4j.solver.SAT4JSolutionSolver;
 import de.featjar.formula.analysis.sat4j.solver.SAT4JSolver;
 
@@ -46,6 +47,8 @@ public abstract class ASAT4JAnalysis<T> extends AComputation<T>
     protected static final Dependency<BooleanClauseList> ASSUMED_CLAUSE_LIST =
             newOptionalDependency(new BooleanClauseList());
     protected static final Dependency<Duration> TIMEOUT = newOptionalDependency(ITimeoutDependency.DEFAULT_TIMEOUT);
+    protected static final Dependency<Boolean> PORTFOLIO = newOptionalDependency(Boolean.FALSE);
+    protected static final Dependency<Boolean> CUBE_AND_CONQUER = newOptionalDependency(Boolean.FALSE);
 
     public ASAT4JAnalysis(IComputation<BooleanClauseList> booleanClauseList, Dependency<?>... dependencies) {
         List<Dependency<?>> dependenciesList = new ArrayList<>();
@@ -53,6 +56,8 @@ public abstract class ASAT4JAnalysis<T> extends AComputation<T>
         dependenciesList.add(ASSUMED_ASSIGNMENT);
         dependenciesList.add(ASSUMED_CLAUSE_LIST);
         dependenciesList.add(TIMEOUT);
+        dependenciesList.add(PORTFOLIO);
+        dependenciesList.add(CUBE_AND_CONQUER);
         dependenciesList.addAll(List.of(dependencies));
         dependOn(dependenciesList);
         setInput(booleanClauseList);
@@ -78,14 +83,42 @@ public abstract class ASAT4JAnalysis<T> extends AComputation<T>
         return ASSUMED_CLAUSE_LIST;
     }
 
+    /**
+     * Returns the dependency that determines whether queries are answered by a
+     * {@link SAT4JPortfolioSolver portfolio} of differently configured solvers.
+     * Only used by {@link Solution solution analyses}.
+     *
+     * @return the portfolio dependency
+     */
+    public Dependency<Boolean> getPortfolioDependency() {
+        return PORTFOLIO;
+    }
+
+    /**
+     * Returns the dependency that determines whether a single query is split
+     * into cubes that are solved in parallel, see
+     * {@link SAT4JSolutionSolver#hasSolutionCubeAndConquer()}.
+     * Only used by {@link ComputeSolutionSAT4J}.
+     *
+     * @return the cube and conquer dependency
+     */
+    public Dependency<Boolean> getCubeAndConquerDependency() {
+        return CUBE_AND_CONQUER;
+    }
+
     protected abstract SAT4JSolver newSolver(BooleanClauseList clauseList);
 
+    protected SAT4JSolver newSolver(BooleanClauseList clauseList, boolean portfolio) {
+        return newSolver(clauseList);
+    }
+
     @SuppressWarnings("unchecked")
     public <U extends SAT4JSolver> U initializeSolver(DependencyList dependencyList) {
         BooleanClauseList clauseList = dependencyList.get(BOOLEAN_CLAUSE_LIST);
         ABooleanAssignment assumedAssignment = dependencyList.get(ASSUMED_ASSIGNMENT);
         BooleanClauseList assumedClauseList = dependencyList.get(ASSUMED_CLAUSE_LIST);
         Duration timeout = dependencyList.get(TIMEOUT);
+        boolean portfolio = dependencyList.get(PORTFOLIO);
         FeatJAR.log().debug("initializing SAT4J");
         //                    Feat.log().debug(clauseList.toValue().get());
         //                    Feat.log().debug("assuming " +
@@ -95,7 +128,7 @@ public abstract class ASAT4JAnalysis<T> extends AComputation<T>
         FeatJAR.log().debug(clauseList);
         FeatJAR.log().debug("assuming " + assumedAssignment);
         FeatJAR.log().debug("assuming " + assumedClauseList);
-        U solver = (U) newSolver(clauseList);
+        U solver = (U) newSolver(clauseList, portfolio);
         solver.getClauseList().addAll(assumedClauseList);
         solver.getAssignment().addAll(assumedAssignment);
         solver.setTimeout(timeout);
@@ -112,6 +145,11 @@ public abstract class ASAT4JAnalysis<T> extends AComputation<T>
         protected SAT4JSolutionSolver newSolver(BooleanClauseList clauseList) {
             return new SAT4JSolutionSolver(clauseList);
         }
+
+        @Override
+        protected SAT4JSolutionSolver newSolver(BooleanClauseList clauseList, boolean portfolio) {
+            return portfolio ? new SAT4JPortfolioSolver(clauseList) : newSolver(clauseList);
+        }
     }
 
     abstract static class Explanation<T> extends ASAT4JAnalysis<T> {
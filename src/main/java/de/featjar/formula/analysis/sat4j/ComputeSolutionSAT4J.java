@@ -30,6 +30,7 @@ import de.featjar.formula.analysis.bool.ABooleanAssignment;
 import de.featjar.formula.analysis.bool.BooleanAssignment;
 import de.featjar.formula.analysis.bool.BooleanClauseList;
 import de.featjar.formula.analysis.bool.BooleanSolution;
+import de.featjar.formula.analysis.sat4j.solver.SAT4JSolutionSolver;
 
 public class ComputeSolutionSAT4J extends ASAT4JAnalysis.Solution<BooleanSolution>
         implements ISolutionAnalysis<BooleanClauseList, BooleanSolution, BooleanAssignment> {
@@ -39,7 +40,13 @@ public class ComputeSolutionSAT4J extends ASAT4JAnalysis.Solution<BooleanSolutio
 
     @Override
     public Result<BooleanSolution> compute(DependencyList dependencyList, Progress progress) {
-        return initializeSolver(dependencyList).findSolution();
+        final SAT4JSolutionSolver solver = initializeSolver(dependencyList);
+        if (dependencyList.get(CUBE_AND_CONQUER)) {
+            return Result.of(true).equals(solver.hasSolutionCubeAndConquer())
+                    ? solver.getSolutionHistory().getLastSolution()
+                    : Result.empty();
+        }
+        return solver.findSolution();
     }
 
     @Override
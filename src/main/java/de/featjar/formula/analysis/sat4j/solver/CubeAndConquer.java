@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2022 Sebastian Krieter
+ *
+ * This file is part of formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.sat4j.solver;
+
+import de.featjar.base.FeatJAR;
+import de.featjar.base.data.Result;
+import de.featjar.formula.analysis.bool.BooleanClause;
+import de.featjar.formula.analysis.bool.BooleanSolution;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import org.sat4j.core.VecInt;
+import org.sat4j.minisat.core.Solver;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.ISolverService;
+import org.sat4j.tools.SearchListenerAdapter;
+
+/**
+ * Checks the satisfiability of a single hard query in parallel. Splitting
+ * variables are selected once by their static Jeroslow-Wang scores in the
+ * clause list (i.e., without a lookahead), and their assignments partition the
+ * query into cubes. The cubes are solved as additional assumptions by worker
+ * solvers on a work-stealing pool. The query is satisfiable as soon as one cube
+ * is satisfiable, and unsatisfiable once all cubes are refuted.
+ * <br>
+ * The timeout of the solver applies to the query as a whole. Each cube is
+ * given the time that remains until the shared deadline, and cubes started
+ * after the deadline count as timed out.
+ * <br>
+ * Once a cube is satisfiable, a shared flag is raised that stops the search of
+ * all other workers. Expiring their timeouts directly is not sufficient, as
+ * Sat4J re-arms the timer whenever a search starts.
+ *
+ * @author Sebastian Krieter
+ */
+class CubeAndConquer {
+
+    private static final int CUBES_PER_THREAD = 8;
+
+    private final SAT4JSolutionSolver solver;
+    private final int threadCount;
+    private final int[] assumptions;
+    private final int[] splitVariables;
+    private final long timeoutNanos;
+    private final long startTime;
+
+    private final ThreadLocal<SAT4JSolutionSolver> workers = ThreadLocal.withInitial(this::createWorker);
+    private final AtomicReference<BooleanSolution> solution = new AtomicReference<>();
+    private volatile boolean stopped;
+    private volatile boolean timeoutOccurred;
+
+    CubeAndConquer(SAT4JSolutionSolver solver, int threadCount) {
+        this.solver = solver;
+        this.threadCount = Math.max(1, threadCount);
+        timeoutNanos = solver.getTimeout().toNanos();
+        startTime = System.nanoTime();
+        assumptions = solver.getAssignment().get();
+        final int cubeCount = this.threadCount * CUBES_PER_THREAD;
+        splitVariables = selectSplitVariables(32 - Integer.numberOfLeadingZeros(cubeCount - 1));
+    }
+
+    /**
+     * Selects the free variables with the highest product of positive and
+     * negative Jeroslow-Wang scores, i.e., variables that occur often in short
+     * clauses in both phases.
+     */
+    private int[] selectSplitVariables(int depth) {
+        final int variableCount = solver.getOrder().length;
+        final double[] scores = new double[(variableCount + 1) << 1];
+        for (final BooleanClause clause : solver.getClauseList().getAll()) {
+            final int[] literals = clause.get();
+            final double weight = Math.pow(2, -literals.length);
+            for (final int l : literals) {
+                scores[l > 0 ? l << 1 : (-l << 1) + 1] += weight;
+            }
+        }
+        final boolean[] assigned = new boolean[variableCount + 1];
+        for (final int l : assumptions) {
+            assigned[Math.abs(l)] = true;
+        }
+        return IntStream.rangeClosed(1, variableCount)
+                .filter(v -> !assigned[v])
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer v) -> scores[v << 1] * scores[(v << 1) + 1])
+                        .reversed())
+                .limit(depth)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private SAT4JSolutionSolver createWorker() {
+        final SAT4JSolutionSolver worker = new SAT4JSolutionSolver(solver.getClauseList());
+        worker.setGlobalTimeout(solver.isGlobalTimeout());
+        ((Solver<?>) worker.internalSolver).setSearchListener(new StopListener(worker.internalSolver));
+        return worker;
+    }
+
+    Result<Boolean> hasSolution() {
+        if (solver.trivialContradictionFound) {
+            solver.solutionHistory.setLastSolution(null);
+            return Result.of(false);
+        }
+        FeatJAR.log().debug("solving " + (1 << splitVariables.length) + " cubes with " + threadCount + " threads");
+        final ForkJoinPool pool = new ForkJoinPool(threadCount);
+        try {
+            pool.invoke(new CubeTask(new int[0]));
+        } finally {
+            pool.shutdownNow();
+        }
+        final BooleanSolution foundSolution = solution.get();
+        if (foundSolution != null) {
+            solver.solutionHistory.addNewSolution(foundSolution);
+            return Result.of(true);
+        }
+        solver.solutionHistory.setLastSolution(null);
+        if (timeoutOccurred) {
+            solver.isTimeoutOccurred = true;
+            return Result.empty(de.featjar.formula.analysis.ISolver.getTimeoutProblem(null));
+        }
+        return Result.of(false);
+    }
+
+    private void solve(int[] cube) {
+        if (stopped) {
+            return;
+        }
+        final SAT4JSolutionSolver worker = workers.get();
+        if (timeoutNanos > 0) {
+            final long remaining = timeoutNanos - (System.nanoTime() - startTime);
+            if (remaining <= 0) {
+                if (solution.get() == null) {
+                    timeoutOccurred = true;
+                }
+                return;
+            }
+            worker.setTimeout(Duration.ofMillis(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining))));
+        }
+        final VecInt integers = new VecInt(assumptions.length + cube.length);
+        for (final int l : assumptions) {
+            integers.push(l);
+        }
+        for (final int l : cube) {
+            integers.push(l);
+        }
+        final Result<Boolean> result = worker.hasSolution(integers);
+        if (result.isEmpty()) {
+            if (solution.get() == null) {
+                timeoutOccurred = true;
+            }
+        } else if (result.get()
+                && solution.compareAndSet(null, worker.getSolutionHistory().getLastSolution().get())) {
+            stopped = true;
+        }
+    }
+
+    /**
+     * Stops the search of a worker as soon as the shared flag is raised. The
+     * flag is checked in every iteration of the search loop, so it also applies
+     * to searches started after the flag was raised.
+     */
+    private class StopListener extends SearchListenerAdapter<ISolverService> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ISolver internalSolver;
+
+        private StopListener(ISolver internalSolver) {
+            this.internalSolver = internalSolver;
+        }
+
+        @Override
+        public void beginLoop() {
+            if (stopped) {
+                internalSolver.expireTimeout();
+            }
+        }
+    }
+
+    private class CubeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] cube;
+
+        private CubeTask(int[] cube) {
+            this.cube = cube;
+        }
+
+        @Override
+        protected void compute() {
+            if (stopped) {
+                return;
+            }
+            if (cube.length == splitVariables.length) {
+                solve(cube);
+            } else {
+                final int variable = splitVariables[cube.length];
+                final int[] positiveCube = Arrays.copyOf(cube, cube.length + 1);
+                final int[] negativeCube = Arrays.copyOf(cube, cube.length + 1);
+                positiveCube[cube.length] = variable;
+                negativeCube[cube.length] = -variable;
+                invokeAll(new CubeTask(positiveCube), new CubeTask(negativeCube));
+            }
+        }
+    }
+}
@@ -126,22 +126,27 @@ public interface ISelectionStrategy {
         }
     }
 
-    //    class MIGRandomStrategy implements SStrategy {
-    //        private final MIGDistribution dist;
-    //
-    //        public MIGRandomStrategy(MIGDistribution dist) {
-    //            this.dist = dist;
-    //        }
-    //
-    //        @Override
-    //        public Strategy strategy() {
-    //            return Strategy.MIGRandom;
-    //        }
-    //
-    //        public MIGDistribution getDist() {
-    //            return dist;
-    //        }
-    //    }
+    /**
+     * Phase selection based on the implications of a modal implication graph.
+     * The distribution is usually a {@link MIGDistribution}, but any
+     * {@link ALiteralDistribution} can be used.
+     */
+    class MIGRandomStrategy implements ISelectionStrategy {
+        private final ALiteralDistribution dist;
+
+        public MIGRandomStrategy(ALiteralDistribution dist) {
+            this.dist = dist;
+        }
+
+        @Override
+        public Strategy strategy() {
+            return Strategy.MIGRandom;
+        }
+
+        public ALiteralDistribution getDist() {
+            return dist;
+        }
+    }
 
     static OriginalStrategy original() {
         return new OriginalStrategy();
@@ -175,7 +180,7 @@ public interface ISelectionStrategy {
         return new UniformRandomStrategy(dist);
     }
 
-    //    static MIGRandomStrategy mig(MIGDistribution dist) {
-    //        return new MIGRandomStrategy(dist);
-    //    }
+    static MIGRandomStrategy mig(ALiteralDistribution dist) {
+        return new MIGRandomStrategy(dist);
+    }
 }
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2023 Sebastian Krieter
+ *
+ * This file is part of FeatJAR-formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.sat4j.solver;
+
+import java.util.Arrays;
+
+/**
+ * Uses the in-degree of literals in a modal implication graph to achieve a
+ * phase selection that corresponds to a uniform distribution of configurations
+ * in the configuration space. Each normal vertex whose variable is not yet
+ * assigned contributes one to the weight of every literal it strongly implies
+ * and {@code 1 / (n - 1)} to every literal of its complex clauses of size
+ * {@code n}. The weights are updated whenever a variable is set or unset, such
+ * that a phase can be selected in constant time.
+ * <p>
+ * The graph is given as arrays indexed by vertex (see
+ * {@link #getVertexIndex(int)}), so the distribution does not depend on a
+ * particular graph implementation. Core and dead vertices are {@code null}.
+ * <p>
+ * Weights are fixed-point numbers with 20 fractional bits. Thus,
+ * {@code 1 / (n - 1)} is truncated to a multiple of {@code 2^-20}, which
+ * underestimates the contribution of a complex clause by less than
+ * {@code n * 2^-20}. In exchange, sums are exact, so incremental updates never
+ * drift from a full recomputation.
+ *
+ * @author Sebastian Krieter
+ */
+public class MIGDistribution extends ALiteralDistribution {
+
+    private static final long ONE = 1L << 20;
+
+    private final byte[] model;
+    private final int count;
+
+    private final int[] edgeOffsets;
+    private final int[] edgeTargets;
+    private final long[] edgeWeights;
+
+    private final long[] initialWeights;
+    private final long[] weights;
+
+    /**
+     * Creates a distribution from the edges of a modal implication graph.
+     *
+     * @param strongEdges    the strongly implied literals of each vertex
+     * @param complexClauses the complex clauses of each vertex
+     */
+    public MIGDistribution(int[][] strongEdges, int[][][] complexClauses) {
+        final int vertexCount = strongEdges.length;
+        model = new byte[vertexCount / 2];
+        edgeOffsets = new int[vertexCount + 1];
+
+        int normalCount = 0;
+        int edgeCount = 0;
+        for (int i = 0; i < vertexCount; i++) {
+            if (strongEdges[i] != null) {
+                normalCount++;
+                edgeCount += strongEdges[i].length;
+                for (final int[] clause : complexClauses[i]) {
+                    edgeCount += clause.length;
+                }
+            }
+        }
+        count = normalCount / 2;
+
+        edgeTargets = new int[edgeCount];
+        edgeWeights = new long[edgeCount];
+        initialWeights = new long[vertexCount];
+        int edge = 0;
+        for (int i = 0; i < vertexCount; i++) {
+            edgeOffsets[i] = edge;
+            if (strongEdges[i] != null) {
+                for (final int strong : strongEdges[i]) {
+                    edgeTargets[edge] = getVertexIndex(strong);
+                    edgeWeights[edge++] = ONE;
+                }
+                for (final int[] clause : complexClauses[i]) {
+                    final long weight = ONE / Math.max(1, clause.length - 1);
+                    for (final int l : clause) {
+                        edgeTargets[edge] = getVertexIndex(l);
+                        edgeWeights[edge++] = weight;
+                    }
+                }
+            }
+        }
+        edgeOffsets[vertexCount] = edge;
+        for (int i = 0; i < edgeCount; i++) {
+            initialWeights[edgeTargets[i]] += edgeWeights[i];
+        }
+        weights = Arrays.copyOf(initialWeights, initialWeights.length);
+    }
+
+    /**
+     * Returns the index of the vertex of the given literal. The negative literal
+     * of variable {@code v} has index {@code 2 * (v - 1)}, the positive literal
+     * the index after it.
+     *
+     * @param literal the literal
+     * @return the vertex index
+     */
+    public static int getVertexIndex(int literal) {
+        return literal < 0 ? (-(literal + 1)) << 1 : (((literal - 1) << 1) + 1);
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(model, (byte) 0);
+        System.arraycopy(initialWeights, 0, weights, 0, weights.length);
+    }
+
+    @Override
+    public void unset(int var) {
+        final int index = var - 1;
+        if (model[index] != 0) {
+            model[index] = 0;
+            update(var, 1);
+        }
+    }
+
+    @Override
+    public void set(int literal) {
+        final int index = Math.abs(literal) - 1;
+        if (model[index] == 0) {
+            model[index] = (byte) (literal > 0 ? 1 : -1);
+            update(Math.abs(literal), -1);
+        }
+    }
+
+    private void update(int var, int sign) {
+        final int negativeIndex = getVertexIndex(-var);
+        for (int i = edgeOffsets[negativeIndex], end = edgeOffsets[negativeIndex + 2]; i < end; i++) {
+            weights[edgeTargets[i]] += sign * edgeWeights[i];
+        }
+    }
+
+    /**
+     * Returns the current weight of the given literal, scaled by {@code 2^20}.
+     *
+     * @param literal the literal
+     * @return the weight
+     */
+    public long getWeight(int literal) {
+        return weights[getVertexIndex(literal)];
+    }
+
+    @Override
+    public int getRandomLiteral(int var) {
+        final double positive = (double) weights[getVertexIndex(var)] / ONE;
+        final double negative = (double) weights[getVertexIndex(-var)] / ONE;
+        double score = 1;
+        score -= getScore(negative, count);
+        score += getScore(positive, count);
+        score *= 0.5;
+        return random.nextDouble() < score ? var : -var;
+    }
+
+    private static double getScore(double weight, double total) {
+        return Math.log(((weight / Math.max(1, total - 1)) + 1)) / Math.log(2);
+    }
+}
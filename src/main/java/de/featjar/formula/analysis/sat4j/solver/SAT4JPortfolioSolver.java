@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2022 Sebastian Krieter
+ *
+ * This file is part of formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.sat4j.solver;
+
+import de.featjar.formula.analysis.bool.BooleanClauseList;
+import java.util.Arrays;
+import org.sat4j.minisat.SolverFactory;
+import org.sat4j.specs.ISolver;
+import org.sat4j.tools.ManyCore;
+
+/**
+ * Solution solver that runs several differently configured Sat4J solvers on
+ * separate threads. Each query is answered by the first solver that finds a
+ * definite answer, the remaining solvers are stopped.
+ * <br>
+ * The members use their own restart, phase, and learning heuristics, so
+ * {@link #setSelectionStrategy(ISelectionStrategy) selection strategies} and
+ * the variable order are not applied to them.
+ *
+ * @author Sebastian Krieter
+ */
+public class SAT4JPortfolioSolver extends SAT4JSolutionSolver {
+
+    /**
+     * Names of the {@link SolverFactory} configurations, ordered by priority.
+     */
+    private static final String[] CONFIGURATIONS = {"Default", "Glucose21", "SAT", "UNSAT"};
+
+    public SAT4JPortfolioSolver(BooleanClauseList clauseList) {
+        super(clauseList);
+    }
+
+    /**
+     * Returns the number of solvers in a portfolio. Uses one solver per available
+     * processor, but at least two and at most one per configuration.
+     *
+     * @return the number of solvers
+     */
+    public static int getPortfolioSize() {
+        return Math.max(2, Math.min(CONFIGURATIONS.length, Runtime.getRuntime().availableProcessors()));
+    }
+
+    @Override
+    protected ISolver newInternalSolver() {
+        return new ManyCore<>(
+                SolverFactory.instance(), Arrays.copyOf(CONFIGURATIONS, getPortfolioSize()));
+    }
+}
@@ -20,23 +20,31 @@
  */
 package de.featjar.formula.analysis.sat4j.solver;
 
+import de.featjar.base.data.Result;
 import de.featjar.formula.analysis.bool.BooleanClauseList;
+import de.featjar.formula.analysis.sat4j.solver.ISelectionStrategy.FastRandomStrategy;
 import de.featjar.formula.analysis.sat4j.solver.ISelectionStrategy.FixedStrategy;
 import de.featjar.formula.analysis.sat4j.solver.ISelectionStrategy.InverseFixedStrategy;
+import de.featjar.formula.analysis.sat4j.solver.ISelectionStrategy.MIGRandomStrategy;
+import de.featjar.formula.analysis.sat4j.solver.ISelectionStrategy.Strategy;
 import de.featjar.formula.analysis.sat4j.solver.ISelectionStrategy.UniformRandomStrategy;
 import de.featjar.formula.analysis.sat4j.solver.strategy.FixedLiteralSelectionStrategy;
 import de.featjar.formula.analysis.sat4j.solver.strategy.FixedOrderHeap;
 import de.featjar.formula.analysis.sat4j.solver.strategy.FixedOrderHeap2;
+import de.featjar.formula.analysis.sat4j.solver.strategy.MIGRandomSelectionStrategy;
 import de.featjar.formula.analysis.sat4j.solver.strategy.RandomSelectionStrategy;
 import de.featjar.formula.analysis.sat4j.solver.strategy.UniformRandomSelectionStrategy;
+import java.util.EnumMap;
 import java.util.Random;
 import org.sat4j.minisat.SolverFactory;
 import org.sat4j.minisat.core.IOrder;
+import org.sat4j.minisat.core.IPhaseSelectionStrategy;
 import org.sat4j.minisat.core.Solver;
 import org.sat4j.minisat.orders.NegativeLiteralSelectionStrategy;
 import org.sat4j.minisat.orders.PositiveLiteralSelectionStrategy;
 import org.sat4j.minisat.orders.RSATPhaseSelectionStrategy;
 import org.sat4j.minisat.orders.VarOrderHeap;
+import org.sat4j.specs.ISolver;
 
 /**
  * ...
@@ -46,18 +54,21 @@ import org.sat4j.minisat.orders.VarOrderHeap;
 public class SAT4JSolutionSolver extends SAT4JSolver {
     protected final int[] order;
     protected ISelectionStrategy strategy;
+    private final EnumMap<Strategy, IOrder> heaps = new EnumMap<>(Strategy.class);
 
     public SAT4JSolutionSolver(BooleanClauseList clauseList) {
         super(clauseList);
         strategy = ISelectionStrategy.original();
         order = new int[clauseList.getVariableCount()];
         setOrderFix();
-        ((Solver<?>) internalSolver).getOrder().init();
+        if (internalSolver instanceof Solver) {
+            ((Solver<?>) internalSolver).getOrder().init();
+        }
     }
 
     @Override
-    protected Solver<?> newInternalSolver() {
-        return (Solver<?>) SolverFactory.newDefault();
+    protected ISolver newInternalSolver() {
+        return SolverFactory.newDefault();
     }
 
     public int[] getOrder() {
@@ -92,49 +103,123 @@ public class SAT4JSolutionSolver extends SAT4JSolver {
         }
     }
 
+    /**
+     * Checks satisfiability under the current assignment by cube and conquer.
+     * Intended for single, very hard queries. The query is split into cubes that
+     * are solved in parallel by separate solvers using all available processors.
+     * The timeout of this solver limits the whole query, not each cube.
+     *
+     * @return {@code true} if satisfiable, {@code false} if unsatisfiable, or an
+     *         empty result on timeout
+     */
+    public Result<Boolean> hasSolutionCubeAndConquer() {
+        return hasSolutionCubeAndConquer(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Checks satisfiability under the current assignment by cube and conquer.
+     *
+     * @param threadCount the number of threads
+     * @return {@code true} if satisfiable, {@code false} if unsatisfiable, or an
+     *         empty result on timeout
+     * @see #hasSolutionCubeAndConquer()
+     */
+    public Result<Boolean> hasSolutionCubeAndConquer(int threadCount) {
+        return new CubeAndConquer(this, threadCount).hasSolution();
+    }
+
     private void setSelectionStrategy(IOrder strategy) {
         ((Solver<?>) internalSolver).setOrder(strategy);
         ((Solver<?>) internalSolver).getOrder().init();
     }
 
+    /**
+     * Sets the selection strategy of the internal solver. Heaps are cached per
+     * kind of strategy and only the phases of a cached heap are replaced, so
+     * switching strategies does not allocate. The strategy is always recorded,
+     * but only applied if the internal solver is a single Sat4J {@link Solver}
+     * (e.g., not for a {@link SAT4JPortfolioSolver portfolio}). A fixed model of
+     * a different length than the cached one gets a new heap.
+     *
+     * @param strategy the selection strategy
+     */
     public void setSelectionStrategy(ISelectionStrategy strategy) {
-        this.strategy = strategy;
-        switch (strategy.strategy()) {
+        if (!(internalSolver instanceof Solver)) {
+            this.strategy = strategy;
+            return;
+        }
+        final Strategy kind = strategy.strategy();
+        IOrder heap = heaps.get(kind);
+        switch (kind) {
             case FastRandom:
-                setSelectionStrategy(new FixedOrderHeap(new RandomSelectionStrategy(), order));
+                if (heap == null) {
+                    heap = new FixedOrderHeap(
+                            new RandomSelectionStrategy(((FastRandomStrategy) strategy).getRandom()), order);
+                } else {
+                    getPhaseSelectionStrategy(heap, RandomSelectionStrategy.class)
+                            .setRandom(((FastRandomStrategy) strategy).getRandom());
+                }
                 break;
             case Fixed:
-                setSelectionStrategy(
-                        new FixedOrderHeap( //
-                                new FixedLiteralSelectionStrategy(((FixedStrategy) strategy).getModel()), //
-                                order));
+                heap = getFixedHeap(heap, ((FixedStrategy) strategy).getModel());
                 break;
             case InverseFixed:
-                setSelectionStrategy(
-                        new FixedOrderHeap( //
-                                new FixedLiteralSelectionStrategy(((InverseFixedStrategy) strategy).getModel()), //
-                                order));
+                heap = getFixedHeap(heap, ((InverseFixedStrategy) strategy).getModel());
+                break;
+            case MIGRandom:
+                if (heap == null) {
+                    heap = new FixedOrderHeap2(
+                            new MIGRandomSelectionStrategy(((MIGRandomStrategy) strategy).getDist()), order);
+                } else {
+                    getPhaseSelectionStrategy(heap, MIGRandomSelectionStrategy.class)
+                            .setDist(((MIGRandomStrategy) strategy).getDist());
+                }
                 break;
-                //            case MIGRandom:
-                //                setSelectionStrategy(new FixedOrderHeap2(
-                //                        new UniformRandomSelectionStrategy(((MIGRandomStrategy) strategy).getDist()),
-                // order));
-                //                break;
             case Negative:
-                setSelectionStrategy(new FixedOrderHeap(new NegativeLiteralSelectionStrategy(), order));
+                if (heap == null) {
+                    heap = new FixedOrderHeap(new NegativeLiteralSelectionStrategy(), order);
+                }
                 break;
             case Original:
-                setSelectionStrategy(new VarOrderHeap(new RSATPhaseSelectionStrategy()));
+                if (heap == null) {
+                    heap = new VarOrderHeap(new RSATPhaseSelectionStrategy());
+                }
                 break;
             case Positive:
-                setSelectionStrategy(new FixedOrderHeap(new PositiveLiteralSelectionStrategy(), order));
+                if (heap == null) {
+                    heap = new FixedOrderHeap(new PositiveLiteralSelectionStrategy(), order);
+                }
                 break;
             case UniformRandom:
-                setSelectionStrategy(new FixedOrderHeap2(
-                        new UniformRandomSelectionStrategy(((UniformRandomStrategy) strategy).getDist()), order));
+                if (heap == null) {
+                    heap = new FixedOrderHeap2(
+                            new UniformRandomSelectionStrategy(((UniformRandomStrategy) strategy).getDist()), order);
+                } else {
+                    getPhaseSelectionStrategy(heap, UniformRandomSelectionStrategy.class)
+                            .setDist(((UniformRandomStrategy) strategy).getDist());
+                }
                 break;
             default:
-                throw new IllegalStateException(String.valueOf(strategy.strategy()));
+                throw new IllegalStateException(String.valueOf(kind));
         }
+        heaps.put(kind, heap);
+        setSelectionStrategy(heap);
+        this.strategy = strategy;
+    }
+
+    private IOrder getFixedHeap(IOrder heap, int[] model) {
+        if (heap != null) {
+            final FixedLiteralSelectionStrategy phaseStrategy =
+                    getPhaseSelectionStrategy(heap, FixedLiteralSelectionStrategy.class);
+            if (phaseStrategy.getModel().length == model.length) {
+                phaseStrategy.setModel(model);
+                return heap;
+            }
+        }
+        return new FixedOrderHeap(new FixedLiteralSelectionStrategy(model), order);
+    }
+
+    private static <T extends IPhaseSelectionStrategy> T getPhaseSelectionStrategy(IOrder heap, Class<T> type) {
+        return type.cast(((VarOrderHeap) heap).getPhaseSelectionStrategy());
     }
 }
@@ -21,47 +21,95 @@
 package de.featjar.formula.analysis.sat4j.solver;
 
 import de.featjar.formula.analysis.bool.ABooleanAssignment;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 
 /**
  * Uses a sample of configurations to achieve a phase selection that corresponds
  * to a uniform distribution of configurations in the configuration space.
+ * <p>
+ * The samples are stored column-wise as bitsets, one for the positive and one
+ * for the negative occurrences of each variable. A further bitset holds all
+ * samples that are still compatible with the current assignment, so that
+ * setting or unsetting a variable and selecting a phase each take
+ * {@code O(samples / 64)} word operations.
  *
  * @author Sebastian Krieter
  */
 public class SampleDistribution extends ALiteralDistribution {
 
-    private final ArrayList<ABooleanAssignment> samples = new ArrayList<>();
-    private int startIndex;
+    private final int sampleCount;
+    private final int wordCount;
+
+    private final long[][] positiveColumns;
+    private final long[][] negativeColumns;
+
+    private final long[] compatible;
+    private int compatibleCount;
+
+    private final long[][] removed;
+    private final int[] assignedVariables;
+    private int assignedCount;
 
     private final byte[] model;
 
     public SampleDistribution(List<ABooleanAssignment> sample) {
-        samples.addAll(sample);
-        startIndex = 0;
-        model = new byte[sample.get(0).size()];
+        sampleCount = sample.size();
+        wordCount = (sampleCount + 63) >>> 6;
+        final int variableCount = sample.get(0).size();
+        model = new byte[variableCount];
+        positiveColumns = new long[variableCount][wordCount];
+        negativeColumns = new long[variableCount][wordCount];
+        for (int s = 0; s < sampleCount; s++) {
+            final int[] literals = sample.get(s).get();
+            final int word = s >>> 6;
+            final long bit = 1L << s;
+            for (int i = 0; i < variableCount; i++) {
+                if (literals[i] > 0) {
+                    positiveColumns[i][word] |= bit;
+                } else if (literals[i] < 0) {
+                    negativeColumns[i][word] |= bit;
+                }
+            }
+        }
+        compatible = new long[wordCount];
+        removed = new long[variableCount][wordCount];
+        assignedVariables = new int[variableCount];
+        reset();
     }
 
     @Override
     public void reset() {
         Arrays.fill(model, (byte) 0);
-        startIndex = 0;
+        Arrays.fill(compatible, -1L);
+        if ((sampleCount & 63) != 0) {
+            compatible[wordCount - 1] = (1L << sampleCount) - 1;
+        }
+        compatibleCount = sampleCount;
+        assignedCount = 0;
     }
 
     @Override
     public void unset(int var) {
         final int index = var - 1;
-        final byte sign = model[index];
-        if (sign != 0) {
+        if (model[index] != 0) {
             model[index] = 0;
-            final int literal = sign > 0 ? var : -var;
-            for (int i = 0; i < startIndex; i++) {
-                if (samples.get(i).get()[index] == -literal) {
-                    Collections.swap(samples, i--, --startIndex);
+            if ((assignedCount > 0) && (assignedVariables[assignedCount - 1] == index)) {
+                assignedCount--;
+                final long[] removedSamples = removed[index];
+                for (int w = 0; w < wordCount; w++) {
+                    compatible[w] |= removedSamples[w];
+                    compatibleCount += Long.bitCount(removedSamples[w]);
+                }
+            } else {
+                // not undone in reverse order of assignment, recompute from the remaining assignment
+                int j = 0;
+                for (int i = 0; i < assignedCount; i++) {
+                    if (assignedVariables[i] != index) {
+                        assignedVariables[j++] = assignedVariables[i];
+                    }
                 }
+                rebuild(j);
             }
         }
     }
@@ -71,32 +119,59 @@ public class SampleDistribution extends ALiteralDistribution {
         final int index = Math.abs(literal) - 1;
         if (model[index] == 0) {
             model[index] = (byte) (literal > 0 ? 1 : -1);
-            for (int i = startIndex; i < samples.size(); i++) {
-                if (samples.get(i).get()[index] == -literal) {
-                    Collections.swap(samples, i, startIndex++);
-                }
-            }
+            assignedVariables[assignedCount++] = index;
+            remove(index);
+        }
+    }
+
+    private void remove(int index) {
+        final long[] conflicting = model[index] > 0 ? negativeColumns[index] : positiveColumns[index];
+        final long[] removedSamples = removed[index];
+        for (int w = 0; w < wordCount; w++) {
+            final long r = compatible[w] & conflicting[w];
+            removedSamples[w] = r;
+            compatible[w] &= ~r;
+            compatibleCount -= Long.bitCount(r);
+        }
+    }
+
+    private void rebuild(int newAssignedCount) {
+        final byte[] signs = Arrays.copyOf(model, model.length);
+        final int[] order = Arrays.copyOf(assignedVariables, newAssignedCount);
+        reset();
+        for (final int index : order) {
+            model[index] = signs[index];
+            assignedVariables[assignedCount++] = index;
+            remove(index);
         }
     }
 
     @Override
     public int getRandomLiteral(int var) {
-        if (samples.size() > (startIndex + 1)) {
-            return (random.nextInt((samples.size() - startIndex) + 2) < (getPositiveCount(var - 1) + 1)) ? var : -var;
+        if (compatibleCount > 1) {
+            return (random.nextInt(compatibleCount + 2) < (getPositiveCount(var - 1) + 1)) ? var : -var;
         } else {
             return random.nextBoolean() ? var : -var;
         }
     }
 
+    /**
+     * Returns the number of compatible samples in which the variable is not
+     * negative.
+     *
+     * @param index the index of the variable
+     * @return the number of compatible samples
+     */
     public int getPositiveCount(int index) {
+        final long[] negative = negativeColumns[index];
         int sum = 0;
-        for (final ABooleanAssignment l : samples.subList(startIndex, samples.size())) {
-            sum += (~l.get()[index]) >>> 31;
+        for (int w = 0; w < wordCount; w++) {
+            sum += Long.bitCount(compatible[w] & ~negative[w]);
         }
         return sum;
     }
 
     public int getTotalCount() {
-        return samples.size() + startIndex;
+        return sampleCount;
     }
 }
@@ -28,7 +28,7 @@ import org.sat4j.minisat.core.IPhaseSelectionStrategy;
 
 public class FixedLiteralSelectionStrategy implements IPhaseSelectionStrategy {
 
-    protected final int[] model;
+    protected int[] model;
 
     protected final int[] phase;
 
@@ -38,6 +38,25 @@ public class FixedLiteralSelectionStrategy implements IPhaseSelectionStrategy {
         reset(model.length + 1);
     }
 
+    public int[] getModel() {
+        return model;
+    }
+
+    /**
+     * Replaces the model and resets the phase of all variables to it.
+     *
+     * @param model the new model with the same number of variables
+     * @throws IllegalArgumentException if the number of variables differs
+     */
+    public void setModel(int[] model) {
+        if (model.length != this.model.length) {
+            throw new IllegalArgumentException(
+                    String.format("Expected model of length %d, but got %d", this.model.length, model.length));
+        }
+        this.model = model;
+        reset(model.length + 1);
+    }
+
     @Override
     public void updateVar(int p) {}
 
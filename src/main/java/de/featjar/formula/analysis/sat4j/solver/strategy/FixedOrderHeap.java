@@ -20,6 +20,7 @@
  */
 package de.featjar.formula.analysis.sat4j.solver.strategy;
 
+import java.util.Arrays;
 import org.sat4j.minisat.core.Heap;
 import org.sat4j.minisat.core.IPhaseSelectionStrategy;
 import org.sat4j.minisat.orders.VarOrderHeap;
@@ -27,13 +28,15 @@ import org.sat4j.specs.ISolver;
 
 /**
  * Modified variable order for {@link ISolver}.<br>
- * Initializes the used heap in a certain order.
+ * Initializes the used heap in a certain order. The heap is reused on every
+ * initialization.
  *
  * @author Sebastian Krieter
  */
 public class FixedOrderHeap extends VarOrderHeap {
 
     private int[] order;
+    private int heapBounds;
 
     public FixedOrderHeap(IPhaseSelectionStrategy strategy, int[] order) {
         super(strategy);
@@ -45,15 +48,24 @@ public class FixedOrderHeap extends VarOrderHeap {
         int nlength = lits.nVars() + 1;
         if ((activity == null) || (activity.length < nlength)) {
             activity = new double[nlength];
+            heap = null;
         }
         phaseStrategy.init(nlength);
+        Arrays.fill(activity, 0, nlength, 0.0);
         activity[0] = -1;
-        heap = new Heap(activity);
-        heap.setBounds(nlength);
+        if ((heap == null) || (heapBounds < nlength)) {
+            heap = new Heap(activity);
+            heap.setBounds(nlength);
+            heapBounds = nlength;
+        } else {
+            // all activities are equal, so each removal takes constant time
+            while (!heap.empty()) {
+                heap.getmin();
+            }
+        }
         nlength--;
         for (int i = 0; i < nlength; i++) {
             final int x = order[i];
-            activity[x] = 0.0;
             if (lits.belongsToPool(x)) {
                 heap.insert(x);
             }
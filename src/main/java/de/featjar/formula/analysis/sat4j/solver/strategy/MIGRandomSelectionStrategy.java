@@ -20,55 +20,24 @@
  */
 package de.featjar.formula.analysis.sat4j.solver.strategy;
 
-import static org.sat4j.core.LiteralsUtils.negLit;
-import static org.sat4j.core.LiteralsUtils.posLit;
-
-import de.featjar.formula.analysis.sat4j.solver.SampleDistribution;
-import org.sat4j.core.LiteralsUtils;
-import org.sat4j.minisat.core.IPhaseSelectionStrategy;
+import de.featjar.formula.analysis.sat4j.solver.ALiteralDistribution;
 
 /**
- * Uses a sample of configurations to achieve a phase selection that corresponds
- * to a uniform distribution of configurations in the configuration space.
+ * Uses the implications of a modal implication graph to achieve a phase
+ * selection that approximates a uniform distribution of configurations in the
+ * configuration space. The implications are provided by the distribution,
+ * usually a {@link de.featjar.formula.analysis.sat4j.solver.MIGDistribution}.
  *
  * @author Sebastian Krieter
  */
-public class MIGRandomSelectionStrategy implements IPhaseSelectionStrategy {
-
-    private final SampleDistribution dist;
-
-    public MIGRandomSelectionStrategy(SampleDistribution sampleDistribution) {
-        dist = sampleDistribution;
-    }
-
-    public void undo(int var) {
-        dist.unset(var);
-    }
-
-    @Override
-    public void assignLiteral(int p) {
-        dist.set(LiteralsUtils.toDimacs(p));
-    }
+public class MIGRandomSelectionStrategy extends UniformRandomSelectionStrategy {
 
-    @Override
-    public void init(int nlength) {}
-
-    @Override
-    public void init(int var, int p) {}
-
-    @Override
-    public int select(int var) {
-        return dist.getRandomLiteral(var) > 0 ? posLit(var) : negLit(var);
+    public MIGRandomSelectionStrategy(ALiteralDistribution dist) {
+        super(dist);
     }
 
-    @Override
-    public void updateVar(int p) {}
-
-    @Override
-    public void updateVarAtDecisionLevel(int q) {}
-
     @Override
     public String toString() {
-        return "uniform random phase selection";
+        return "MIG random phase selection";
     }
 }
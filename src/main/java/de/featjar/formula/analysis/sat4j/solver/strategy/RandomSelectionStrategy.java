@@ -33,7 +33,23 @@ import org.sat4j.minisat.core.IPhaseSelectionStrategy;
  */
 public class RandomSelectionStrategy implements IPhaseSelectionStrategy {
 
-    public final Random RAND = new Random(123456789);
+    private Random random;
+
+    public RandomSelectionStrategy() {
+        this(new Random(123456789));
+    }
+
+    public RandomSelectionStrategy(Random random) {
+        this.random = random;
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+
+    public void setRandom(Random random) {
+        this.random = random;
+    }
 
     @Override
     public void assignLiteral(int p) {}
@@ -46,7 +62,7 @@ public class RandomSelectionStrategy implements IPhaseSelectionStrategy {
 
     @Override
     public int select(int var) {
-        return RAND.nextBoolean() ? posLit(var) : negLit(var);
+        return random.nextBoolean() ? posLit(var) : negLit(var);
     }
 
     @Override
@@ -35,12 +35,20 @@ import org.sat4j.minisat.core.IPhaseSelectionStrategy;
  */
 public class UniformRandomSelectionStrategy implements IPhaseSelectionStrategy {
 
-    private final ALiteralDistribution dist;
+    private ALiteralDistribution dist;
 
     public UniformRandomSelectionStrategy(ALiteralDistribution dist) {
         this.dist = dist;
     }
 
+    public ALiteralDistribution getDist() {
+        return dist;
+    }
+
+    public void setDist(ALiteralDistribution dist) {
+        this.dist = dist;
+    }
+
     public void undo(int var) {
         dist.unset(var);
     }
@@ -96,6 +96,20 @@ public abstract class AbstractConfigurationGenerator
         init(monitor);
     }
 
+    /**
+     * Creates an additional solver that is prepared like the main solver, so it
+     * has the same assumptions and timeout. Used by generators that run several
+     * workers, each with its own solver.
+     *
+     * @param c the cache
+     * @return the prepared solver
+     */
+    protected SAT4JSolutionSolver createPreparedSolver(Cache c) {
+        final SAT4JSolutionSolver preparedSolver = createSolver(c.get(solverInputComputation).get());
+        prepareSolver(preparedSolver);
+        return preparedSolver;
+    }
+
     protected void init(IMonitor monitor) {}
 
     @Override
@@ -20,6 +20,12 @@
  */
 package de.featjar.formula.analysis.sat4j.todo.configuration;
 
+import de.featjar.formula.analysis.sat4j.solver.SAT4JAssignment;
+import de.featjar.formula.analysis.sat4j.solver.SAT4JSolutionSolver;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
 /**
  * Generates all configurations for a given propositional formula.
  *
@@ -45,4 +51,91 @@ public class AllConfigurationGenerator extends AbstractConfigurationGenerator {
         }
         return solution;
     }
+
+    private static final class Frame {
+
+        private final int[] solution;
+        private final int assignmentSize;
+        private int variable;
+        private boolean flipped;
+
+        private Frame(int[] solution, int variable, int assignmentSize) {
+            this.solution = solution;
+            this.variable = variable;
+            this.assignmentSize = assignmentSize;
+        }
+    }
+
+    /**
+     * Passes every solution of the given solver to the consumer without keeping
+     * them in memory. In contrast to {@link #get()}, no blocking clauses are
+     * added, so the memory of the solver does not grow with the number of
+     * solutions.
+     * <br>
+     * Solutions are enumerated by backtracking on the assignment. Given a
+     * solution s, every other solution differs from s in a first variable v
+     * (in index order). Thus, the remaining solutions are partitioned by
+     * assuming s for all variables before v and the complement of s for v.
+     * Each part is searched depth-first in the same way. This needs one
+     * additional solver call per variable and solution, but only memory
+     * quadratic in the number of variables. The assignment of the solver is
+     * restored afterwards.
+     * <br>
+     * If the solver times out on a part, this part is skipped, so the
+     * enumeration may be incomplete.
+     *
+     * @param solver   the solver
+     * @param consumer the consumer of the solutions
+     * @return the number of solutions
+     */
+    public static long enumerate(SAT4JSolutionSolver solver, Consumer<SortedIntegerList> consumer) {
+        final SAT4JAssignment assignment = solver.getAssignment();
+        final int orgAssignmentSize = assignment.size();
+        final int variableCount = solver.getCnf().getVariableMap().getVariableCount();
+        final boolean[] fixed = new boolean[variableCount + 1];
+        for (int i = 0; i < orgAssignmentSize; i++) {
+            fixed[Math.abs(assignment.peek(i))] = true;
+        }
+
+        long count = 0;
+        final ArrayDeque<Frame> stack = new ArrayDeque<>();
+        try {
+            if (solver.hasSolution() == SATSolver.Result.TRUE) {
+                stack.push(new Frame(nextSolution(solver, consumer), 1, orgAssignmentSize));
+                count++;
+            }
+            while (!stack.isEmpty()) {
+                final Frame frame = stack.peek();
+                if (frame.flipped) {
+                    assignment.replaceLast(frame.solution[frame.variable - 1]);
+                    frame.flipped = false;
+                    frame.variable++;
+                }
+                while ((frame.variable <= variableCount) && fixed[frame.variable]) {
+                    frame.variable++;
+                }
+                if (frame.variable > variableCount) {
+                    assignment.clear(frame.assignmentSize);
+                    stack.pop();
+                    continue;
+                }
+                assignment.add(-frame.solution[frame.variable - 1]);
+                frame.flipped = true;
+                if (solver.hasSolution() == SATSolver.Result.TRUE) {
+                    stack.push(new Frame(nextSolution(solver, consumer), frame.variable + 1, assignment.size()));
+                    count++;
+                }
+            }
+        } finally {
+            assignment.clear(orgAssignmentSize);
+        }
+        return count;
+    }
+
+    private static int[] nextSolution(SAT4JSolutionSolver solver, Consumer<SortedIntegerList> consumer) {
+        final int[] internalSolution = solver.getInternalSolution();
+        final int[] solution = Arrays.copyOf(internalSolution, internalSolution.length);
+        consumer.accept(new SortedIntegerList(solution, SortedIntegerList.Order.INDEX, false));
+        return solution;
+    }
 }
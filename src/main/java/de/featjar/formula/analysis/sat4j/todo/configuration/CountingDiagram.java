@@ -0,0 +1,582 @@
+/*
+ * Copyright (C) 2022 Sebastian Krieter
+ *
+ * This file is part of formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.sat4j.todo.configuration;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compiled representation of a CNF that allows exact model counting and
+ * uniform sampling. The CNF is compiled once by an exhaustive DPLL search with
+ * unit propagation, decomposition into independent components, and a cache for
+ * components that were already compiled. The result is a decision-DNNF, in
+ * which every node is annotated with its number of models.
+ * <p>
+ * A uniform random solution is drawn by a top-down traversal that chooses each
+ * branch of a decision with a probability proportional to its model count.
+ * <p>
+ * Compilation and sampling use an explicit stack instead of recursion, as the
+ * depth of the diagram grows with the number of decisions.
+ *
+ * @author Sebastian Krieter
+ */
+class CountingDiagram {
+
+    /**
+     * Conjunction of fixed literals, unconstrained variables, and independent
+     * components.
+     */
+    private static final class AndNode {
+
+        private final int[] literals;
+        private final int[] freeVariables;
+        private final DecisionNode[] components;
+        private final BigInteger count;
+
+        private AndNode(int[] literals, int[] freeVariables, DecisionNode[] components) {
+            this.literals = literals;
+            this.freeVariables = freeVariables;
+            this.components = components;
+            BigInteger count = BigInteger.ONE.shiftLeft(freeVariables.length);
+            for (final DecisionNode component : components) {
+                count = count.multiply(component.count);
+            }
+            this.count = count;
+        }
+    }
+
+    /**
+     * Decision on a variable. A {@code null} branch is unsatisfiable.
+     */
+    private static final class DecisionNode {
+
+        private final AndNode positive;
+        private final AndNode negative;
+        private final BigInteger count;
+
+        private DecisionNode(AndNode positive, AndNode negative) {
+            this.positive = positive;
+            this.negative = negative;
+            count = (positive == null ? BigInteger.ZERO : positive.count)
+                    .add(negative == null ? BigInteger.ZERO : negative.count);
+        }
+    }
+
+    /**
+     * Normalized clauses of a component, used as key for the component cache.
+     */
+    private static final class ComponentKey {
+
+        private final int[] literals;
+        private final int hashCode;
+
+        private ComponentKey(List<int[]> clauses) {
+            clauses.sort(CLAUSE_COMPARATOR);
+            int size = 0;
+            for (final int[] clause : clauses) {
+                size += clause.length + 1;
+            }
+            literals = new int[size];
+            int index = 0;
+            for (final int[] clause : clauses) {
+                System.arraycopy(clause, 0, literals, index, clause.length);
+                index += clause.length + 1;
+            }
+            hashCode = Arrays.hashCode(literals);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return (obj instanceof ComponentKey) && Arrays.equals(literals, ((ComponentKey) obj).literals);
+        }
+    }
+
+    private static final Comparator<int[]> CLAUSE_COMPARATOR = (clause1, clause2) -> {
+        final int length = Math.min(clause1.length, clause2.length);
+        for (int i = 0; i < length; i++) {
+            final int diff = Integer.compare(clause1[i], clause2[i]);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return clause1.length - clause2.length;
+    };
+
+    private static final DecisionNode UNSATISFIABLE = new DecisionNode(null, null);
+
+    /**
+     * Pending computation of a node on the compilation stack.
+     */
+    private abstract static class Frame {
+
+        /**
+         * Continues the computation, possibly with the result of the child frame
+         * that was completed last.
+         *
+         * @return a child frame that must be completed first or {@code null} if
+         *         this frame is completed
+         */
+        abstract Frame next();
+    }
+
+    /**
+     * Compiles an {@link AndNode} by compiling each of its components.
+     */
+    private final class AndFrame extends Frame {
+
+        private final int[] variables;
+        private final List<Integer> fixedLiterals = new ArrayList<>();
+        private final List<int[]> residualClauses;
+        private final List<List<int[]>> componentClauses;
+        private final DecisionNode[] components;
+        private int componentIndex = 0;
+        private ComponentFrame pendingComponent;
+        private AndNode result;
+
+        private AndFrame(List<int[]> clauses, int[] variables, int[] decisionLiterals) {
+            this.variables = variables;
+            residualClauses = propagate(clauses, decisionLiterals, fixedLiterals);
+            if (residualClauses == null) {
+                componentClauses = null;
+                components = null;
+            } else {
+                componentClauses = split(residualClauses);
+                components = new DecisionNode[componentClauses.size()];
+            }
+        }
+
+        @Override
+        Frame next() {
+            if (componentClauses == null) {
+                return null;
+            }
+            if (pendingComponent != null) {
+                final DecisionNode component = pendingComponent.result;
+                pendingComponent = null;
+                if (component == UNSATISFIABLE) {
+                    return null;
+                }
+                components[componentIndex++] = component;
+            }
+            while (componentIndex < components.length) {
+                final List<int[]> clauses = componentClauses.get(componentIndex);
+                final ComponentKey key = new ComponentKey(clauses);
+                final DecisionNode cachedNode = cache.get(key);
+                if (cachedNode == null) {
+                    pendingComponent = new ComponentFrame(key, clauses);
+                    return pendingComponent;
+                } else if (cachedNode == UNSATISFIABLE) {
+                    return null;
+                }
+                components[componentIndex++] = cachedNode;
+            }
+            result = createAndNode(fixedLiterals, residualClauses, variables, components);
+            return null;
+        }
+    }
+
+    /**
+     * Compiles a {@link DecisionNode} for a component by compiling both branches
+     * of its most frequent variable.
+     */
+    private final class ComponentFrame extends Frame {
+
+        private final ComponentKey key;
+        private final List<int[]> clauses;
+        private final int[] variables;
+        private final int branchVariable;
+        private AndFrame positiveBranch, negativeBranch;
+        private DecisionNode result;
+
+        private ComponentFrame(ComponentKey key, List<int[]> clauses) {
+            this.key = key;
+            this.clauses = clauses;
+
+            int branchVariable = 0;
+            int maxOccurrences = 0;
+            final List<Integer> variableList = new ArrayList<>();
+            for (final int[] clause : clauses) {
+                for (final int literal : clause) {
+                    final int variable = Math.abs(literal);
+                    if (occurrences[variable]++ == 0) {
+                        variableList.add(variable);
+                    }
+                    if (occurrences[variable] > maxOccurrences) {
+                        maxOccurrences = occurrences[variable];
+                        branchVariable = variable;
+                    }
+                }
+            }
+            variables = new int[variableList.size()];
+            for (int i = 0; i < variables.length; i++) {
+                variables[i] = variableList.get(i);
+                occurrences[variables[i]] = 0;
+            }
+            this.branchVariable = branchVariable;
+        }
+
+        @Override
+        Frame next() {
+            if (positiveBranch == null) {
+                positiveBranch = new AndFrame(clauses, variables, new int[] {branchVariable});
+                return positiveBranch;
+            }
+            if (negativeBranch == null) {
+                negativeBranch = new AndFrame(clauses, variables, new int[] {-branchVariable});
+                return negativeBranch;
+            }
+            final AndNode positive = positiveBranch.result;
+            final AndNode negative = negativeBranch.result;
+            result = (positive == null && negative == null) ? UNSATISFIABLE : new DecisionNode(positive, negative);
+            cache.put(key, result);
+            return null;
+        }
+    }
+
+    private final int variableCount;
+    private final AndNode root;
+
+    private final HashMap<ComponentKey, DecisionNode> cache = new HashMap<>();
+    private final int[] values;
+    private final int[] componentIds;
+    private final int[] occurrences;
+
+    /**
+     * Compiles the given clauses.
+     *
+     * @param variableCount the number of variables
+     * @param clauses       the clauses, containing literals between
+     *                      {@code -variableCount} and {@code variableCount}
+     * @return the compiled diagram
+     */
+    public static CountingDiagram compile(int variableCount, List<int[]> clauses) {
+        return new CountingDiagram(variableCount, clauses);
+    }
+
+    private CountingDiagram(int variableCount, List<int[]> clauses) {
+        this.variableCount = variableCount;
+        values = new int[variableCount + 1];
+        componentIds = new int[variableCount + 1];
+        occurrences = new int[variableCount + 1];
+
+        final List<int[]> normalizedClauses = new ArrayList<>(clauses.size());
+        final List<Integer> units = new ArrayList<>();
+        boolean containsEmptyClause = false;
+        clauseLoop:
+        for (final int[] clause : clauses) {
+            if (clause.length == 0) {
+                containsEmptyClause = true;
+                break;
+            }
+            final int[] sortedClause = Arrays.stream(clause).distinct().sorted().toArray();
+            for (final int literal : sortedClause) {
+                if (Arrays.binarySearch(sortedClause, -literal) >= 0) {
+                    continue clauseLoop;
+                }
+            }
+            if (sortedClause.length == 1) {
+                units.add(sortedClause[0]);
+            }
+            normalizedClauses.add(sortedClause);
+        }
+        final int[] variables = new int[variableCount];
+        for (int i = 0; i < variableCount; i++) {
+            variables[i] = i + 1;
+        }
+        // an empty clause is unsatisfiable and cannot be assigned to a component
+        root = containsEmptyClause
+                ? null
+                : compile(normalizedClauses, variables, units.stream().mapToInt(Integer::intValue).toArray());
+        cache.clear();
+    }
+
+    private AndNode compile(List<int[]> clauses, int[] variables, int[] units) {
+        final ArrayDeque<Frame> stack = new ArrayDeque<>();
+        final AndFrame rootFrame = new AndFrame(clauses, variables, units);
+        stack.push(rootFrame);
+        while (!stack.isEmpty()) {
+            final Frame child = stack.peek().next();
+            if (child == null) {
+                stack.pop();
+            } else {
+                stack.push(child);
+            }
+        }
+        return rootFrame.result;
+    }
+
+    private AndNode createAndNode(
+            List<Integer> fixedLiterals, List<int[]> residualClauses, int[] variables, DecisionNode[] components) {
+        for (final int literal : fixedLiterals) {
+            values[Math.abs(literal)] = literal;
+        }
+        for (final int[] clause : residualClauses) {
+            for (final int literal : clause) {
+                values[Math.abs(literal)] = literal;
+            }
+        }
+        int freeCount = 0;
+        for (final int variable : variables) {
+            if (values[variable] == 0) {
+                freeCount++;
+            }
+        }
+        final int[] freeVariables = new int[freeCount];
+        freeCount = 0;
+        for (final int variable : variables) {
+            if (values[variable] == 0) {
+                freeVariables[freeCount++] = variable;
+            }
+            values[variable] = 0;
+        }
+        return new AndNode(
+                fixedLiterals.stream().mapToInt(Integer::intValue).toArray(), freeVariables, components);
+    }
+
+    /**
+     * Assigns the given literals and all literals implied by unit propagation.
+     *
+     * @param clauses       the clauses
+     * @param literals      the literals to assign
+     * @param fixedLiterals the list to which all assigned literals are added
+     * @return the remaining clauses without assigned literals or {@code null} if
+     *         a conflict occurred
+     */
+    private List<int[]> propagate(List<int[]> clauses, int[] literals, List<Integer> fixedLiterals) {
+        final HashMap<Integer, List<Integer>> occurrences = new HashMap<>();
+        for (int i = 0; i < clauses.size(); i++) {
+            for (final int literal : clauses.get(i)) {
+                occurrences.computeIfAbsent(literal, l -> new ArrayList<>()).add(i);
+            }
+        }
+        final boolean[] satisfied = new boolean[clauses.size()];
+        final ArrayList<Integer> queue = new ArrayList<>(literals.length);
+        for (final int literal : literals) {
+            queue.add(literal);
+        }
+        try {
+            for (int q = 0; q < queue.size(); q++) {
+                final int literal = queue.get(q);
+                final int variable = Math.abs(literal);
+                if (values[variable] == literal) {
+                    continue;
+                } else if (values[variable] == -literal) {
+                    return null;
+                }
+                values[variable] = literal;
+                fixedLiterals.add(literal);
+
+                for (final int clauseIndex : occurrences.getOrDefault(literal, Collections.emptyList())) {
+                    satisfied[clauseIndex] = true;
+                }
+                clauseLoop:
+                for (final int clauseIndex : occurrences.getOrDefault(-literal, Collections.emptyList())) {
+                    if (!satisfied[clauseIndex]) {
+                        int unassignedLiteral = 0;
+                        int unassignedCount = 0;
+                        for (final int clauseLiteral : clauses.get(clauseIndex)) {
+                            final int value = values[Math.abs(clauseLiteral)];
+                            if (value == clauseLiteral) {
+                                satisfied[clauseIndex] = true;
+                                continue clauseLoop;
+                            } else if (value == 0) {
+                                unassignedLiteral = clauseLiteral;
+                                unassignedCount++;
+                            }
+                        }
+                        if (unassignedCount == 0) {
+                            return null;
+                        } else if (unassignedCount == 1) {
+                            queue.add(unassignedLiteral);
+                        }
+                    }
+                }
+            }
+
+            if (fixedLiterals.isEmpty()) {
+                return clauses;
+            }
+            final List<int[]> residualClauses = new ArrayList<>(clauses.size());
+            for (int i = 0; i < clauses.size(); i++) {
+                if (!satisfied[i]) {
+                    final int[] clause = clauses.get(i);
+                    int unassignedCount = 0;
+                    for (final int literal : clause) {
+                        if (values[Math.abs(literal)] == 0) {
+                            unassignedCount++;
+                        }
+                    }
+                    if (unassignedCount == clause.length) {
+                        residualClauses.add(clause);
+                    } else {
+                        final int[] reducedClause = new int[unassignedCount];
+                        unassignedCount = 0;
+                        for (final int literal : clause) {
+                            if (values[Math.abs(literal)] == 0) {
+                                reducedClause[unassignedCount++] = literal;
+                            }
+                        }
+                        residualClauses.add(reducedClause);
+                    }
+                }
+            }
+            return residualClauses;
+        } finally {
+            for (final int literal : fixedLiterals) {
+                values[Math.abs(literal)] = 0;
+            }
+        }
+    }
+
+    /**
+     * Splits clauses into groups that do not share any variables.
+     *
+     * @param clauses the clauses
+     * @return the clauses of each component
+     */
+    private List<List<int[]>> split(List<int[]> clauses) {
+        final int[] parent = componentIds;
+        final List<Integer> variables = new ArrayList<>();
+        for (final int[] clause : clauses) {
+            for (final int literal : clause) {
+                final int variable = Math.abs(literal);
+                if (parent[variable] == 0) {
+                    parent[variable] = variable;
+                    variables.add(variable);
+                }
+            }
+            final int first = find(parent, Math.abs(clause[0]));
+            for (int i = 1; i < clause.length; i++) {
+                final int other = find(parent, Math.abs(clause[i]));
+                if (other != first) {
+                    parent[other] = first;
+                }
+            }
+        }
+        final HashMap<Integer, List<int[]>> components = new HashMap<>();
+        final List<List<int[]>> componentList = new ArrayList<>();
+        for (final int[] clause : clauses) {
+            final int id = find(parent, Math.abs(clause[0]));
+            List<int[]> component = components.get(id);
+            if (component == null) {
+                component = new ArrayList<>();
+                components.put(id, component);
+                componentList.add(component);
+            }
+            component.add(clause);
+        }
+        for (final int variable : variables) {
+            parent[variable] = 0;
+        }
+        return componentList;
+    }
+
+    private static int find(int[] parent, int variable) {
+        int root = variable;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+        while (parent[variable] != root) {
+            final int next = parent[variable];
+            parent[variable] = root;
+            variable = next;
+        }
+        return root;
+    }
+
+    /**
+     * @return the number of solutions
+     */
+    public BigInteger getSolutionCount() {
+        return root == null ? BigInteger.ZERO : root.count;
+    }
+
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * Draws a solution uniformly at random.
+     *
+     * @param random the random instance
+     * @return the solution with one literal per variable at index
+     *         {@code |literal| - 1} or {@code null}, if there is no solution
+     */
+    public int[] sample(Random random) {
+        if (root == null) {
+            return null;
+        }
+        final int[] solution = new int[variableCount];
+        final ArrayDeque<AndNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            final AndNode node = stack.pop();
+            for (final int literal : node.literals) {
+                solution[Math.abs(literal) - 1] = literal;
+            }
+            for (final int variable : node.freeVariables) {
+                solution[variable - 1] = random.nextBoolean() ? variable : -variable;
+            }
+            for (final DecisionNode component : node.components) {
+                if (component.positive == null) {
+                    stack.push(component.negative);
+                } else if (component.negative == null) {
+                    stack.push(component.positive);
+                } else {
+                    stack.push(
+                            nextBelow(component.count, random).compareTo(component.positive.count) < 0
+                                    ? component.positive
+                                    : component.negative);
+                }
+            }
+        }
+        return solution;
+    }
+
+    private static BigInteger nextBelow(BigInteger bound, Random random) {
+        final int bitLength = bound.bitLength();
+        if (bitLength < 63) {
+            final long longBound = bound.longValue();
+            long value;
+            do {
+                value = random.nextLong() >>> (64 - bitLength);
+            } while (value >= longBound);
+            return BigInteger.valueOf(value);
+        }
+        BigInteger value;
+        do {
+            value = new BigInteger(bitLength, random);
+        } while (value.compareTo(bound) >= 0);
+        return value;
+    }
+}
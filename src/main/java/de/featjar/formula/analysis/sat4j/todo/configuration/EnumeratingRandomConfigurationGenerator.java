@@ -23,38 +23,320 @@ package de.featjar.formula.analysis.sat4j.todo.configuration;
 import de.featjar.formula.analysis.bool.BooleanSolutionList;
 import de.featjar.base.task.Executor;
 import de.featjar.base.log.Log;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
 
 /**
- * Finds certain solutions of propositional formulas.
+ * Finds certain solutions of propositional formulas by enumerating all
+ * solutions and drawing from them at random.
  *
  * @author Sebastian Krieter
  */
 public class EnumeratingRandomConfigurationGenerator extends RandomConfigurationGenerator {
 
+    /**
+     * Determines where the enumerated solutions are kept.
+     */
+    public enum Mode {
+        /**
+         * Keeps all solutions in memory.
+         */
+        MEMORY,
+        /**
+         * Keeps only a uniform random sample of {@link #getLimit()} solutions in
+         * memory (reservoir sampling).
+         */
+        RESERVOIR,
+        /**
+         * Writes all solutions to a compact binary {@link SolutionFile} and reads
+         * them from there.
+         */
+        DISK
+    }
+
+    private Mode mode = Mode.MEMORY;
+    private Path sampleFile;
+
     private List<SortedIntegerList> allConfigurations;
+    private boolean drawnInAdvance;
+
+    private SolutionFile solutionFile;
+    private Path temporaryFile;
+    private IndexPermutation permutation;
+    private long nextIndex;
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public Path getSampleFile() {
+        return sampleFile;
+    }
+
+    /**
+     * Sets the file used in {@link Mode#DISK}. If no file is set, a temporary
+     * file is created. It is deleted once all solutions are drawn without
+     * duplicates or the generator is initialized again, and on exit otherwise.
+     *
+     * @param sampleFile the path of the sample file
+     */
+    public void setSampleFile(Path sampleFile) {
+        this.sampleFile = sampleFile;
+    }
 
     @Override
     protected void init(IMonitor monitor) {
-        final AllConfigurationGenerator gen = new AllConfigurationGenerator();
-        allConfigurations = Executor.apply(gen::execute, solver.getCnf(), monitor)
-                .map(BooleanSolutionList::getSolutions)
-                .orElse(Collections::emptyList, Log::problem);
-        if (!allowDuplicates) {
-            Collections.shuffle(allConfigurations, random);
+        super.init(monitor);
+        closeSolutionFile();
+        drawnInAdvance = false;
+        switch (mode) {
+            case MEMORY:
+                final AllConfigurationGenerator gen = new AllConfigurationGenerator();
+                allConfigurations = Executor.apply(gen::execute, solver.getCnf(), monitor)
+                        .map(BooleanSolutionList::getSolutions)
+                        .orElse(Collections::emptyList, Log::problem);
+                if (!allowDuplicates) {
+                    Collections.shuffle(allConfigurations, random);
+                }
+                break;
+            case RESERVOIR:
+                if (allowDuplicates && (getLimit() < Integer.MAX_VALUE)) {
+                    allConfigurations = sampleWithReplacement();
+                    drawnInAdvance = true;
+                } else {
+                    allConfigurations = sampleWithoutReplacement();
+                    Collections.shuffle(allConfigurations, random);
+                }
+                break;
+            case DISK:
+                allConfigurations = null;
+                try {
+                    spill();
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                break;
+            default:
+                throw new IllegalStateException(String.valueOf(mode));
+        }
+    }
+
+    private List<SortedIntegerList> sampleWithoutReplacement() {
+        final int k = getLimit();
+        final ArrayList<SortedIntegerList> reservoir = new ArrayList<>(Math.min(k, 1024));
+        final long[] seen = {0};
+        AllConfigurationGenerator.enumerate(solver, solution -> {
+            final long i = seen[0]++;
+            if (i < k) {
+                reservoir.add(solution);
+            } else {
+                final long j = nextLong(random, i + 1);
+                if (j < k) {
+                    reservoir.set((int) j, solution);
+                }
+            }
+        });
+        return reservoir;
+    }
+
+    private List<SortedIntegerList> sampleWithReplacement() {
+        // every slot is an independent reservoir of size one, whose next replacement is drawn in advance
+        final int k = getLimit();
+        final ArrayList<SortedIntegerList> reservoir = new ArrayList<>(k);
+        final long[] nextReplacement = new long[k];
+        final PriorityQueue<Integer> slots = new PriorityQueue<>(
+                Math.max(1, k), (a, b) -> Long.compare(nextReplacement[a], nextReplacement[b]));
+        final long[] seen = {0};
+        AllConfigurationGenerator.enumerate(solver, solution -> {
+            final long i = seen[0]++;
+            if (i == 0) {
+                for (int slot = 0; slot < nextReplacement.length; slot++) {
+                    reservoir.add(solution);
+                    nextReplacement[slot] = nextReplacement(1);
+                    slots.add(slot);
+                }
+            } else {
+                while (!slots.isEmpty() && (nextReplacement[slots.peek()] == i)) {
+                    final int slot = slots.poll();
+                    reservoir.set(slot, solution);
+                    nextReplacement[slot] = nextReplacement(i + 1);
+                    slots.add(slot);
+                }
+            }
+        });
+        return reservoir;
+    }
+
+    /**
+     * Draws the index of the next solution that replaces a reservoir of size one,
+     * given that {@code seen} solutions have been enumerated. The probability of
+     * keeping the current solution until index {@code m} is {@code seen / (m + 1)}.
+     */
+    private long nextReplacement(long seen) {
+        final double u = 1.0 - random.nextDouble();
+        final double next = Math.floor(seen / u);
+        return next >= Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(seen, (long) next);
+    }
+
+    private void spill() throws IOException {
+        Path path = sampleFile;
+        if (path == null) {
+            path = Files.createTempFile("solutions", ".bin");
+            // fallback if the generator is not drawn to the end
+            path.toFile().deleteOnExit();
+            temporaryFile = path;
+        }
+        try {
+            try (SolutionFile.Writer writer =
+                    new SolutionFile.Writer(path, solver.getCnf().getVariableMap().getVariableCount())) {
+                AllConfigurationGenerator.enumerate(solver, solution -> {
+                    try {
+                        writer.write(solution.getIntegers());
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            solutionFile = new SolutionFile(path);
+        } catch (final IOException | RuntimeException e) {
+            deleteTemporaryFile();
+            throw e;
+        }
+        permutation = new IndexPermutation(solutionFile.getCount(), random);
+        nextIndex = 0;
+    }
+
+    private void closeSolutionFile() {
+        if (solutionFile != null) {
+            try {
+                solutionFile.close();
+            } catch (final IOException e) {
+                Log.problem(e);
+            }
+            solutionFile = null;
+        }
+        deleteTemporaryFile();
+    }
+
+    private void deleteTemporaryFile() {
+        if (temporaryFile != null) {
+            try {
+                Files.deleteIfExists(temporaryFile);
+            } catch (final IOException e) {
+                Log.problem(e);
+            }
+            temporaryFile = null;
         }
     }
 
     @Override
     public SortedIntegerList get() {
+        if (mode == Mode.DISK) {
+            return getFromFile();
+        }
         if (allConfigurations.isEmpty()) {
             return null;
         }
-        if (allowDuplicates) {
+        if (allowDuplicates && !drawnInAdvance) {
             return allConfigurations.get(random.nextInt(allConfigurations.size()));
         } else {
-            return allConfigurations.remove(allConfigurations.size());
+            return allConfigurations.remove(allConfigurations.size() - 1);
+        }
+    }
+
+    private SortedIntegerList getFromFile() {
+        if (solutionFile == null) {
+            return null;
+        }
+        final long count = solutionFile.getCount();
+        final long index;
+        if (allowDuplicates) {
+            if (count == 0) {
+                return null;
+            }
+            index = nextLong(random, count);
+        } else {
+            if (nextIndex >= count) {
+                closeSolutionFile();
+                return null;
+            }
+            index = permutation.get(nextIndex++);
+        }
+        try {
+            return new SortedIntegerList(solutionFile.read(index), SortedIntegerList.Order.INDEX, false);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long nextLong(Random random, long bound) {
+        final long mask = Long.highestOneBit(bound) == bound ? bound - 1 : (Long.highestOneBit(bound) << 1) - 1;
+        long value;
+        do {
+            value = random.nextLong() & mask;
+        } while (value >= bound);
+        return value;
+    }
+
+    /**
+     * Random permutation of the indices {@code 0..size-1} that is computed on
+     * demand and needs constant memory. A balanced Feistel network permutes the
+     * smallest domain of an even power of two that contains all indices, and
+     * values outside the range are mapped again until they fall into it.
+     */
+    private static final class IndexPermutation {
+
+        private static final int ROUNDS = 4;
+
+        private final long size;
+        private final int halfBits;
+        private final long halfMask;
+        private final long[] keys = new long[ROUNDS];
+
+        IndexPermutation(long size, Random random) {
+            this.size = size;
+            final int bits = Math.max(2, 64 - Long.numberOfLeadingZeros(Math.max(1, size - 1)));
+            halfBits = (bits + 1) >>> 1;
+            halfMask = (1L << halfBits) - 1;
+            for (int i = 0; i < ROUNDS; i++) {
+                keys[i] = random.nextLong();
+            }
+        }
+
+        long get(long index) {
+            long value = index;
+            do {
+                value = encrypt(value);
+            } while (value >= size);
+            return value;
+        }
+
+        private long encrypt(long value) {
+            long left = value >>> halfBits;
+            long right = value & halfMask;
+            for (final long key : keys) {
+                final long next = left ^ (mix(right ^ key) & halfMask);
+                left = right;
+                right = next;
+            }
+            return (left << halfBits) | right;
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return z ^ (z >>> 31);
         }
     }
 }
@@ -21,11 +21,13 @@
 package de.featjar.formula.analysis.sat4j.todo.configuration;
 
 import de.featjar.formula.analysis.todo.mig.solver.ModalImplicationGraph;
-import de.featjar.formula.analysis.todo.mig.solver.MIGDistribution;
 import de.featjar.formula.analysis.todo.mig.solver.RegularMIGBuilder;
+import de.featjar.formula.analysis.todo.mig.solver.Vertex;
 import de.featjar.formula.analysis.sat4j.solver.ISelectionStrategy;
+import de.featjar.formula.analysis.sat4j.solver.MIGDistribution;
 import de.featjar.base.task.Executor;
 import de.featjar.base.log.Log;
+import java.util.List;
 
 /**
  * Finds certain solutions of propositional formulas.
@@ -45,11 +47,32 @@ public class MIGRandomConfigurationGenerator extends RandomConfigurationGenerato
             return;
         }
 
-        dist = new MIGDistribution(modalImplicationGraph);
+        dist = createDistribution(modalImplicationGraph);
         dist.setRandom(random);
         solver.setSelectionStrategy(ISelectionStrategy.mig(dist));
     }
 
+    private static MIGDistribution createDistribution(ModalImplicationGraph modalImplicationGraph) {
+        final List<Vertex> vertices = modalImplicationGraph.getVertices();
+        final int[][] strongEdges = new int[vertices.size()][];
+        final int[][][] complexClauses = new int[vertices.size()][][];
+        for (final Vertex vertex : vertices) {
+            if (vertex.isNormal()) {
+                final int index = ModalImplicationGraph.getVertexIndex(vertex);
+                final List<Vertex> strong = vertex.getStrongEdges();
+                strongEdges[index] = new int[strong.size()];
+                for (int i = 0; i < strongEdges[index].length; i++) {
+                    strongEdges[index][i] = strong.get(i).getVar();
+                }
+                complexClauses[index] = new int[vertex.getComplexClauses().size()][];
+                for (int i = 0; i < complexClauses[index].length; i++) {
+                    complexClauses[index][i] = vertex.getComplexClauses().get(i).getIntegers();
+                }
+            }
+        }
+        return new MIGDistribution(strongEdges, complexClauses);
+    }
+
     @Override
     protected void reset() {
         dist.reset();
@@ -20,7 +20,18 @@
  */
 package de.featjar.formula.analysis.sat4j.todo.configuration;
 
+import de.featjar.base.computation.Cache;
+import de.featjar.base.computation.Progress;
 import de.featjar.formula.analysis.sat4j.solver.ISelectionStrategy;
+import de.featjar.formula.analysis.sat4j.solver.SAT4JSolutionSolver;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.sat4j.core.VecInt;
 
 /**
@@ -44,6 +55,10 @@ public class OneWiseConfigurationGenerator extends AbstractConfigurationGenerato
 
     private int initialAssignmentLength;
 
+    private int threadCount = 1;
+    private SAT4JSolutionSolver[] workerSolvers;
+    private ArrayDeque<SortedIntegerList> parallelSample;
+
     public OneWiseConfigurationGenerator() {
         this(null);
     }
@@ -68,6 +83,33 @@ public class OneWiseConfigurationGenerator extends AbstractConfigurationGenerato
         this.coverStrategy = coverStrategy;
     }
 
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Sets the number of worker threads. With more than one thread, the
+     * variables to cover are partitioned among the workers, each with its own
+     * solver. Afterwards, redundant configurations are removed by a greedy merge.
+     *
+     * @param threadCount the number of worker threads
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    @Override
+    public void init(Cache c, Progress progress) {
+        workerSolvers = null;
+        if (threadCount > 1) {
+            workerSolvers = new SAT4JSolutionSolver[threadCount];
+            for (int i = 0; i < threadCount; i++) {
+                workerSolvers[i] = createPreparedSolver(c);
+            }
+        }
+        super.init(c, progress);
+    }
+
     @Override
     protected void init(IMonitor monitor) {
         initialAssignmentLength = solver.getAssumptions().size();
@@ -95,10 +137,189 @@ public class OneWiseConfigurationGenerator extends AbstractConfigurationGenerato
                 }
             }
         }
+
+        parallelSample = null;
+        if ((workerSolvers != null) && (variablesToCover != null)) {
+            parallelSample = new ArrayDeque<>();
+            for (final int[] solution : coverParallel()) {
+                parallelSample.add(new SortedIntegerList(solution, SortedIntegerList.Order.INDEX, false));
+            }
+        }
+    }
+
+    private int getLiteral(int var) {
+        switch (coverStrategy) {
+            case NEGATIVE:
+                return -var;
+            case POSITIVE:
+                return var;
+            default:
+                throw new RuntimeException("Unknown " + CoverStrategy.class.getName() + ": " + coverStrategy);
+        }
+    }
+
+    private List<int[]> coverParallel() {
+        final int[] allVariables = Arrays.copyOf(variablesToCover.toArray(), variablesToCover.size());
+        final int partitionSize = (allVariables.length + threadCount - 1) / threadCount;
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            final List<Future<List<int[]>>> futures = new ArrayList<>(threadCount);
+            for (int i = 0; i < threadCount; i++) {
+                final SAT4JSolutionSolver workerSolver = workerSolvers[i];
+                final int[] partition = Arrays.copyOfRange(
+                        allVariables,
+                        Math.min(allVariables.length, i * partitionSize),
+                        Math.min(allVariables.length, (i + 1) * partitionSize));
+                futures.add(executor.submit(() -> coverPartition(workerSolver, partition)));
+            }
+            final List<int[]> solutions = new ArrayList<>();
+            for (final Future<List<int[]>> future : futures) {
+                solutions.addAll(future.get());
+            }
+            return merge(solutions, allVariables);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates configurations until each variable of the given partition is
+     * covered or cannot be covered. Each configuration is extended greedily by
+     * all variables that are compatible with the ones selected before.
+     *
+     * @param workerSolver the solver of the worker
+     * @param partition    the variables to cover
+     * @return the configurations
+     */
+    private List<int[]> coverPartition(SAT4JSolutionSolver workerSolver, int[] partition) {
+        switch (coverStrategy) {
+            case NEGATIVE:
+                workerSolver.setSelectionStrategy(ISelectionStrategy.negative());
+                break;
+            case POSITIVE:
+                workerSolver.setSelectionStrategy(ISelectionStrategy.positive());
+                break;
+            default:
+                throw new RuntimeException("Unknown " + CoverStrategy.class.getName() + ": " + coverStrategy);
+        }
+        final List<int[]> solutions = new ArrayList<>();
+        final boolean[] done = new boolean[partition.length];
+        final int orgAssignmentLength = workerSolver.getAssumptions().size();
+        int remaining = partition.length;
+        while (remaining > 0) {
+            int[] lastSolution = null;
+            for (int i = 0; i < partition.length; i++) {
+                if (done[i]) {
+                    continue;
+                }
+                monitor.checkCancel();
+                final int literal = getLiteral(partition[i]);
+                if ((lastSolution != null) && (lastSolution[Math.abs(literal) - 1] == literal)) {
+                    // the current model already satisfies all assumptions and this literal
+                    workerSolver.getAssumptions().push(literal);
+                    done[i] = true;
+                    remaining--;
+                    continue;
+                }
+                workerSolver.getAssumptions().push(literal);
+                switch (workerSolver.hasSolution()) {
+                    case TRUE:
+                        final int[] solution = workerSolver.getInternalSolution();
+                        lastSolution = Arrays.copyOf(solution, solution.length);
+                        done[i] = true;
+                        remaining--;
+                        break;
+                    case FALSE:
+                        workerSolver.getAssumptions().pop();
+                        if (lastSolution == null) {
+                            done[i] = true;
+                            remaining--;
+                        }
+                        break;
+                    case TIMEOUT:
+                        workerSolver.getAssumptions().pop();
+                        done[i] = true;
+                        remaining--;
+                        break;
+                    default:
+                        throw new RuntimeException();
+                }
+            }
+            workerSolver.getAssumptions().clear(orgAssignmentLength);
+            if (lastSolution != null) {
+                solutions.add(lastSolution);
+            }
+        }
+        return solutions;
+    }
+
+    /**
+     * Greedily selects configurations that cover the most variables not yet
+     * covered by previously selected configurations. Configurations that do not
+     * cover any additional variable are removed.
+     *
+     * @param solutions    all configurations of the workers
+     * @param allVariables the variables to cover
+     * @return the selected configurations in order of selection
+     */
+    private List<int[]> merge(List<int[]> solutions, int[] allVariables) {
+        final int wordCount = (allVariables.length + 63) >>> 6;
+        final long[][] coverage = new long[solutions.size()][wordCount];
+        final long[] uncovered = new long[wordCount];
+        for (int i = 0; i < solutions.size(); i++) {
+            final int[] solution = solutions.get(i);
+            for (int j = 0; j < allVariables.length; j++) {
+                final int literal = getLiteral(allVariables[j]);
+                if (solution[Math.abs(literal) - 1] == literal) {
+                    coverage[i][j >>> 6] |= 1L << j;
+                }
+            }
+            for (int w = 0; w < wordCount; w++) {
+                uncovered[w] |= coverage[i][w];
+            }
+        }
+
+        final List<int[]> selected = new ArrayList<>();
+        final boolean[] used = new boolean[solutions.size()];
+        while (true) {
+            int bestIndex = -1;
+            int bestCount = 0;
+            for (int i = 0; i < coverage.length; i++) {
+                if (!used[i]) {
+                    int count = 0;
+                    for (int w = 0; w < wordCount; w++) {
+                        count += Long.bitCount(coverage[i][w] & uncovered[w]);
+                    }
+                    if (count > bestCount) {
+                        bestCount = count;
+                        bestIndex = i;
+                    }
+                }
+            }
+            if (bestIndex < 0) {
+                return selected;
+            }
+            used[bestIndex] = true;
+            selected.add(solutions.get(bestIndex));
+            for (int w = 0; w < wordCount; w++) {
+                uncovered[w] &= ~coverage[bestIndex][w];
+            }
+        }
     }
 
     @Override
     public SortedIntegerList get() {
+        if (parallelSample != null) {
+            return parallelSample.poll();
+        }
         if ((variablesToCover != null) && !variablesToCover.isEmpty()) {
             boolean firstVar = true;
             int[] lastSolution = null;
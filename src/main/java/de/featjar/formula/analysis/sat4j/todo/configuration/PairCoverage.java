@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2022 Sebastian Krieter
+ *
+ * This file is part of formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.sat4j.todo.configuration;
+
+import java.util.Arrays;
+
+/**
+ * Stores which literal pairs are covered. For each literal of a variable
+ * {@code a}, there is one bitset row with two columns for each variable
+ * {@code b < a} (one per literal). Thus, every pair of variables is stored only
+ * once (triangular layout), using one bit per literal combination.
+ * <p>
+ * A new configuration is added by a word-wise disjunction of its literals with
+ * the rows of its selected literals. Per-variable statistics are updated only
+ * for newly covered pairs.
+ *
+ * @author Sebastian Krieter
+ */
+class PairCoverage {
+
+    private final int variableCount;
+    private final long[][] rows;
+    private final long[] modelMask;
+
+    private final int[] coveredCounts;
+    private final int[] selectionCounts;
+    private long coveredCount = 0;
+
+    public PairCoverage(int variableCount) {
+        this.variableCount = variableCount;
+        rows = new long[variableCount << 1][];
+        for (int a = 0; a < variableCount; a++) {
+            final int wordCount = ((a << 1) + 63) >>> 6;
+            rows[a << 1] = new long[wordCount];
+            rows[(a << 1) + 1] = new long[wordCount];
+        }
+        modelMask = new long[((variableCount << 1) + 63) >>> 6];
+        coveredCounts = new int[variableCount];
+        selectionCounts = new int[variableCount];
+    }
+
+    private static int getIndex(int literal) {
+        return ((Math.abs(literal) - 1) << 1) + (literal > 0 ? 1 : 0);
+    }
+
+    /**
+     * Marks all literal pairs of the given configuration as covered.
+     *
+     * @param model the configuration, containing the literal of each variable at
+     *              index {@code |literal| - 1}
+     */
+    public void add(int[] model) {
+        Arrays.fill(modelMask, 0);
+        for (final int literal : model) {
+            if (literal != 0) {
+                final int column = getIndex(literal);
+                modelMask[column >>> 6] |= 1L << column;
+            }
+        }
+        for (int a = 1; a < variableCount; a++) {
+            final int literal = model[a];
+            if (literal != 0) {
+                final int rowIndex = getIndex(literal);
+                final long[] row = rows[rowIndex];
+                final int lastWord = row.length - 1;
+                for (int word = 0; word < lastWord; word++) {
+                    final long newBits = modelMask[word] & ~row[word];
+                    if (newBits != 0) {
+                        row[word] |= newBits;
+                        count(rowIndex, word, newBits);
+                    }
+                }
+                final int columnCount = a << 1;
+                final long lastWordMask = (columnCount & 63) == 0 ? -1L : (1L << columnCount) - 1;
+                final long newBits = modelMask[lastWord] & lastWordMask & ~row[lastWord];
+                if (newBits != 0) {
+                    row[lastWord] |= newBits;
+                    count(rowIndex, lastWord, newBits);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks a single literal pair as covered, e.g., because it is invalid.
+     *
+     * @param literalA the first literal
+     * @param literalB the second literal of a different variable
+     */
+    public void cover(int literalA, int literalB) {
+        final int indexA = getIndex(literalA);
+        final int indexB = getIndex(literalB);
+        final int rowIndex = Math.max(indexA, indexB);
+        final int column = Math.min(indexA, indexB);
+        final long[] row = rows[rowIndex];
+        final long bit = 1L << column;
+        if ((row[column >>> 6] & bit) == 0) {
+            row[column >>> 6] |= bit;
+            count(rowIndex, column >>> 6, bit);
+        }
+    }
+
+    public boolean isCovered(int literalA, int literalB) {
+        final int indexA = getIndex(literalA);
+        final int indexB = getIndex(literalB);
+        final int column = Math.min(indexA, indexB);
+        return (rows[Math.max(indexA, indexB)][column >>> 6] & (1L << column)) != 0;
+    }
+
+    private void count(int rowIndex, int word, long newBits) {
+        final int bitCount = Long.bitCount(newBits);
+        final int a = rowIndex >>> 1;
+        coveredCounts[a] += bitCount;
+        selectionCounts[a] += (rowIndex & 1) != 0 ? bitCount : -bitCount;
+        coveredCount += bitCount;
+        while (newBits != 0) {
+            final int column = (word << 6) + Long.numberOfTrailingZeros(newBits);
+            final int b = column >>> 1;
+            coveredCounts[b]++;
+            selectionCounts[b] += (column & 1) != 0 ? 1 : -1;
+            newBits &= newBits - 1;
+        }
+    }
+
+    /**
+     * @return the number of covered literal pairs
+     */
+    public long getCoveredCount() {
+        return coveredCount;
+    }
+
+    /**
+     * @return the number of all literal pairs
+     */
+    public long getCombinationCount() {
+        return 2L * variableCount * (variableCount - 1);
+    }
+
+    /**
+     * @param variableIndex the index of a variable
+     * @return the number of covered literal pairs containing the variable
+     */
+    public int getCoveredCount(int variableIndex) {
+        return coveredCounts[variableIndex];
+    }
+
+    /**
+     * @param variableIndex the index of a variable
+     * @return the number of covered pairs with the positive literal of the
+     *         variable minus the number of covered pairs with its negative
+     *         literal
+     */
+    public int getSelectionCount(int variableIndex) {
+        return selectionCounts[variableIndex];
+    }
+}
@@ -89,141 +89,32 @@ public class PairWiseConfigurationGenerator extends AbstractConfigurationGenerat
     private static final byte BIT_11 = 1 << 3;
 
     private FeatureIndex[] featureIndexArray = new FeatureIndex[0];
-    private byte[] combinations = new byte[0];
-    private byte[] combinations2 = new byte[0];
-    private byte[] core = new byte[0];
+    private PairCoverage pairCoverage;
 
     private int mode;
-    private int combinationCount;
     private int numVariables;
     private int numberOfFixedFeatures;
 
     private boolean[] featuresUsedOrg;
     private Random random = new Random(0);
 
-    private void addCombinationsFromModel(int[] curModel) {
-        for (int i = 0; i < combinations2.length; i++) {
-            final int a = (i / numVariables);
-            final int b = (i % numVariables);
-            if (a == b) {
-                continue;
-            }
-
-            final byte bit1;
-            if (curModel[a] < 0) {
-                if (curModel[b] < 0) {
-                    bit1 = BIT_00;
-                } else {
-                    bit1 = BIT_01;
-                }
-            } else {
-                if (curModel[b] < 0) {
-                    bit1 = BIT_10;
-                } else {
-                    bit1 = BIT_11;
-                }
-            }
-            combinations2[i] |= (bit1);
+    private byte getCombination(int a, int b) {
+        final int literalA = a + 1;
+        final int literalB = b + 1;
+        byte combination = 0;
+        if (pairCoverage.isCovered(-literalA, -literalB)) {
+            combination |= BIT_00;
         }
-    }
-
-    private void addInvalidCombinations() {
-        combinationCount = combinations2.length << 2;
-        for (int i = 0; i < combinations.length; i++) {
-            final int a = (i / numVariables);
-            final int b = (i % numVariables);
-            if (a == b) {
-                combinationCount -= 4;
-                combinations2[i] = 0x00;
-                continue;
-            }
-            final byte coreA = core[a];
-            final byte coreB = core[b];
-            if (coreA != 0) {
-                if (coreB != 0) {
-                    if (coreA > 0) {
-                        if (coreB > 0) {
-                            combinations2[i] = (BIT_00 | BIT_01 | BIT_10);
-                        } else {
-                            combinations2[i] = (BIT_00 | BIT_01 | BIT_11);
-                        }
-                    } else {
-                        if (coreB > 0) {
-                            combinations2[i] = (BIT_00 | BIT_11 | BIT_10);
-                        } else {
-                            combinations2[i] = (BIT_10 | BIT_01 | BIT_11);
-                        }
-                    }
-                } else {
-                    if (coreA > 0) {
-                        combinations2[i] = (BIT_00 | BIT_01);
-                    } else {
-                        combinations2[i] = (BIT_10 | BIT_11);
-                    }
-                }
-            } else {
-                if (coreB != 0) {
-                    if (coreB > 0) {
-                        combinations2[i] = (BIT_00 | BIT_10);
-                    } else {
-                        combinations2[i] = (BIT_01 | BIT_11);
-                    }
-                } else {
-                    final byte b1 = (combinations[i]);
-
-                    byte b2 = 0;
-
-                    if ((b1 & BIT_00) != 0) {
-                        b2 |= BIT_01;
-                    } else if ((b1 & BIT_01) != 0) {
-                        b2 |= BIT_00;
-                    }
-                    if ((b1 & BIT_10) != 0) {
-                        b2 |= BIT_11;
-                    } else if ((b1 & BIT_11) != 0) {
-                        b2 |= BIT_10;
-                    }
-                    combinations2[i] = b2;
-                }
-            }
+        if (pairCoverage.isCovered(-literalA, literalB)) {
+            combination |= BIT_01;
         }
-    }
-
-    private void addRelation(final int mx0, final int my0) {
-        final int indexX = Math.abs(mx0) - 1;
-        final int indexY = Math.abs(my0) - 1;
-        final int combinationIndexXY = (indexX * numVariables) + indexY;
-        final int combinationIndexYX = (indexY * numVariables) + indexX;
-
-        if (mx0 > 0) {
-            if (my0 > 0) {
-                combinations[combinationIndexXY] |= BIT_11;
-                combinations[combinationIndexYX] |= BIT_00;
-            } else {
-                combinations[combinationIndexXY] |= BIT_10;
-                combinations[combinationIndexYX] |= BIT_10;
-            }
-        } else {
-            if (my0 > 0) {
-                combinations[combinationIndexXY] |= BIT_01;
-                combinations[combinationIndexYX] |= BIT_01;
-            } else {
-                combinations[combinationIndexXY] |= BIT_00;
-                combinations[combinationIndexYX] |= BIT_11;
-            }
+        if (pairCoverage.isCovered(literalA, -literalB)) {
+            combination |= BIT_10;
         }
-    }
-
-    private int count() {
-        int partCount = 0;
-        for (int i = 0; i < combinations2.length; i++) {
-            final int c = (combinations2[i]);
-            partCount += c & 1;
-            partCount += (c >> 1) & 1;
-            partCount += (c >> 2) & 1;
-            partCount += (c >> 3) & 1;
+        if (pairCoverage.isCovered(literalA, literalB)) {
+            combination |= BIT_11;
         }
-        return partCount;
+        return combination;
     }
 
     private void fix(final boolean[] featuresUsed, int a, int b) {
@@ -266,35 +157,13 @@ public class PairWiseConfigurationGenerator extends AbstractConfigurationGenerat
         if (solution == null) {
             return true;
         }
-        addCombinationsFromModel(solution.getIntegers());
-        final int totalCount = count();
+        pairCoverage.add(solution.getIntegers());
 
         for (int i = 0; i < featureIndexArray.length; i++) {
             final FeatureIndex featureIndex = featureIndexArray[i];
             final int a = featureIndex.getIndex();
-            int selected = 0;
-            int coveredCombinations = 0;
-            for (int j = a * numVariables, end = j + numVariables; j < end; j++) {
-                final byte c = (combinations2[j]);
-                if ((c & BIT_00) != 0) {
-                    selected--;
-                    coveredCombinations++;
-                }
-                if ((c & BIT_01) != 0) {
-                    selected--;
-                    coveredCombinations++;
-                }
-                if ((c & BIT_10) != 0) {
-                    selected++;
-                    coveredCombinations++;
-                }
-                if ((c & BIT_11) != 0) {
-                    selected++;
-                    coveredCombinations++;
-                }
-            }
-            featureIndex.setCoveredCombinations(coveredCombinations);
-            featureIndex.setSelected(selected);
+            featureIndex.setCoveredCombinations(pairCoverage.getCoveredCount(a));
+            featureIndex.setSelected(pairCoverage.getSelectionCount(a));
         }
 
         try {
@@ -303,7 +172,7 @@ public class PairWiseConfigurationGenerator extends AbstractConfigurationGenerat
             return true;
         }
 
-        if (combinationCount <= totalCount) {
+        if (pairCoverage.getCombinationCount() <= pairCoverage.getCoveredCount()) {
             return true;
         }
         return false;
@@ -379,17 +248,15 @@ public class PairWiseConfigurationGenerator extends AbstractConfigurationGenerat
         migBuilder.setDetectStrong(true);
         final ModalImplicationGraph modalImplicationGraph = Executor.apply(migBuilder, solver.getCnf()).get();
 
-        combinations = new byte[numVariables * numVariables];
-        combinations2 = new byte[numVariables * numVariables];
-        core = new byte[numVariables];
+        // pairs that cannot occur in any configuration are marked as covered
+        pairCoverage = new PairCoverage(numVariables);
         for (final Vertex vertex : modalImplicationGraph.getVertices()) {
             if (vertex.isCore()) {
-                core[Math.abs(vertex.getVar()) - 1] = (byte) (vertex.getVar() < 0 ? -1 : 1);
                 solver.getAssumptions().push(vertex.getVar());
             } else {
                 for (final Vertex strong : vertex.getStrongEdges()) {
                     if (strong.isNormal()) {
-                        addRelation(vertex.getVar(), strong.getVar());
+                        pairCoverage.cover(vertex.getVar(), -strong.getVar());
                     }
                 }
             }
@@ -398,7 +265,14 @@ public class PairWiseConfigurationGenerator extends AbstractConfigurationGenerat
         numberOfFixedFeatures = solver.getAssumptions().size();
         featuresUsedOrg = new boolean[numVariables];
         for (int i = 0; i < numberOfFixedFeatures; i++) {
-            featuresUsedOrg[Math.abs(solver.getAssumptions().peek(i)) - 1] = true;
+            final int coreLiteral = solver.getAssumptions().peek(i);
+            featuresUsedOrg[Math.abs(coreLiteral) - 1] = true;
+            for (int b = 1; b <= numVariables; b++) {
+                if (b != Math.abs(coreLiteral)) {
+                    pairCoverage.cover(-coreLiteral, b);
+                    pairCoverage.cover(-coreLiteral, -b);
+                }
+            }
         }
 
         featureIndexArray = new FeatureIndex[numVariables - numberOfFixedFeatures];
@@ -410,7 +284,6 @@ public class PairWiseConfigurationGenerator extends AbstractConfigurationGenerat
                 }
             }
         }
-        addInvalidCombinations();
     }
 
     @Override
@@ -443,8 +316,7 @@ public class PairWiseConfigurationGenerator extends AbstractConfigurationGenerat
                     for (int y = 0; y < x; y++) {
                         final FeatureIndex featureIndexB = featureIndexArray[y];
                         final int b = featureIndexB.getIndex();
-                        final int index = (a * numVariables) + b;
-                        final byte curCombo = (combinations2[index]);
+                        final byte curCombo = getCombination(a, b);
                         if ((curCombo == 15) || featuresUsed[b]) {
                             continue;
                         }
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2022 Sebastian Krieter
+ *
+ * This file is part of formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.sat4j.todo.configuration;
+
+import de.featjar.base.computation.Cache;
+import de.featjar.base.computation.Progress;
+import de.featjar.formula.analysis.sat4j.solver.ISelectionStrategy;
+import de.featjar.formula.analysis.sat4j.solver.SAT4JSolutionSolver;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Generates random configurations for a given propositional formula using
+ * multiple independent solvers in parallel. Each worker has its own solver and
+ * its own random stream split from the generator's random instance. Instead of
+ * blocking clauses, duplicates are removed using a concurrent set of solution
+ * fingerprints.
+ * <p>
+ * Configurations are generated in rounds in which each worker contributes a
+ * batch of solutions. The resulting sample only depends on the seed, the number
+ * of workers, and the batch size, but not on the scheduling of the workers.
+ *
+ * @author Sebastian Krieter
+ */
+public class ParallelRandomConfigurationGenerator extends RandomConfigurationGenerator {
+
+    public static final int DEFAULT_BATCH_SIZE = 64;
+    public static final int DEFAULT_MAX_STALLED_ROUNDS = 8;
+
+    /**
+     * Sign bits of a complete solution.
+     */
+    private static final class Fingerprint {
+
+        private final long[] bits;
+        private final int hashCode;
+
+        private Fingerprint(int[] literals) {
+            bits = new long[(literals.length + 63) >>> 6];
+            for (final int literal : literals) {
+                if (literal > 0) {
+                    final int index = literal - 1;
+                    bits[index >>> 6] |= 1L << index;
+                }
+            }
+            hashCode = Arrays.hashCode(bits);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return (obj instanceof Fingerprint) && Arrays.equals(bits, ((Fingerprint) obj).bits);
+        }
+    }
+
+    private static final class Candidate {
+
+        private final SortedIntegerList solution;
+        private final Fingerprint fingerprint;
+        private final long key;
+
+        private Candidate(SortedIntegerList solution, Fingerprint fingerprint, long key) {
+            this.solution = solution;
+            this.fingerprint = fingerprint;
+            this.key = key;
+        }
+    }
+
+    private int workerCount = Runtime.getRuntime().availableProcessors();
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int maxStalledRounds = DEFAULT_MAX_STALLED_ROUNDS;
+
+    private SAT4JSolutionSolver[] workerSolvers;
+    private Random[] workerRandoms;
+
+    /**
+     * Maps each fingerprint to the smallest key of a candidate with this
+     * fingerprint. Only this candidate is added to the sample.
+     */
+    private final ConcurrentHashMap<Fingerprint, Long> fingerprints = new ConcurrentHashMap<>();
+
+    private final ArrayDeque<SortedIntegerList> buffer = new ArrayDeque<>();
+    private long round;
+    private int stalledRounds;
+    private volatile boolean exhausted;
+
+    @Override
+    public void init(Cache c, Progress progress) {
+        super.init(c, progress);
+        final SplittableRandom seeds = new SplittableRandom(random.nextLong());
+        workerSolvers = new SAT4JSolutionSolver[workerCount];
+        workerRandoms = new Random[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workerRandoms[i] = new Random(seeds.split().nextLong());
+            if (i == 0) {
+                workerSolvers[i] = solver;
+            } else {
+                workerSolvers[i] = createPreparedSolver(c);
+            }
+            workerSolvers[i].setSelectionStrategy(ISelectionStrategy.random(workerRandoms[i]));
+        }
+    }
+
+    @Override
+    protected void init(IMonitor monitor) {
+        super.init(monitor);
+        fingerprints.clear();
+        buffer.clear();
+        round = 0;
+        stalledRounds = 0;
+        exhausted = false;
+    }
+
+    @Override
+    public SortedIntegerList get() {
+        while (buffer.isEmpty()) {
+            if (!satisfiable || (stalledRounds >= maxStalledRounds)) {
+                return null;
+            }
+            nextRound();
+        }
+        return buffer.poll();
+    }
+
+    private void nextRound() {
+        final long firstKey = round * workerCount * batchSize;
+        final List<List<Candidate>> batches = IntStream.range(0, workerCount)
+                .parallel()
+                .mapToObj(worker -> generateBatch(worker, firstKey + ((long) worker * batchSize)))
+                .collect(Collectors.toList());
+        round++;
+
+        int added = 0;
+        for (final List<Candidate> batch : batches) {
+            for (final Candidate candidate : batch) {
+                if (allowDuplicates || (fingerprints.get(candidate.fingerprint) == candidate.key)) {
+                    buffer.add(candidate.solution);
+                    added++;
+                }
+            }
+        }
+        if (exhausted) {
+            satisfiable = false;
+        }
+        stalledRounds = (added == 0) ? stalledRounds + 1 : 0;
+    }
+
+    private List<Candidate> generateBatch(int worker, long firstKey) {
+        final SAT4JSolutionSolver workerSolver = workerSolvers[worker];
+        final Random workerRandom = workerRandoms[worker];
+        final List<Candidate> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            workerSolver.shuffleOrder(workerRandom);
+            final SortedIntegerList solution = workerSolver.findSolution();
+            if (solution == null) {
+                exhausted = true;
+                break;
+            }
+            final long key = firstKey + i;
+            final Fingerprint fingerprint = allowDuplicates ? null : new Fingerprint(solution.getIntegers());
+            // a smaller key from another worker may still win until the end of the round
+            if ((fingerprint == null) || (fingerprints.merge(fingerprint, key, Math::min) == key)) {
+                batch.add(new Candidate(solution, fingerprint, key));
+            }
+        }
+        return batch;
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    /**
+     * Sets the number of independent solvers. The generated sample depends on
+     * this number.
+     *
+     * @param workerCount the number of workers
+     */
+    public void setWorkerCount(int workerCount) {
+        this.workerCount = Math.max(1, workerCount);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public int getMaxStalledRounds() {
+        return maxStalledRounds;
+    }
+
+    /**
+     * Sets the number of consecutive rounds without any new configuration after
+     * which the generator stops. Only relevant if duplicates are not allowed and
+     * the formula has fewer solutions than requested.
+     *
+     * @param maxStalledRounds the number of rounds
+     */
+    public void setMaxStalledRounds(int maxStalledRounds) {
+        this.maxStalledRounds = Math.max(1, maxStalledRounds);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2022 Sebastian Krieter
+ *
+ * This file is part of formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.sat4j.todo.configuration;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Compact binary file of complete solutions. Each solution is stored as one
+ * sign bit per variable. The header consists of a magic number, a version, the
+ * number of variables, and the number of solutions.
+ *
+ * @author Sebastian Krieter
+ */
+class SolutionFile implements AutoCloseable {
+
+    private static final int MAGIC = 0x464A534C;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final int COUNT_OFFSET = 12;
+
+    /**
+     * Appends solutions to a new solution file.
+     */
+    public static class Writer implements AutoCloseable {
+
+        private final Path path;
+        private final DataOutputStream out;
+        private final int variableCount;
+        private final byte[] record;
+        private long count = 0;
+
+        public Writer(Path path, int variableCount) throws IOException {
+            this.path = path;
+            this.variableCount = variableCount;
+            record = new byte[getRecordSize(variableCount)];
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(variableCount);
+            out.writeLong(0);
+        }
+
+        /**
+         * Appends a solution.
+         *
+         * @param solution the solution, containing the literal of each variable at
+         *                 index {@code |literal| - 1}
+         * @throws IOException if the file cannot be written
+         */
+        public void write(int[] solution) throws IOException {
+            Arrays.fill(record, (byte) 0);
+            for (int i = 0; i < variableCount; i++) {
+                if (solution[i] > 0) {
+                    record[i >>> 3] |= (byte) (1 << (i & 7));
+                }
+            }
+            out.write(record);
+            count++;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                final ByteBuffer buffer = ByteBuffer.allocate(8);
+                buffer.putLong(count).flip();
+                channel.write(buffer, COUNT_OFFSET);
+            }
+        }
+    }
+
+    private final FileChannel channel;
+    private final int variableCount;
+    private final long count;
+    private final ByteBuffer record;
+
+    /**
+     * Opens an existing solution file for reading.
+     *
+     * @param path the path of the file
+     * @throws IOException if the file cannot be read or has an unknown format
+     */
+    public SolutionFile(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                channel.close();
+                throw new IOException("Incomplete header in " + path);
+            }
+        }
+        header.flip();
+        if ((header.getInt() != MAGIC) || (header.getInt() != VERSION)) {
+            channel.close();
+            throw new IOException("Unknown format of " + path);
+        }
+        variableCount = header.getInt();
+        count = header.getLong();
+        record = ByteBuffer.allocate(getRecordSize(variableCount));
+    }
+
+    private static int getRecordSize(int variableCount) {
+        return (variableCount + 7) >>> 3;
+    }
+
+    /**
+     * Reads the solution at the given index.
+     *
+     * @param index the index of the solution
+     * @return the solution, containing the literal of each variable at index
+     *         {@code |literal| - 1}
+     * @throws IOException if the file cannot be read
+     */
+    public int[] read(long index) throws IOException {
+        record.clear();
+        final long position = HEADER_SIZE + (index * record.capacity());
+        while (record.hasRemaining()) {
+            if (channel.read(record, position + record.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+        final byte[] bytes = record.array();
+        final int[] solution = new int[variableCount];
+        for (int i = 0; i < variableCount; i++) {
+            solution[i] = ((bytes[i >>> 3] >>> (i & 7)) & 1) != 0 ? i + 1 : -(i + 1);
+        }
+        return solution;
+    }
+
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2022 Sebastian Krieter
+ *
+ * This file is part of formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.sat4j.todo.configuration;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Generates uniformly distributed random configurations for a given
+ * propositional formula. The formula is compiled once into a
+ * {@link CountingDiagram}, from which each configuration is drawn by a weighted
+ * top-down traversal. In contrast to {@link FastRandomConfigurationGenerator},
+ * every solution has exactly the same probability. The assumptions and
+ * constraints that are applied to the solver are compiled into the diagram as
+ * well, so all configurations satisfy them.
+ *
+ * @author Sebastian Krieter
+ */
+public class UniformRandomConfigurationGenerator extends RandomConfigurationGenerator {
+
+    private CountingDiagram diagram;
+    private CNF compiledCnf;
+    private List<int[]> compiledAssumptions;
+
+    private final HashSet<SortedIntegerList> drawnSolutions = new HashSet<>();
+
+    @Override
+    protected void init(IMonitor monitor) {
+        super.init(monitor);
+        final CNF cnf = solver.getCnf();
+        final List<int[]> assumptions = getSolverAssumptions();
+        if ((diagram == null) || (compiledCnf != cnf) || !equals(compiledAssumptions, assumptions)) {
+            final List<int[]> clauses = new ArrayList<>(cnf.getClauseList().size() + assumptions.size());
+            for (final SortedIntegerList clause : cnf.getClauseList()) {
+                clauses.add(clause.getIntegers());
+            }
+            clauses.addAll(assumptions);
+            diagram = CountingDiagram.compile(cnf.getVariableMap().getVariableCount(), clauses);
+            compiledCnf = cnf;
+            compiledAssumptions = assumptions;
+        }
+        drawnSolutions.clear();
+        satisfiable = diagram.getSolutionCount().signum() > 0;
+    }
+
+    /**
+     * Collects the assumed literals of the solver as unit clauses and the
+     * constraints that were pushed to the solver by {@link #prepareSolver}.
+     *
+     * @return the additional clauses
+     */
+    private List<int[]> getSolverAssumptions() {
+        final List<int[]> assumptions = new ArrayList<>();
+        for (int i = 0; i < solver.getAssumptions().size(); i++) {
+            assumptions.add(new int[] {solver.getAssumptions().get(i)});
+        }
+        for (final SortedIntegerList clause : getAssumedConstraints()) {
+            assumptions.add(clause.getIntegers());
+        }
+        return assumptions;
+    }
+
+    private static boolean equals(List<int[]> clauses1, List<int[]> clauses2) {
+        if ((clauses1 == null) || (clauses1.size() != clauses2.size())) {
+            return false;
+        }
+        for (int i = 0; i < clauses1.size(); i++) {
+            if (!Arrays.equals(clauses1.get(i), clauses2.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public SortedIntegerList get() {
+        if (!satisfiable) {
+            return null;
+        }
+        while (true) {
+            final SortedIntegerList solution =
+                    new SortedIntegerList(diagram.sample(random), SortedIntegerList.Order.INDEX, false);
+            if (allowDuplicates) {
+                return solution;
+            }
+            // rejecting drawn solutions keeps the distribution uniform over the remaining ones
+            if (drawnSolutions.add(solution)) {
+                if (BigInteger.valueOf(drawnSolutions.size()).equals(diagram.getSolutionCount())) {
+                    satisfiable = false;
+                }
+                return solution;
+            }
+        }
+    }
+
+    /**
+     * Returns the exact number of solutions of the formula. Only available after
+     * initialization.
+     *
+     * @return the number of solutions
+     */
+    public BigInteger getSolutionCount() {
+        return diagram == null ? null : diagram.getSolutionCount();
+    }
+}
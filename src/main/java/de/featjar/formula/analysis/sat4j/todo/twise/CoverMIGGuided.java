@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2022 Sebastian Krieter
+ *
+ * This file is part of formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.sat4j.todo.twise;
+
+import de.featjar.base.data.Pair;
+import de.featjar.formula.analysis.bool.ABooleanAssignmentList;
+import de.featjar.formula.analysis.todo.mig.solver.ModalImplicationGraph;
+import de.featjar.formula.analysis.todo.mig.solver.StrongClosure;
+import de.featjar.formula.analysis.todo.mig.solver.Vertex;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Covers a given {@link ABooleanAssignmentList expressions} within a list of
+ * {@link TWiseConfiguration solutions}. In contrast to {@link CoverAll},
+ * candidates are ranked by a conflict estimate derived from the
+ * {@link ModalImplicationGraph modal implication graph} before the solver is
+ * consulted. Candidates whose strong closure contradicts the partial
+ * configuration are dropped and the number of solver calls per combination is
+ * bounded.
+ *
+ * @author Sebastian Krieter
+ */
+class CoverMIGGuided implements ICoverStrategy {
+
+    public static final int DEFAULT_SAT_BUDGET = 8;
+
+    private static final int CONFLICT = -1;
+
+    private static final class ScoredCandidate implements Comparable<ScoredCandidate> {
+
+        private final Pair<SortedIntegerList, TWiseConfiguration> candidate;
+        private final int score;
+        private final int configurationSize;
+
+        private ScoredCandidate(Pair<SortedIntegerList, TWiseConfiguration> candidate, int score) {
+            this.candidate = candidate;
+            this.score = score;
+            configurationSize = candidate.getValue().countLiterals;
+        }
+
+        @Override
+        public int compareTo(ScoredCandidate other) {
+            final int diff = score - other.score;
+            if (diff != 0) {
+                return diff;
+            }
+            final int sizeDiff = other.configurationSize - configurationSize;
+            return sizeDiff != 0
+                    ? sizeDiff
+                    : other.candidate.getKey().size() - candidate.getKey().size();
+        }
+    }
+
+    private final TWiseConfigurationUtil util;
+    private final int satBudget;
+
+    private final List<Pair<SortedIntegerList, TWiseConfiguration>> candidatesList = new ArrayList<>();
+    private final List<ScoredCandidate> scoredCandidates = new ArrayList<>();
+
+    private int[][] closureLiterals;
+    /**
+     * Literals of the complex clauses of each vertex, by vertex index.
+     */
+    private int[][][] complexClauses;
+
+    private long solverCallCount = 0;
+    private long coveredCount = 0;
+    private long alreadyCoveredCount = 0;
+    private long prunedCount = 0;
+
+    public CoverMIGGuided(TWiseConfigurationUtil util) {
+        this(util, DEFAULT_SAT_BUDGET);
+    }
+
+    public CoverMIGGuided(TWiseConfigurationUtil util, int satBudget) {
+        this.util = util;
+        this.satBudget = Math.max(0, satBudget);
+        if (util.hasMig()) {
+            final List<Vertex> vertices = util.getMig().getVertices();
+            complexClauses = new int[vertices.size()][][];
+            for (final Vertex vertex : vertices) {
+                final List<SortedIntegerList> clauses = vertex.getComplexClauses();
+                final int[][] clauseLiterals = new int[clauses.size()][];
+                for (int i = 0; i < clauseLiterals.length; i++) {
+                    clauseLiterals[i] = clauses.get(i).getIntegers();
+                }
+                complexClauses[ModalImplicationGraph.getVertexIndex(vertex)] = clauseLiterals;
+            }
+            closureLiterals = new int[vertices.size()][];
+        }
+    }
+
+    @Override
+    public CombinationStatus cover(ABooleanAssignmentList nextCondition) {
+        if (util.isCovered(nextCondition)) {
+            alreadyCoveredCount++;
+            return CombinationStatus.COVERED;
+        }
+
+        final long solverCallsBefore = util.getSolverCallCount();
+        try {
+            util.initCandidatesList(nextCondition, candidatesList);
+
+            if (util.hasSolver) {
+                if (util.coverSol(candidatesList)) {
+                    coveredCount++;
+                    return CombinationStatus.COVERED;
+                }
+
+                if (util.removeInvalidClauses(nextCondition, candidatesList)) {
+                    return CombinationStatus.INVALID;
+                }
+
+                scoreCandidates();
+                final int attempts = Math.min(satBudget, scoredCandidates.size());
+                for (int i = 0; i < attempts; i++) {
+                    if (util.coverSat(scoredCandidates.get(i).candidate)) {
+                        scoredCandidates.clear();
+                        coveredCount++;
+                        return CombinationStatus.COVERED;
+                    }
+                }
+                scoredCandidates.clear();
+            } else {
+                if (util.coverNoSat(candidatesList)) {
+                    coveredCount++;
+                    return CombinationStatus.COVERED;
+                }
+            }
+
+            util.newConfiguration(nextCondition.get(0));
+            coveredCount++;
+            return CombinationStatus.COVERED;
+        } finally {
+            solverCallCount += util.getSolverCallCount() - solverCallsBefore;
+        }
+    }
+
+    private void scoreCandidates() {
+        scoredCandidates.clear();
+        for (final Pair<SortedIntegerList, TWiseConfiguration> candidate : candidatesList) {
+            final int score = score(candidate.getKey(), candidate.getValue());
+            if (score == CONFLICT) {
+                prunedCount++;
+            } else {
+                scoredCandidates.add(new ScoredCandidate(candidate, score));
+            }
+        }
+        scoredCandidates.sort(null);
+    }
+
+    /**
+     * Estimates how likely the given literals conflict with the given partial
+     * configuration. For each literal that is not yet part of the configuration,
+     * all literals in its strong closure are considered. If one of them
+     * contradicts the configuration, the candidate cannot be selected. Otherwise,
+     * each implied literal that is still open in the configuration contributes
+     * itself and the number of its complex clauses that are not yet satisfied
+     * by the configuration.
+     *
+     * @param literals      the literals to add
+     * @param configuration the partial configuration
+     * @return the conflict estimate (lower is better) or {@link #CONFLICT}
+     */
+    private int score(SortedIntegerList literals, TWiseConfiguration configuration) {
+        if (closureLiterals == null) {
+            return 0;
+        }
+        final int[] configurationLiterals = configuration.getIntegers();
+        int score = 0;
+        for (final int literal : literals.getIntegers()) {
+            final int value = configurationLiterals[Math.abs(literal) - 1];
+            if (value == literal) {
+                continue;
+            } else if (value == -literal) {
+                return CONFLICT;
+            }
+            score += 1 + countOpenComplexClauses(literal, configurationLiterals);
+            for (final int impliedLiteral : getClosureLiterals(literal)) {
+                final int impliedValue = configurationLiterals[Math.abs(impliedLiteral) - 1];
+                if (impliedValue == 0) {
+                    score += 1 + countOpenComplexClauses(impliedLiteral, configurationLiterals);
+                } else if (impliedValue != impliedLiteral) {
+                    return CONFLICT;
+                }
+            }
+        }
+        return score;
+    }
+
+    private int countOpenComplexClauses(int literal, int[] configurationLiterals) {
+        int count = 0;
+        clauseLoop:
+        for (final int[] clause : complexClauses[ModalImplicationGraph.getVertexIndex(literal)]) {
+            for (final int clauseLiteral : clause) {
+                if (configurationLiterals[Math.abs(clauseLiteral) - 1] == clauseLiteral) {
+                    continue clauseLoop;
+                }
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private int[] getClosureLiterals(int literal) {
+        final int vertexIndex = ModalImplicationGraph.getVertexIndex(literal);
+        int[] closure = closureLiterals[vertexIndex];
+        if (closure == null) {
+            final StrongClosure strongClosure = util.getStrongClosure();
+            if (strongClosure != null) {
+                closure = strongClosure.getClosureLiterals(literal);
+            } else {
+                final List<Vertex> strongEdges = util.getMig().getVertex(literal).getStrongEdges();
+                closure = new int[strongEdges.size()];
+                for (int i = 0; i < closure.length; i++) {
+                    closure[i] = strongEdges.get(i).getVar();
+                }
+            }
+            closureLiterals[vertexIndex] = closure;
+        }
+        return closure;
+    }
+
+    /**
+     * Returns the number of solver calls made by this strategy, including calls
+     * to check the validity of combinations and to propagate, complete, or
+     * create configurations.
+     *
+     * @return the number of solver calls
+     */
+    public long getSolverCallCount() {
+        return solverCallCount;
+    }
+
+    /**
+     * Returns the number of combinations covered by this strategy. Combinations
+     * that were already covered by the sample are not included.
+     *
+     * @return the number of covered combinations
+     * @see #getAlreadyCoveredCount()
+     */
+    public long getCoveredCount() {
+        return coveredCount;
+    }
+
+    /**
+     * Returns the number of combinations that were already covered by the
+     * sample, which required no solver call.
+     *
+     * @return the number of already covered combinations
+     */
+    public long getAlreadyCoveredCount() {
+        return alreadyCoveredCount;
+    }
+
+    /**
+     * Returns the number of candidates that were discarded due to a conflict in
+     * the strong closure without calling the solver.
+     *
+     * @return the number of pruned candidates
+     */
+    public long getPrunedCount() {
+        return prunedCount;
+    }
+
+    /**
+     * Returns the average number of solver calls per combination covered by this
+     * strategy. Combinations that were already covered are not included.
+     *
+     * @return the number of solver calls per covered combination
+     */
+    public double getSolverCallsPerCoveredCombination() {
+        return coveredCount == 0 ? 0 : (double) solverCallCount / coveredCount;
+    }
+}
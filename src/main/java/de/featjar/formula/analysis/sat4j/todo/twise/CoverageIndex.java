@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2022 Sebastian Krieter
+ *
+ * This file is part of formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.sat4j.todo.twise;
+
+import de.featjar.base.data.Pair;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index over the literals of all {@link TWiseConfiguration configurations} of a
+ * sample. For each literal, it stores a bitset over the ids of the
+ * configurations that contain it. Thus, checking whether a literal set is
+ * covered by any configuration requires only an AND of the literals' bitsets.
+ * Two additional bitsets mark registered and incomplete configurations.
+ * <br>
+ * Modifications are synchronized. Readers work on a snapshot of the bitsets
+ * and may see outdated values, which callers must tolerate.
+ *
+ * @author Sebastian Krieter
+ */
+class CoverageIndex {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int registeredRow;
+    private final int incompleteRow;
+
+    private volatile long[][] bits;
+    private volatile TWiseConfiguration[] configurations;
+    private int size = 0;
+
+    public CoverageIndex(int numberOfVariables) {
+        registeredRow = numberOfVariables << 1;
+        incompleteRow = registeredRow + 1;
+        bits = new long[incompleteRow + 1][INITIAL_CAPACITY >>> 6];
+        configurations = new TWiseConfiguration[INITIAL_CAPACITY];
+    }
+
+    private static int getRow(int literal) {
+        return literal < 0 ? (-(literal + 1)) << 1 : ((literal - 1) << 1) + 1;
+    }
+
+    /**
+     * Registers a configuration and all of its current literals.
+     *
+     * @param configuration the configuration
+     * @param complete whether the configuration is complete
+     * @return the id of the configuration in this index
+     */
+    public synchronized int add(TWiseConfiguration configuration, boolean complete) {
+        final int id = size++;
+        if (id >= configurations.length) {
+            grow();
+        }
+        configurations[id] = configuration;
+        final long[][] bits = this.bits;
+        final int word = id >>> 6;
+        final long mask = 1L << id;
+        for (final int literal : configuration.getIntegers()) {
+            if (literal != 0) {
+                bits[getRow(literal)][word] |= mask;
+            }
+        }
+        if (!complete) {
+            bits[incompleteRow][word] |= mask;
+        }
+        bits[registeredRow][word] |= mask;
+        return id;
+    }
+
+    private void grow() {
+        final int capacity = configurations.length << 1;
+        final long[][] oldBits = bits;
+        final long[][] newBits = new long[oldBits.length][];
+        for (int i = 0; i < oldBits.length; i++) {
+            newBits[i] = Arrays.copyOf(oldBits[i], capacity >>> 6);
+        }
+        configurations = Arrays.copyOf(configurations, capacity);
+        bits = newBits;
+    }
+
+    public synchronized void set(int id, int literal) {
+        bits[getRow(literal)][id >>> 6] |= 1L << id;
+    }
+
+    public synchronized void unset(int id, int literal) {
+        bits[getRow(literal)][id >>> 6] &= ~(1L << id);
+    }
+
+    public synchronized void setAll(int id, int[] literals) {
+        final long[][] bits = this.bits;
+        final int word = id >>> 6;
+        final long mask = 1L << id;
+        for (final int literal : literals) {
+            if (literal != 0) {
+                bits[getRow(literal)][word] |= mask;
+            }
+        }
+    }
+
+    public synchronized void setComplete(int id) {
+        bits[incompleteRow][id >>> 6] &= ~(1L << id);
+    }
+
+    /**
+     * Removes all configurations from the index.
+     */
+    public synchronized void clear() {
+        for (final long[] row : bits) {
+            Arrays.fill(row, 0);
+        }
+        Arrays.fill(configurations, null);
+        size = 0;
+    }
+
+    /**
+     * @param literals the literal set
+     * @return whether any registered configuration contains all given literals
+     */
+    public boolean isCovered(SortedIntegerList literals) {
+        final long[][] bits = this.bits;
+        final long[] registered = bits[registeredRow];
+        final int[] literalArray = literals.getIntegers();
+        for (int w = 0; w < registered.length; w++) {
+            long word = registered[w];
+            for (int i = 0; (word != 0) && (i < literalArray.length); i++) {
+                word &= bits[getRow(literalArray[i])][w];
+            }
+            if (word != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a candidate for each incomplete configuration that does not contain
+     * the complement of any of the given literals.
+     *
+     * @param literals the literal set
+     * @param candidatesList the list to add the candidates to
+     */
+    public void addCandidates(
+            SortedIntegerList literals, List<Pair<SortedIntegerList, TWiseConfiguration>> candidatesList) {
+        final long[][] bits = this.bits;
+        final TWiseConfiguration[] configurations = this.configurations;
+        final long[] incomplete = bits[incompleteRow];
+        final int[] literalArray = literals.getIntegers();
+        for (int w = 0; w < incomplete.length; w++) {
+            long word = incomplete[w];
+            for (int i = 0; (word != 0) && (i < literalArray.length); i++) {
+                word &= ~bits[getRow(-literalArray[i])][w];
+            }
+            while (word != 0) {
+                final int id = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                final TWiseConfiguration configuration = configurations[id];
+                if (configuration != null) {
+                    candidatesList.add(new Pair<>(literals, configuration));
+                }
+            }
+        }
+    }
+}
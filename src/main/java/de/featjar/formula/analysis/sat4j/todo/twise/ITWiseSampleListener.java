@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2022 Sebastian Krieter
+ *
+ * This file is part of formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.sat4j.todo.twise;
+
+/**
+ * Receives configurations from a {@link TWiseConfigurationGenerator} as soon as
+ * they are finalized.
+ *
+ * @author Sebastian Krieter
+ */
+@FunctionalInterface
+public interface ITWiseSampleListener {
+
+    /**
+     * Called once for each configuration of the sample. Calls are never
+     * concurrent, but may come from different threads.
+     *
+     * @param configuration the complete configuration
+     * @param coverageEstimate the estimated t-wise coverage of the current
+     *            sample, between 0 and 1
+     */
+    void onConfiguration(SortedIntegerList configuration, double coverageEstimate);
+}
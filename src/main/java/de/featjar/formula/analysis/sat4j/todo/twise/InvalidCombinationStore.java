@@ -0,0 +1,480 @@
+/*
+ * Copyright (C) 2022 Sebastian Krieter
+ *
+ * This file is part of formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.sat4j.todo.twise;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Persistent set of invalid literal combinations of a model for a certain t.
+ * The store is an append-only file that is memory-mapped for lookups. Each
+ * entry is a sorted literal array, encoded as the number of literals followed
+ * by the zigzag-encoded differences of consecutive literals as variable-length
+ * integers. An in-memory hash table maps entries to their offsets in the file.
+ * <br>
+ * Multiple processes can share a store. Appends are guarded by an exclusive
+ * file lock and become visible to others by updating the end of the data in
+ * the file header, which each lookup checks for new entries. New entries are
+ * indexed under a shared file lock, so a lookup never reads an entry that is
+ * only partially appended. Within one JVM, lookups of indexed entries run in
+ * parallel, while indexing and appending are exclusive. All opens of the
+ * same file within one JVM share one instance, because file locks cannot be
+ * acquired twice by the same JVM. Each call to {@code open} must be matched by
+ * exactly one call to {@link #close()}.
+ *
+ * @author Sebastian Krieter
+ */
+public class InvalidCombinationStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x49435354;
+    private static final int VERSION = 1;
+
+    private static final int T_OFFSET = 8;
+    private static final int MODEL_HASH_OFFSET = 16;
+    private static final int DATA_END_OFFSET = 24;
+    private static final int HEADER_SIZE = 32;
+
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    /**
+     * All stores that are currently open in this JVM by their normalized path.
+     */
+    private static final Map<Path, InvalidCombinationStore> OPEN_STORES = new HashMap<>();
+
+    private final Path path;
+    private final long modelHash;
+    private final int t;
+    private final FileChannel channel;
+    /**
+     * Number of opens that were not closed yet. Guarded by {@link #OPEN_STORES}.
+     */
+    private int references = 1;
+    private MappedByteBuffer buffer;
+    /**
+     * Guards the buffer and the table. Read access suffices for lookups.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Open-addressing table of entry offsets (0 marks an empty slot).
+     */
+    private int[] table = new int[1024];
+    private int entryCount = 0;
+    private int indexedEnd = HEADER_SIZE;
+
+    private byte[] encodeBuffer = new byte[64];
+    private int[] decodeBuffer = new int[16];
+
+    private InvalidCombinationStore(Path path, long modelHash, int t, FileChannel channel) {
+        this.path = path;
+        this.modelHash = modelHash;
+        this.t = t;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens the store for the given model and t in a directory, creating it if
+     * necessary.
+     *
+     * @param directory the directory containing all stores
+     * @param cnf the model
+     * @param t the size of the combinations
+     * @return the opened store
+     * @throws IOException if the store cannot be opened or belongs to a
+     *             different model
+     */
+    public static InvalidCombinationStore open(Path directory, CNF cnf, int t) throws IOException {
+        final long modelHash = computeModelHash(cnf);
+        Files.createDirectories(directory);
+        return open(directory.resolve(String.format("invalid-%016x-t%d.bin", modelHash, t)), modelHash, t);
+    }
+
+    /**
+     * Opens the store in the given file, creating it if necessary. If the file
+     * is already open in this JVM, the open instance is returned.
+     *
+     * @param path the file
+     * @param modelHash the hash of the model
+     * @param t the size of the combinations
+     * @return the opened store
+     * @throws IOException if the store cannot be opened or belongs to a
+     *             different model
+     */
+    public static InvalidCombinationStore open(Path path, long modelHash, int t) throws IOException {
+        final Path normalizedPath = path.toAbsolutePath().normalize();
+        synchronized (OPEN_STORES) {
+            final InvalidCombinationStore openStore = OPEN_STORES.get(normalizedPath);
+            if (openStore != null) {
+                if ((openStore.t != t) || (openStore.modelHash != modelHash)) {
+                    throw new IOException("Invalid combination store belongs to a different model: " + path);
+                }
+                openStore.references++;
+                return openStore;
+            }
+            final InvalidCombinationStore store = openFile(normalizedPath, modelHash, t);
+            OPEN_STORES.put(normalizedPath, store);
+            return store;
+        }
+    }
+
+    private static InvalidCombinationStore openFile(Path path, long modelHash, int t) throws IOException {
+        final FileChannel channel =
+                FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final InvalidCombinationStore store = new InvalidCombinationStore(path, modelHash, t, channel);
+        try (FileLock lock = channel.lock()) {
+            if (channel.size() < HEADER_SIZE) {
+                store.map(INITIAL_CAPACITY);
+                store.buffer.putInt(0, MAGIC);
+                store.buffer.putInt(4, VERSION);
+                store.buffer.putInt(T_OFFSET, t);
+                store.buffer.putLong(MODEL_HASH_OFFSET, modelHash);
+                store.buffer.putLong(DATA_END_OFFSET, HEADER_SIZE);
+            } else {
+                store.map(channel.size());
+                if ((store.buffer.getInt(0) != MAGIC) || (store.buffer.getInt(4) != VERSION)) {
+                    throw new IOException("Not an invalid combination store: " + path);
+                }
+                if ((store.buffer.getInt(T_OFFSET) != t) || (store.buffer.getLong(MODEL_HASH_OFFSET) != modelHash)) {
+                    throw new IOException("Invalid combination store belongs to a different model: " + path);
+                }
+            }
+            store.update();
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return store;
+    }
+
+    /**
+     * Computes a hash of the variable count and the clauses of a model.
+     *
+     * @param cnf the model
+     * @return the hash value
+     */
+    public static long computeModelHash(CNF cnf) {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, cnf.getVariableMap().getVariableCount());
+        for (final SortedIntegerList clause : cnf.getClauseList()) {
+            hash = mix(hash, clause.size());
+            for (final int literal : clause.getIntegers()) {
+                hash = mix(hash, literal);
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
+    private void map(long capacity) throws IOException {
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("Invalid combination store exceeds maximum size");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private int getDataEnd() {
+        return (int) buffer.getLong(DATA_END_OFFSET);
+    }
+
+    /**
+     * Indexes all entries that were appended since the last update, possibly
+     * by another process. Requires the write lock and a file lock.
+     */
+    private void update() throws IOException {
+        final int dataEnd = getDataEnd();
+        if (dataEnd > indexedEnd) {
+            if (dataEnd > buffer.capacity()) {
+                map(channel.size());
+            }
+            int offset = indexedEnd;
+            while (offset < dataEnd) {
+                final int length = decode(offset);
+                insert(offset, hash(decodeBuffer, length));
+                offset = skip(offset);
+            }
+            indexedEnd = dataEnd;
+        }
+    }
+
+    /**
+     * Checks whether a literal combination is contained in this store.
+     *
+     * @param literals the literals in any order
+     * @return whether the combination is known to be invalid
+     */
+    public boolean contains(int[] literals) {
+        final int[] sortedLiterals = sort(literals);
+        final int hash = hash(sortedLiterals, sortedLiterals.length);
+        lock.readLock().lock();
+        try {
+            // entries are never removed, so only a miss requires new entries to be indexed
+            if (find(sortedLiterals, hash) >= 0) {
+                return true;
+            }
+            if (getDataEnd() == indexedEnd) {
+                return false;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try (FileLock fileLock = channel.lock(0, Long.MAX_VALUE, true)) {
+            update();
+            return find(sortedLiterals, hash) >= 0;
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Appends a literal combination to this store, if it is not contained yet.
+     *
+     * @param literals the literals in any order
+     * @throws IOException if the store cannot be written
+     */
+    public void add(int[] literals) throws IOException {
+        final int[] sortedLiterals = sort(literals);
+        final int hash = hash(sortedLiterals, sortedLiterals.length);
+        lock.writeLock().lock();
+        try (FileLock fileLock = channel.lock()) {
+            if (buffer.capacity() < channel.size()) {
+                map(channel.size());
+            }
+            update();
+            if (find(sortedLiterals, hash) < 0) {
+                final int length = encode(sortedLiterals);
+                final int offset = getDataEnd();
+                final int newEnd = offset + length;
+                if (newEnd > buffer.capacity()) {
+                    map(Math.max((long) buffer.capacity() << 1, newEnd));
+                }
+                buffer.position(offset);
+                buffer.put(encodeBuffer, 0, length);
+                buffer.putLong(DATA_END_OFFSET, newEnd);
+                insert(offset, hash);
+                indexedEnd = newEnd;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entryCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Releases this store. The file is closed once all opens of it in this JVM
+     * are closed.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (OPEN_STORES) {
+            if (references == 0) {
+                return;
+            }
+            if (--references > 0) {
+                return;
+            }
+            OPEN_STORES.remove(path);
+        }
+        lock.writeLock().lock();
+        try {
+            buffer.force();
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static int[] sort(int[] literals) {
+        final int[] sortedLiterals = Arrays.copyOf(literals, literals.length);
+        Arrays.sort(sortedLiterals);
+        return sortedLiterals;
+    }
+
+    private static int hash(int[] literals, int length) {
+        int hash = length;
+        for (int i = 0; i < length; i++) {
+            hash = (31 * hash) + literals[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private int find(int[] literals, int hash) {
+        final int mask = table.length - 1;
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            final int offset = table[slot];
+            if (matches(offset, literals)) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the entry at the given offset with the given literals without
+     * decoding it into a shared buffer, so it can be called by concurrent
+     * readers.
+     */
+    private boolean matches(int offset, int[] sortedLiterals) {
+        long value = readVarInt(offset);
+        if ((int) value != sortedLiterals.length) {
+            return false;
+        }
+        offset = (int) (value >>> 32);
+        int previous = 0;
+        for (final int literal : sortedLiterals) {
+            value = readVarInt(offset);
+            final int zigzag = (int) value;
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            if (previous != literal) {
+                return false;
+            }
+            offset = (int) (value >>> 32);
+        }
+        return true;
+    }
+
+    private void insert(int offset, int hash) {
+        if (((entryCount + 1) << 1) > table.length) {
+            rehash();
+        }
+        final int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = offset;
+        entryCount++;
+    }
+
+    private void rehash() {
+        final int[] oldTable = table;
+        table = new int[oldTable.length << 1];
+        final int mask = table.length - 1;
+        for (final int offset : oldTable) {
+            if (offset != 0) {
+                final int length = decode(offset);
+                int slot = hash(decodeBuffer, length) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = offset;
+            }
+        }
+    }
+
+    private int encode(int[] sortedLiterals) {
+        final int maxLength = 5 * (sortedLiterals.length + 1);
+        if (encodeBuffer.length < maxLength) {
+            encodeBuffer = new byte[maxLength];
+        }
+        int position = writeVarInt(sortedLiterals.length, 0);
+        int previous = 0;
+        for (final int literal : sortedLiterals) {
+            final int delta = literal - previous;
+            position = writeVarInt((delta << 1) ^ (delta >> 31), position);
+            previous = literal;
+        }
+        return position;
+    }
+
+    private int writeVarInt(int value, int position) {
+        while ((value & ~0x7F) != 0) {
+            encodeBuffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        encodeBuffer[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * Decodes the entry at the given offset into {@link #decodeBuffer}.
+     *
+     * @return the number of literals
+     */
+    private int decode(int offset) {
+        long value = readVarInt(offset);
+        final int length = (int) value;
+        offset = (int) (value >>> 32);
+        if (decodeBuffer.length < length) {
+            decodeBuffer = new int[length];
+        }
+        int previous = 0;
+        for (int i = 0; i < length; i++) {
+            value = readVarInt(offset);
+            final int zigzag = (int) value;
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            decodeBuffer[i] = previous;
+            offset = (int) (value >>> 32);
+        }
+        return length;
+    }
+
+    private int skip(int offset) {
+        final long value = readVarInt(offset);
+        final int length = (int) value;
+        offset = (int) (value >>> 32);
+        for (int i = 0; i < length; i++) {
+            offset = (int) (readVarInt(offset) >>> 32);
+        }
+        return offset;
+    }
+
+    /**
+     * @return the value in the lower and the offset after the value in the
+     *         upper 32 bits
+     */
+    private long readVarInt(int offset) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(offset++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return ((long) offset << 32) | (value & 0xFFFFFFFFL);
+    }
+}
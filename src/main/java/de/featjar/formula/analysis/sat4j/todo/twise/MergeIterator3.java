@@ -23,17 +23,24 @@ package de.featjar.formula.analysis.sat4j.todo.twise;
 import de.featjar.formula.analysis.bool.ABooleanAssignmentList;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 /**
  * Combines multiple {@link ICombinationSupplier supplies} of {@link ABooleanAssignmentList}
- * and returns results from each supplier by turns.
+ * and returns results from each supplier by turns. Splitting this iterator
+ * splits every underlying {@link RandomPartitionSupplier}, so the combinations
+ * can be covered by parallel streams. The results of a split are still merged
+ * by turns, but there is no encounter order across splits.
  *
  * @author Sebastian Krieter
  */
-public class MergeIterator3 implements ICombinationSupplier<ABooleanAssignmentList> {
+public class MergeIterator3
+        implements ICombinationSupplier<ABooleanAssignmentList>, Spliterator<ABooleanAssignmentList> {
 
+    private final int t, n;
     private final List<List<PresenceCondition>> expressionSets;
-    private final ICombinationSupplier<int[]>[] suppliers;
+    private final RandomPartitionSupplier[] suppliers;
     private final long numberOfCombinations;
 
     private final List<ABooleanAssignmentList> buffer = new ArrayList<>();
@@ -43,30 +50,56 @@ public class MergeIterator3 implements ICombinationSupplier<ABooleanAssignmentLi
     private int bufferIndex = 0;
     private final int maxIteratorIndex;
 
-    @SuppressWarnings("unchecked")
     public MergeIterator3(int t, int n, List<List<PresenceCondition>> expressionSets) {
+        this(t, n, expressionSets, createSuppliers(t, expressionSets));
+    }
+
+    private MergeIterator3(
+            int t, int n, List<List<PresenceCondition>> expressionSets, RandomPartitionSupplier[] suppliers) {
+        this(t, n, expressionSets, suppliers, getNumberOfCombinations(suppliers));
+    }
+
+    private MergeIterator3(
+            int t,
+            int n,
+            List<List<PresenceCondition>> expressionSets,
+            RandomPartitionSupplier[] suppliers,
+            long numberOfCombinations) {
+        this.t = t;
+        this.n = n;
         this.expressionSets = expressionSets;
+        this.suppliers = suppliers;
 
         maxIteratorIndex = expressionSets.size() - 1;
-        suppliers = new ICombinationSupplier[expressionSets.size()];
         combiner = new TWiseCombiner(n);
         nextCombination = new PresenceCondition[t];
+        this.numberOfCombinations = numberOfCombinations;
+    }
 
+    private static long getNumberOfCombinations(RandomPartitionSupplier[] suppliers) {
         long sumNumberOfCombinations = 0;
-        for (int i = 0; i <= maxIteratorIndex; i++) {
-            final ICombinationSupplier<int[]> supplier =
-                    new RandomPartitionSupplier(t, expressionSets.get(i).size());
-            suppliers[i] = supplier;
+        for (final RandomPartitionSupplier supplier : suppliers) {
             sumNumberOfCombinations += supplier.size();
+            if (sumNumberOfCombinations < 0) {
+                return Long.MAX_VALUE;
+            }
         }
-        numberOfCombinations = sumNumberOfCombinations;
+        return sumNumberOfCombinations;
+    }
+
+    private static RandomPartitionSupplier[] createSuppliers(int t, List<List<PresenceCondition>> expressionSets) {
+        final RandomPartitionSupplier[] suppliers = new RandomPartitionSupplier[expressionSets.size()];
+        for (int i = 0; i < suppliers.length; i++) {
+            suppliers[i] = new RandomPartitionSupplier(t, expressionSets.get(i).size());
+        }
+        return suppliers;
     }
 
     @Override
     public ABooleanAssignmentList get() {
         if (buffer.isEmpty()) {
             for (int i = 0; i <= maxIteratorIndex; i++) {
-                final ICombinationSupplier<int[]> supplier = suppliers[i];
+                final RandomPartitionSupplier supplier = suppliers[i];
                 if (supplier != null) {
                     final int[] js = supplier.get();
                     if (js != null) {
@@ -94,6 +127,53 @@ public class MergeIterator3 implements ICombinationSupplier<ABooleanAssignmentLi
         return remove;
     }
 
+    @Override
+    public boolean tryAdvance(Consumer<? super ABooleanAssignmentList> action) {
+        final ABooleanAssignmentList combinedCondition = get();
+        if (combinedCondition == null) {
+            return false;
+        }
+        action.accept(combinedCondition);
+        return true;
+    }
+
+    @Override
+    public MergeIterator3 trySplit() {
+        final RandomPartitionSupplier[] prefixSuppliers = new RandomPartitionSupplier[suppliers.length];
+        boolean split = false;
+        for (int i = 0; i <= maxIteratorIndex; i++) {
+            if (suppliers[i] != null) {
+                prefixSuppliers[i] = suppliers[i].trySplit();
+                split |= prefixSuppliers[i] != null;
+            }
+        }
+        return split ? new MergeIterator3(t, n, expressionSets, prefixSuppliers, numberOfCombinations) : null;
+    }
+
+    @Override
+    public long estimateSize() {
+        long estimate = buffer.size() - bufferIndex;
+        for (final RandomPartitionSupplier supplier : suppliers) {
+            if (supplier != null) {
+                estimate += supplier.estimateSize();
+                if (estimate < 0) {
+                    return Long.MAX_VALUE;
+                }
+            }
+        }
+        return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL;
+    }
+
+    /**
+     * Returns the number of all combinations, regardless of splits.
+     *
+     * @return the number of combinations, saturated at {@link Long#MAX_VALUE}
+     */
     @Override
     public long size() {
         return numberOfCombinations;
@@ -21,97 +21,242 @@
 package de.featjar.formula.analysis.sat4j.todo.twise;
 
 import de.featjar.formula.analysis.combinations.BinomialCalculator;
+import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 /**
  * Presence condition combination supplier that uses the combinatorial number
  * system to enumerate all combinations and then alternately iterates over
  * certain randomized partitions of the combination space.
+ * <br>
+ * The supplier walks through a space of positions in a mixed-radix system.
+ * Each position is mapped to a combination rank by permuting its digits
+ * randomly, and positions whose rank exceeds the number of combinations are
+ * skipped. Thus, every combination is returned exactly once in a random, but
+ * reproducible order.
+ * <br>
+ * The supplier is also a {@link Spliterator}. Splitting divides the remaining
+ * positions into two disjoint ranges, which keeps the random order within each
+ * range and allows parallel consumers. Ranks are computed with {@code long}
+ * arithmetic and without allocation if the position space fits into a
+ * {@code long}, and with {@link BigInteger} otherwise.
  *
  * @author Sebastian Krieter
  */
-public class RandomPartitionSupplier implements ICombinationSupplier<int[]> {
+public class RandomPartitionSupplier implements ICombinationSupplier<int[]>, Spliterator<int[]> {
 
-    protected final PresenceCondition[] nextCombination;
+    /**
+     * The permuted rank mapping, which is shared between all splits of a
+     * supplier.
+     */
+    private static final class Partition {
 
-    protected final int t, n;
-    protected final long numCombinations;
-    protected final BinomialCalculator binomialCalculator;
+        private final int t, n;
+        private final BigInteger numCombinations;
+        private final BigInteger numPositions;
 
-    protected long counter = 0;
+        private final int radix;
+        private final int[][] dim;
+
+        private final boolean longRanks;
+        private final long numCombinationsLong;
+        private final long[] radixPowers;
+        private final BinomialCalculator binomialCalculator;
+
+        private final BigInteger[] bigRadixPowers;
+        private final BigInteger[][] binomials;
+
+        private Partition(int t, int n, Random random) {
+            this.t = t;
+            this.n = n;
+            numCombinations = binomial(n, t);
+
+            final int numDim = 4 * t;
+            int r = Math.max(1, (int) Math.ceil(Math.pow(numCombinations.doubleValue(), 1.0 / numDim)));
+            // corrects rounding errors of the floating point root
+            while (BigInteger.valueOf(r).pow(numDim).compareTo(numCombinations) < 0) {
+                r++;
+            }
+            radix = r;
+            numPositions = BigInteger.valueOf(radix).pow(numDim);
+
+            dim = new int[numDim][radix];
+            for (int i = 0; i < dim.length; i++) {
+                final int[] dimArray = dim[i];
+                for (int j = 0; j < radix; j++) {
+                    dimArray[j] = j;
+                }
+            }
+            for (int i = 0; i < dim.length; i++) {
+                final int[] dimArray = dim[i];
+                for (int j = dimArray.length - 1; j >= 0; j--) {
+                    final int index = random.nextInt(j + 1);
+                    final int a = dimArray[index];
+                    dimArray[index] = dimArray[j];
+                    dimArray[j] = a;
+                }
+            }
+
+            longRanks = numPositions.bitLength() < Long.SIZE;
+            if (longRanks) {
+                numCombinationsLong = numCombinations.longValue();
+                radixPowers = new long[numDim];
+                long radixPower = 1;
+                for (int i = 0; i < numDim; i++) {
+                    radixPowers[i] = radixPower;
+                    radixPower *= radix;
+                }
+                binomialCalculator = new BinomialCalculator(t, n);
+                bigRadixPowers = null;
+                binomials = null;
+            } else {
+                numCombinationsLong = -1;
+                radixPowers = null;
+                binomialCalculator = null;
+                bigRadixPowers = new BigInteger[numDim];
+                BigInteger radixPower = BigInteger.ONE;
+                for (int i = 0; i < numDim; i++) {
+                    bigRadixPowers[i] = radixPower;
+                    radixPower = radixPower.multiply(BigInteger.valueOf(radix));
+                }
+                binomials = new BigInteger[n + 1][t + 1];
+                for (int i = 0; i <= n; i++) {
+                    binomials[i][0] = BigInteger.ONE;
+                    for (int k = 1; k <= t; k++) {
+                        binomials[i][k] = (i == 0) ? BigInteger.ZERO : binomials[i - 1][k - 1].add(binomials[i - 1][k]);
+                    }
+                }
+            }
+        }
+
+        private static BigInteger binomial(int n, int k) {
+            if ((k < 0) || (k > n)) {
+                return BigInteger.ZERO;
+            }
+            BigInteger result = BigInteger.ONE;
+            for (int i = 1; i <= k; i++) {
+                result = result.multiply(BigInteger.valueOf((n - k) + i)).divide(BigInteger.valueOf(i));
+            }
+            return result;
+        }
+
+        private BigInteger getValue(int[] pos) {
+            BigInteger value = BigInteger.ZERO;
+            for (int i = 0; i < pos.length; i++) {
+                value = value.multiply(BigInteger.valueOf(radix)).add(BigInteger.valueOf(pos[i]));
+            }
+            return value;
+        }
+
+        private int[] getDigits(BigInteger value) {
+            final int[] pos = new int[dim.length];
+            final BigInteger bigRadix = BigInteger.valueOf(radix);
+            for (int i = pos.length - 1; i >= 0; i--) {
+                final BigInteger[] qr = value.divideAndRemainder(bigRadix);
+                pos[i] = qr[1].intValue();
+                value = qr[0];
+            }
+            return pos;
+        }
+    }
+
+    private static final long MIN_SPLIT_SIZE = 1024;
+
+    private final Partition partition;
+    private final int t, n;
 
-    protected final int[][] dim;
     private final int[] pos;
-    private final int radix;
+    /**
+     * Exclusive end of the position range or {@code null}, if the range ends
+     * with the position space.
+     */
+    private final int[] end;
+    private boolean exhausted;
+
+    /**
+     * Output buffer that is reused for every combination.
+     */
+    protected final int[] combination;
 
     public RandomPartitionSupplier(int t, int n) {
         this(t, n, new Random(42));
     }
 
     public RandomPartitionSupplier(int t, int n, Random random) {
-        this.t = t;
-        this.n = n;
-        binomialCalculator = new BinomialCalculator(t, n);
-        nextCombination = new PresenceCondition[t];
-        numCombinations = binomialCalculator.binomial(n, t);
-
-        final int numDim = 4 * t;
-        radix = (int) Math.ceil(Math.pow(numCombinations, 1.0 / numDim));
-        dim = new int[numDim][radix];
-        pos = new int[numDim];
-
-        for (int i = 0; i < dim.length; i++) {
-            final int[] dimArray = dim[i];
-            for (int j = 0; j < radix; j++) {
-                dimArray[j] = j;
-            }
-        }
+        this(new Partition(t, n, random), new int[4 * t], null);
+    }
 
-        for (int i = 0; i < dim.length; i++) {
-            final int[] dimArray = dim[i];
-            for (int j = dimArray.length - 1; j >= 0; j--) {
-                final int index = random.nextInt(j + 1);
-                final int a = dimArray[index];
-                dimArray[index] = dimArray[j];
-                dimArray[j] = a;
-            }
-        }
+    private RandomPartitionSupplier(Partition partition, int[] pos, int[] end) {
+        this.partition = partition;
+        t = partition.t;
+        n = partition.n;
+        this.pos = pos;
+        this.end = end;
+        exhausted = partition.numCombinations.signum() == 0 || Arrays.equals(pos, end);
+        combination = new int[t];
     }
 
     @Override
     public int[] get() {
-        return computeCombination(nextIndex());
+        while (!exhausted) {
+            if (partition.longRanks) {
+                final long index = getIndex();
+                nextPosition();
+                if (index < partition.numCombinationsLong) {
+                    return computeCombination(index);
+                }
+            } else {
+                final BigInteger index = getBigIndex();
+                nextPosition();
+                if (index.compareTo(partition.numCombinations) < 0) {
+                    return computeCombination(index);
+                }
+            }
+        }
+        return null;
     }
 
-    protected long nextIndex() {
-        if (counter++ >= numCombinations) {
-            return -1;
+    private long getIndex() {
+        long result = 0;
+        for (int i = 0; i < pos.length; i++) {
+            result += partition.radixPowers[i] * partition.dim[i][pos[i]];
         }
-        int result;
-        do {
-            result = 0;
-            for (int i = 0; i < pos.length; i++) {
-                result += Math.pow(radix, i) * dim[i][pos[i]];
-            }
-            for (int i = pos.length - 1; i >= 0; i--) {
-                final int p = pos[i];
-                if ((p + 1) < radix) {
-                    pos[i] = p + 1;
-                    break;
-                } else {
-                    pos[i] = 0;
-                }
-            }
-        } while (result >= numCombinations);
+        return result;
+    }
 
+    private BigInteger getBigIndex() {
+        BigInteger result = BigInteger.ZERO;
+        for (int i = 0; i < pos.length; i++) {
+            result = result.add(partition.bigRadixPowers[i].multiply(BigInteger.valueOf(partition.dim[i][pos[i]])));
+        }
         return result;
     }
 
-    protected int[] computeCombination(long index) {
-        if (index < 0) {
-            return null;
+    private void nextPosition() {
+        for (int i = pos.length - 1; i >= 0; i--) {
+            final int p = pos[i];
+            if ((p + 1) < partition.radix) {
+                pos[i] = p + 1;
+                exhausted = Arrays.equals(pos, end);
+                return;
+            } else {
+                pos[i] = 0;
+            }
         }
-        final int[] combination = new int[t];
+        exhausted = true;
+    }
+
+    /**
+     * Computes the combination with the given index.
+     *
+     * @param index the index
+     * @return the shared output buffer
+     */
+    protected int[] computeCombination(long index) {
+        final BinomialCalculator binomialCalculator = partition.binomialCalculator;
         for (int i = t; i > 0; i--) {
             if (index <= 0) {
                 combination[i - 1] = i - 1;
@@ -130,8 +275,101 @@ public class RandomPartitionSupplier implements ICombinationSupplier<int[]> {
         return combination;
     }
 
+    /**
+     * Computes the combination with the given index, if the number of
+     * combinations exceeds the range of {@code long}.
+     *
+     * @param index the index
+     * @return the shared output buffer
+     */
+    protected int[] computeCombination(BigInteger index) {
+        final BigInteger[][] binomials = partition.binomials;
+        for (int i = t; i > 0; i--) {
+            int low = i - 1, high = n - 1;
+            while (low < high) {
+                final int mid = (low + high + 1) >>> 1;
+                if (binomials[mid][i].compareTo(index) <= 0) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            combination[i - 1] = low;
+            index = index.subtract(binomials[low][i]);
+        }
+        return combination;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super int[]> action) {
+        final int[] next = get();
+        if (next == null) {
+            return false;
+        }
+        action.accept(next);
+        return true;
+    }
+
+    @Override
+    public RandomPartitionSupplier trySplit() {
+        if (exhausted) {
+            return null;
+        }
+        final BigInteger start = partition.getValue(pos);
+        final BigInteger stop = (end == null) ? partition.numPositions : partition.getValue(end);
+        final BigInteger remaining = stop.subtract(start);
+        if (remaining.compareTo(BigInteger.valueOf(MIN_SPLIT_SIZE)) < 0) {
+            return null;
+        }
+        final int[] middle = partition.getDigits(start.add(remaining.shiftRight(1)));
+        final RandomPartitionSupplier prefix =
+                new RandomPartitionSupplier(partition, Arrays.copyOf(pos, pos.length), middle);
+        System.arraycopy(middle, 0, pos, 0, pos.length);
+        return prefix;
+    }
+
+    /**
+     * Estimates the remaining combinations from the remaining positions, as
+     * some positions do not map to a combination.
+     *
+     * @return the estimated number of remaining combinations, saturated at
+     *         {@link Long#MAX_VALUE}
+     */
+    @Override
+    public long estimateSize() {
+        if (exhausted) {
+            return 0;
+        }
+        final BigInteger start = partition.getValue(pos);
+        final BigInteger stop = (end == null) ? partition.numPositions : partition.getValue(end);
+        final BigInteger estimate =
+                stop.subtract(start).multiply(partition.numCombinations).divide(partition.numPositions);
+        return estimate.bitLength() < Long.SIZE ? estimate.longValue() : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    /**
+     * Returns the number of all combinations, regardless of splits.
+     *
+     * @return the number of combinations, saturated at {@link Long#MAX_VALUE}
+     */
     @Override
     public long size() {
-        return numCombinations;
+        return partition.numCombinations.bitLength() < Long.SIZE
+                ? partition.numCombinations.longValue()
+                : Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns the exact number of all combinations, regardless of splits.
+     *
+     * @return the number of combinations
+     */
+    public BigInteger getNumberOfCombinations() {
+        return partition.numCombinations;
     }
 }
@@ -22,29 +22,39 @@ package de.featjar.formula.analysis.sat4j.todo.twise;
 
 import de.featjar.formula.analysis.bool.ABooleanAssignmentList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 /**
  * Uses a {@link RandomPartitionSupplier} to construct a combined presence
- * condition for every combination.
+ * condition for every combination. Splitting this iterator splits the
+ * underlying supplier, so the combinations can be covered by parallel streams.
  *
  * @author Sebastian Krieter
  */
-public class SingleIterator implements ICombinationSupplier<ABooleanAssignmentList> {
+public class SingleIterator
+        implements ICombinationSupplier<ABooleanAssignmentList>, Spliterator<ABooleanAssignmentList> {
 
+    private final int t, n;
     private final List<PresenceCondition> expressionSet;
-    private final ICombinationSupplier<int[]> supplier;
+    private final RandomPartitionSupplier supplier;
     private final long numberOfCombinations;
 
     private final TWiseCombiner combiner;
     private final PresenceCondition[] nextCombination;
 
     public SingleIterator(int t, int n, List<PresenceCondition> expressionSet) {
+        this(t, n, expressionSet, new RandomPartitionSupplier(t, expressionSet.size()));
+    }
+
+    private SingleIterator(int t, int n, List<PresenceCondition> expressionSet, RandomPartitionSupplier supplier) {
+        this.t = t;
+        this.n = n;
         this.expressionSet = expressionSet;
+        this.supplier = supplier;
 
         combiner = new TWiseCombiner(n);
         nextCombination = new PresenceCondition[t];
-
-        supplier = new RandomPartitionSupplier(t, expressionSet.size());
         numberOfCombinations = supplier.size();
     }
 
@@ -63,6 +73,37 @@ public class SingleIterator implements ICombinationSupplier<ABooleanAssignmentLi
         }
     }
 
+    @Override
+    public boolean tryAdvance(Consumer<? super ABooleanAssignmentList> action) {
+        final ABooleanAssignmentList combinedCondition = get();
+        if (combinedCondition == null) {
+            return false;
+        }
+        action.accept(combinedCondition);
+        return true;
+    }
+
+    @Override
+    public SingleIterator trySplit() {
+        final RandomPartitionSupplier prefix = supplier.trySplit();
+        return prefix == null ? null : new SingleIterator(t, n, expressionSet, prefix);
+    }
+
+    @Override
+    public long estimateSize() {
+        return supplier.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    /**
+     * Returns the number of all combinations, regardless of splits.
+     *
+     * @return the number of combinations
+     */
     @Override
     public long size() {
         return numberOfCombinations;
@@ -0,0 +1,360 @@
+/*
+ * Copyright (C) 2022 Sebastian Krieter
+ *
+ * This file is part of formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.sat4j.todo.twise;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.sat4j.core.VecInt;
+
+/**
+ * Bounded pool of complete solutions with an inverted index. For each variable,
+ * a bitset over all slots marks the solutions in which the variable is
+ * positive. Thus, finding a solution that contains a given set of literals only
+ * requires a conjunction of a few bitsets.
+ * <p>
+ * If the pool is full, a solution that was not recently added or returned by a
+ * query is evicted (clock approximation of least recently used). Queries can be
+ * run concurrently, insertions are exclusive.
+ *
+ * @author Sebastian Krieter
+ */
+class SolutionPool {
+
+    private final int capacity;
+    private final int wordCount;
+
+    private final AtomicReferenceArray<SortedIntegerList> solutions;
+    private final long[][] positiveRows;
+    private final long[] occupied;
+    private final AtomicLongArray referenced;
+    private final int[] insertionLog;
+    /**
+     * Number of insertions before the current solution of each slot was added.
+     */
+    private final long[] slotInsertions;
+    private final HashMap<SortedIntegerList, Integer> slots = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int size = 0;
+    private int hand = 0;
+    private long insertionCount = 0;
+
+    /**
+     * Computes the number of solutions that fit into the given amount of memory.
+     *
+     * @param variableCount the number of variables
+     * @param memory        the memory budget in bytes
+     * @param limit         the maximum capacity
+     * @return the capacity of the pool
+     */
+    public static int getCapacity(int variableCount, long memory, int limit) {
+        // literal array, object overhead, and one bit per variable in the index
+        final long bytesPerSolution = (4L * variableCount) + 32 + ((variableCount + 7) >>> 3);
+        return (int) Math.max(1, Math.min(limit, memory / bytesPerSolution));
+    }
+
+    public SolutionPool(int variableCount, int capacity) {
+        this.capacity = Math.max(1, capacity);
+        wordCount = ((this.capacity - 1) >>> 6) + 1;
+        solutions = new AtomicReferenceArray<>(this.capacity);
+        positiveRows = new long[variableCount][wordCount];
+        occupied = new long[wordCount];
+        referenced = new AtomicLongArray(wordCount);
+        insertionLog = new int[this.capacity];
+        slotInsertions = new long[this.capacity];
+    }
+
+    /**
+     * Adds a complete solution to the pool. If the pool is full, another
+     * solution is evicted.
+     *
+     * @param solution the solution, containing one literal per variable at index
+     *                 {@code |literal| - 1}
+     * @return the slot of the added solution or {@code -1} if the solution is
+     *         already contained
+     */
+    public int add(SortedIntegerList solution) {
+        lock.writeLock().lock();
+        try {
+            final Integer existingSlot = slots.get(solution);
+            if (existingSlot != null) {
+                setReferenced(existingSlot);
+                return -1;
+            }
+            final int slot;
+            if (size < capacity) {
+                slot = size++;
+            } else {
+                slot = evict();
+            }
+            final int word = slot >>> 6;
+            final long mask = 1L << slot;
+            final int[] literals = solution.getIntegers();
+            for (int i = 0; i < positiveRows.length; i++) {
+                if (literals[i] > 0) {
+                    positiveRows[i][word] |= mask;
+                } else {
+                    positiveRows[i][word] &= ~mask;
+                }
+            }
+            occupied[word] |= mask;
+            solutions.set(slot, solution);
+            slots.put(solution, slot);
+            setReferenced(slot);
+            insertionLog[(int) (insertionCount % capacity)] = slot;
+            slotInsertions[slot] = insertionCount;
+            insertionCount++;
+            return slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int evict() {
+        while (true) {
+            final int word = hand >>> 6;
+            final long mask = 1L << hand;
+            final int slot = hand;
+            hand = (hand + 1) % capacity;
+            if ((referenced.get(word) & mask) != 0) {
+                clearReferenced(slot);
+            } else {
+                slots.remove(solutions.get(slot));
+                return slot;
+            }
+        }
+    }
+
+    private void setReferenced(int slot) {
+        final int word = slot >>> 6;
+        final long mask = 1L << slot;
+        long bits = referenced.get(word);
+        while (((bits & mask) == 0) && !referenced.compareAndSet(word, bits, bits | mask)) {
+            bits = referenced.get(word);
+        }
+    }
+
+    private void clearReferenced(int slot) {
+        final int word = slot >>> 6;
+        final long mask = 1L << slot;
+        long bits = referenced.get(word);
+        while (((bits & mask) != 0) && !referenced.compareAndSet(word, bits, bits & ~mask)) {
+            bits = referenced.get(word);
+        }
+    }
+
+    private long match(int[] literals, int word) {
+        long bits = occupied[word];
+        for (int i = 0; (bits != 0) && (i < literals.length); i++) {
+            final int literal = literals[i];
+            if (literal > 0) {
+                bits &= positiveRows[literal - 1][word];
+            } else if (literal < 0) {
+                bits &= ~positiveRows[-literal - 1][word];
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Searches for a solution that contains all given literals.
+     *
+     * @param literals the literals
+     * @return a matching solution or {@code null} if there is none
+     */
+    public SortedIntegerList find(int[] literals) {
+        lock.readLock().lock();
+        try {
+            for (int word = 0; word < wordCount; word++) {
+                final long bits = match(literals, word);
+                if (bits != 0) {
+                    final int slot = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    setReferenced(slot);
+                    return solutions.get(slot);
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Collects the slots of all solutions that contain the given literals.
+     *
+     * @param literals the literals
+     * @param result   the list to which the slots are added
+     * @return the number of insertions at the time of the query
+     */
+    public long findAll(int[] literals, VecInt result) {
+        lock.readLock().lock();
+        try {
+            for (int word = 0; word < wordCount; word++) {
+                long bits = match(literals, word);
+                while (bits != 0) {
+                    result.push((word << 6) + Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+            }
+            return insertionCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Solutions that were added to the pool since a given insertion count,
+     * together with their slots.
+     */
+    static class Insertions {
+
+        final int[] slots;
+        final SortedIntegerList[] solutions;
+        final long insertionCount;
+
+        private Insertions(int[] slots, SortedIntegerList[] solutions, long insertionCount) {
+            this.slots = slots;
+            this.solutions = solutions;
+            this.insertionCount = insertionCount;
+        }
+    }
+
+    /**
+     * Returns all solutions that were added since the given insertion count in
+     * insertion order. Slots and solutions are read under the same lock. If a
+     * slot was reused within this range, only its latest solution is returned.
+     *
+     * @param since the number of insertions already seen
+     * @return the new insertions or {@code null} if some of them are no longer
+     *         recorded
+     */
+    public Insertions getSince(long since) {
+        lock.readLock().lock();
+        try {
+            final long newInsertions = insertionCount - since;
+            if (newInsertions > capacity) {
+                return null;
+            }
+            final int[] latestSlots = getLatestSlots(since, (int) newInsertions);
+            final SortedIntegerList[] newSolutions = new SortedIntegerList[latestSlots.length];
+            for (int i = 0; i < latestSlots.length; i++) {
+                newSolutions[i] = solutions.get(latestSlots[i]);
+            }
+            return new Insertions(latestSlots, newSolutions, insertionCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the most recently added solutions, oldest first. Solutions that were
+     * evicted in the meantime are skipped.
+     *
+     * @param limit the maximum number of solutions
+     * @return a list of solution literal arrays
+     */
+    public List<int[]> getRecent(int limit) {
+        lock.readLock().lock();
+        try {
+            final int count = (int) Math.min(insertionCount, capacity);
+            final int[] latestSlots = getLatestSlots(insertionCount - count, count);
+            final int from = Math.max(0, latestSlots.length - limit);
+            final List<int[]> recent = new ArrayList<>(latestSlots.length - from);
+            for (int i = from; i < latestSlots.length; i++) {
+                recent.add(solutions.get(latestSlots[i]).getIntegers());
+            }
+            return recent;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Collects the slots of the given range of the insertion log in insertion
+     * order. Entries whose slot was reassigned by a later insertion are skipped.
+     * Must be called while holding the lock.
+     */
+    private int[] getLatestSlots(long from, int length) {
+        final BitSet seen = new BitSet();
+        final int[] latestSlots = new int[length];
+        int start = length;
+        for (long i = from + length - 1; i >= from; i--) {
+            final int slot = insertionLog[(int) (i % capacity)];
+            if (!seen.get(slot)) {
+                seen.set(slot);
+                latestSlots[--start] = slot;
+            }
+        }
+        return Arrays.copyOfRange(latestSlots, start, length);
+    }
+
+    public SortedIntegerList get(int slot) {
+        return solutions.get(slot);
+    }
+
+    /**
+     * Returns the solution in the given slot, unless the slot was reassigned
+     * after the given number of insertions. A slot index that was obtained
+     * before can thus be checked for being stale.
+     *
+     * @param slot           the slot
+     * @param insertionCount the number of insertions at the time the slot index
+     *                       was obtained
+     * @return the solution or {@code null} if the slot was reassigned since
+     */
+    public SortedIntegerList get(int slot, long insertionCount) {
+        lock.readLock().lock();
+        try {
+            return slotInsertions[slot] < insertionCount ? solutions.get(slot) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getInsertionCount() {
+        lock.readLock().lock();
+        try {
+            return insertionCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2022 Sebastian Krieter
+ *
+ * This file is part of formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.sat4j.todo.twise;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Snapshot of the state of a {@link TWiseConfigurationGenerator}, which can be
+ * written to and read from a compact binary file.
+ * <br>
+ * Partial configurations are stored as lists of their literals. Solutions of
+ * the solver solution pool are complete, so only the sign of each variable is
+ * stored as one bit.
+ *
+ * @author Sebastian Krieter
+ */
+class TWiseCheckpoint {
+
+    private static final int MAGIC = 0x54574350;
+    private static final int VERSION = 2;
+
+    int t;
+    int variableCount;
+    /**
+     * Hash of the CNF, see {@link InvalidCombinationStore#computeModelHash}.
+     */
+    long modelHash;
+
+    /**
+     * Iteration to continue with.
+     */
+    int iteration;
+    /**
+     * Whether the configurations were already trimmed in {@link #iteration}.
+     */
+    boolean started;
+    /**
+     * Number of processed combinations in {@link #iteration}.
+     */
+    long count;
+    long coveredCount;
+    long invalidCount;
+
+    /**
+     * Order of presence conditions within each group, given as indices into the
+     * initial order of the presence condition manager.
+     */
+    int[][] presenceConditionOrder;
+
+    final List<int[]> incompleteConfigurations = new ArrayList<>();
+    final List<int[]> completeConfigurations = new ArrayList<>();
+    List<int[]> bestResult;
+    final List<int[]> solverSolutions = new ArrayList<>();
+
+    /**
+     * Writes this checkpoint to a temporary file and moves it to the given
+     * path afterwards, so an existing checkpoint is never left incomplete.
+     *
+     * @param path the path of the checkpoint file
+     * @throws IOException if the file cannot be written
+     */
+    void write(Path path) throws IOException {
+        final Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tempPath))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(t);
+            out.writeInt(variableCount);
+            out.writeLong(modelHash);
+            out.writeInt(iteration);
+            out.writeBoolean(started);
+            out.writeLong(count);
+            out.writeLong(coveredCount);
+            out.writeLong(invalidCount);
+
+            out.writeInt(presenceConditionOrder.length);
+            for (final int[] order : presenceConditionOrder) {
+                writeIntArray(out, order);
+            }
+            writeConfigurations(out, incompleteConfigurations);
+            writeConfigurations(out, completeConfigurations);
+            if (bestResult == null) {
+                out.writeInt(-1);
+            } else {
+                writeConfigurations(out, bestResult);
+            }
+
+            out.writeInt(solverSolutions.size());
+            for (final int[] solution : solverSolutions) {
+                final long[] signs = new long[(variableCount + 63) >>> 6];
+                for (int i = 0; i < variableCount; i++) {
+                    if (solution[i] > 0) {
+                        signs[i >>> 6] |= 1L << i;
+                    }
+                }
+                for (final long word : signs) {
+                    out.writeLong(word);
+                }
+            }
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a checkpoint.
+     *
+     * @param path the path of the checkpoint file
+     * @return the checkpoint
+     * @throws IOException if the file cannot be read or is not a checkpoint
+     */
+    static TWiseCheckpoint read(Path path) throws IOException {
+        try (DataInputStream in =
+                new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a checkpoint file: " + path);
+            }
+            final int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported checkpoint version: " + version);
+            }
+            final TWiseCheckpoint checkpoint = new TWiseCheckpoint();
+            checkpoint.t = in.readInt();
+            checkpoint.variableCount = in.readInt();
+            checkpoint.modelHash = in.readLong();
+            checkpoint.iteration = in.readInt();
+            checkpoint.started = in.readBoolean();
+            checkpoint.count = in.readLong();
+            checkpoint.coveredCount = in.readLong();
+            checkpoint.invalidCount = in.readLong();
+
+            checkpoint.presenceConditionOrder = new int[in.readInt()][];
+            for (int i = 0; i < checkpoint.presenceConditionOrder.length; i++) {
+                checkpoint.presenceConditionOrder[i] = readIntArray(in);
+            }
+            readConfigurations(in, checkpoint.incompleteConfigurations, checkpoint.variableCount);
+            readConfigurations(in, checkpoint.completeConfigurations, checkpoint.variableCount);
+            final int bestResultSize = in.readInt();
+            if (bestResultSize >= 0) {
+                checkpoint.bestResult = new ArrayList<>(bestResultSize);
+                for (int i = 0; i < bestResultSize; i++) {
+                    checkpoint.bestResult.add(readConfiguration(in, checkpoint.variableCount));
+                }
+            }
+
+            final int solutionCount = in.readInt();
+            final long[] signs = new long[(checkpoint.variableCount + 63) >>> 6];
+            for (int i = 0; i < solutionCount; i++) {
+                for (int j = 0; j < signs.length; j++) {
+                    signs[j] = in.readLong();
+                }
+                final int[] solution = new int[checkpoint.variableCount];
+                for (int j = 0; j < solution.length; j++) {
+                    solution[j] = ((signs[j >>> 6] >>> j) & 1L) != 0 ? j + 1 : -(j + 1);
+                }
+                checkpoint.solverSolutions.add(solution);
+            }
+            return checkpoint;
+        }
+    }
+
+    private static void writeIntArray(DataOutputStream out, int[] array) throws IOException {
+        out.writeInt(array.length);
+        for (final int value : array) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readIntArray(DataInputStream in) throws IOException {
+        final int[] array = new int[in.readInt()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = in.readInt();
+        }
+        return array;
+    }
+
+    private static void writeConfigurations(DataOutputStream out, List<int[]> configurations) throws IOException {
+        out.writeInt(configurations.size());
+        for (final int[] configuration : configurations) {
+            int literalCount = 0;
+            for (final int literal : configuration) {
+                if (literal != 0) {
+                    literalCount++;
+                }
+            }
+            out.writeInt(literalCount);
+            for (final int literal : configuration) {
+                if (literal != 0) {
+                    out.writeInt(literal);
+                }
+            }
+        }
+    }
+
+    private static void readConfigurations(DataInputStream in, List<int[]> configurations, int variableCount)
+            throws IOException {
+        final int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            configurations.add(readConfiguration(in, variableCount));
+        }
+    }
+
+    private static int[] readConfiguration(DataInputStream in, int variableCount) throws IOException {
+        final int[] configuration = new int[variableCount];
+        final int literalCount = in.readInt();
+        for (int i = 0; i < literalCount; i++) {
+            final int literal = in.readInt();
+            configuration[Math.abs(literal) - 1] = literal;
+        }
+        return configuration;
+    }
+}
@@ -46,12 +46,34 @@ public class TWiseConfiguration extends SortedIntegerList {
 
     protected int countLiterals, rank = 0;
 
+    /**
+     * Id within the {@link CoverageIndex} of the util or -1, if the
+     * configuration is not registered.
+     */
+    protected int id = -1;
+
     protected final int numberOfVariableLiterals;
     protected final TWiseConfigurationUtil util;
-    protected Traverser traverser;
+    /**
+     * Visitor for the traverser of the current thread (see
+     * {@link TWiseConfigurationUtil#getTraverser()}) or {@code null}, if no MIG
+     * is used.
+     */
     protected Visitor<?> visitor;
 
+    /**
+     * Whether {@link #integers}, {@link #solutionLiterals}, and
+     * {@link #solverSolutionIndex} are shared with a copy of this configuration
+     * and must be copied before they are modified.
+     */
+    private boolean copyOnWrite = false;
+
     protected VecInt solverSolutionIndex = new VecInt();
+    /**
+     * Number of pool solutions already considered in {@link #solverSolutionIndex}.
+     * Only relevant if the util is in parallel mode.
+     */
+    protected long solverSolutionCount = 0;
 
     private class DPVisitor extends DefaultVisitor {
 
@@ -73,6 +95,7 @@ public class TWiseConfiguration extends SortedIntegerList {
                 final SAT4JSolutionSolver solver = util.getSolver();
                 setUpSolver(solver);
                 solver.setSelectionStrategy(ISelectionStrategy.original());
+                util.countSolverCall();
                 switch (solver.hasSolution()) {
                     case FALSE:
                         return VisitResult.Cancel;
@@ -88,6 +111,7 @@ public class TWiseConfiguration extends SortedIntegerList {
                 }
                 if (unknownValues != null) {
                     solver.setSelectionStrategy(ISelectionStrategy.inverse(unknownValues));
+                    util.countSolverCall();
                     solver.hasSolution();
                     final int[] model2 = solver.getInternalSolution();
                     util.addSolverSolution(Arrays.copyOf(model2, model2.length));
@@ -113,6 +137,7 @@ public class TWiseConfiguration extends SortedIntegerList {
             if (unknownValues[i] == curLiteral) {
                 final SAT4JSolutionSolver solver = util.getSolver();
                 solver.getAssignment().add(-curLiteral);
+                util.countSolverCall();
                 switch (solver.hasSolution()) {
                     case FALSE:
                         solver.getAssignment().replaceLast(curLiteral);
@@ -147,64 +172,72 @@ public class TWiseConfiguration extends SortedIntegerList {
             numberOfVariableLiterals = integers.length - countLiterals;
             solutionLiterals = new VecInt(numberOfVariableLiterals);
             countLiterals = 0;
-            if (util.hasMig()) {
-                traverser = new Traverser(util.getMig());
-                traverser.setModel(integers);
-                visitor = new DefaultVisitor() {
-                    @Override
-                    public VisitResult visitStrong(int curLiteral) {
-                        addLiteral(curLiteral);
-                        return super.visitStrong(curLiteral);
-                    }
-                };
-            } else {
-                traverser = null;
-                visitor = null;
-            }
+            visitor = util.hasMig() ? new LiteralVisitor() : null;
         } else {
-            traverser = null;
             visitor = null;
             numberOfVariableLiterals = integers.length - countLiterals;
             solutionLiterals = new VecInt(numberOfVariableLiterals);
         }
     }
 
+    /**
+     * Creates a copy of the given configuration. Both configurations share
+     * their literals until one of them is modified.
+     *
+     * @param other the configuration to copy
+     */
     public TWiseConfiguration(TWiseConfiguration other) {
-        super(other);
+        super(other.integers, Order.INDEX, false);
         util = other.util;
 
         numberOfVariableLiterals = other.numberOfVariableLiterals;
+        solutionLiterals = other.solutionLiterals;
         solverSolutionIndex = other.solverSolutionIndex;
+        solverSolutionCount = other.solverSolutionCount;
         countLiterals = other.countLiterals;
         rank = other.rank;
+        visitor = (util.hasSolver() && util.hasMig()) ? new LiteralVisitor() : null;
 
-        if (util.hasSolver()) {
-            if (other.solutionLiterals != null) {
-                solutionLiterals = new VecInt(numberOfVariableLiterals);
-                other.solutionLiterals.copyTo(solutionLiterals);
-            }
-            if (util.hasMig()) {
-                traverser = new Traverser(util.getMig());
-                traverser.setModel(integers);
+        other.copyOnWrite = true;
+        copyOnWrite = true;
+    }
 
-                visitor = new DefaultVisitor() {
+    @Override
+    public TWiseConfiguration clone() {
+        return new TWiseConfiguration(this);
+    }
 
-                    @Override
-                    public VisitResult visitStrong(int curLiteral) {
-                        addLiteral(curLiteral);
-                        return super.visitStrong(curLiteral);
-                    }
-                };
-            } else {
-                traverser = null;
-                visitor = null;
+    private class LiteralVisitor extends DefaultVisitor {
+        @Override
+        public VisitResult visitStrong(int curLiteral) {
+            addLiteral(curLiteral);
+            return super.visitStrong(curLiteral);
+        }
+    }
+
+    private void ensureWritable() {
+        if (copyOnWrite) {
+            integers = Arrays.copyOf(integers, integers.length);
+            if (solutionLiterals != null) {
+                final VecInt literals = new VecInt(numberOfVariableLiterals);
+                solutionLiterals.copyTo(literals);
+                solutionLiterals = literals;
             }
-        } else {
-            traverser = null;
-            visitor = null;
+            if (solverSolutionIndex != null) {
+                final VecInt index = new VecInt(Math.max(1, solverSolutionIndex.size()));
+                solverSolutionIndex.copyTo(index);
+                solverSolutionIndex = index;
+            }
+            copyOnWrite = false;
         }
     }
 
+    private Traverser getTraverser() {
+        final Traverser traverser = util.getTraverser();
+        traverser.setModel(integers);
+        return traverser;
+    }
+
     private void addLiteral(int curLiteral) {
         newLiteral(curLiteral);
     }
@@ -212,19 +245,25 @@ public class TWiseConfiguration extends SortedIntegerList {
     private void newLiteral(int curLiteral) {
         countLiterals++;
         solutionLiterals.push(curLiteral);
+        if (id >= 0) {
+            util.coverageIndex.set(id, curLiteral);
+        }
         final int k = Math.abs(curLiteral) - 1;
 
         for (int i = 0; i < solverSolutionIndex.size(); i++) {
-            if (util.getSolverSolution(solverSolutionIndex.get(i)).getIntegers()[k] == -curLiteral) {
+            final SortedIntegerList solution = util.getSolverSolution(this, solverSolutionIndex.get(i));
+            if ((solution == null) || (solution.getIntegers()[k] == -curLiteral)) {
                 solverSolutionIndex.delete(i--);
             }
         }
     }
 
     public void setLiteral(int literal) {
-        if (traverser != null) {
+        ensureWritable();
+        if (visitor != null) {
+            final Traverser traverser = getTraverser();
             traverser.setVisitor(visitor);
-            traverser.traverseStrong(integers);
+            traverser.traverseStrong(literal);
         } else {
             final int i = Math.abs(literal) - 1;
             if (integers[i] == 0) {
@@ -235,7 +274,9 @@ public class TWiseConfiguration extends SortedIntegerList {
     }
 
     public void setLiteral(int... literals) {
-        if (traverser != null) {
+        ensureWritable();
+        if (visitor != null) {
+            final Traverser traverser = getTraverser();
             traverser.setVisitor(visitor);
             traverser.traverseStrong(literals);
         } else {
@@ -250,29 +291,36 @@ public class TWiseConfiguration extends SortedIntegerList {
     }
 
     public void propagation() {
+        ensureWritable();
         final SAT4JSolutionSolver solver = util.getSolver();
         final int orgAssignmentSize;
-        if (traverser != null) {
+        if (visitor != null) {
             final DPVisitor visitor = new DPVisitor();
 
             final int[] literals = Arrays.copyOf(solutionLiterals.toArray(), solutionLiterals.size());
             for (int i = 0, length = literals.length; i < length; i++) {
                 this.integers[Math.abs(literals[i]) - 1] = 0;
+                if (id >= 0) {
+                    util.coverageIndex.unset(id, literals[i]);
+                }
             }
             solutionLiterals.clear();
             countLiterals = 0;
 
             orgAssignmentSize = solver.getAssignment().size();
+            final Traverser traverser = getTraverser();
             traverser.setVisitor(visitor);
             traverser.traverse(literals);
         } else {
             orgAssignmentSize = setUpSolver(solver);
 
             solver.setSelectionStrategy(ISelectionStrategy.original());
+            util.countSolverCall();
             final int[] firstSolution = solver.findSolution().getLiterals();
             if (firstSolution != null) {
                 util.addSolverSolution(Arrays.copyOf(firstSolution, firstSolution.length));
                 solver.setSelectionStrategy(ISelectionStrategy.inverse(firstSolution));
+                util.countSolverCall();
                 util.getSolver().hasSolution();
                 final int[] secondSolution = util.getSolver().getInternalSolution();
                 util.addSolverSolution(Arrays.copyOf(secondSolution, secondSolution.length));
@@ -288,6 +336,7 @@ public class TWiseConfiguration extends SortedIntegerList {
                     final int varX = firstSolution[i];
                     if (varX != 0) {
                         solver.getAssignment().add(-varX);
+                        util.countSolverCall();
                         switch (solver.hasSolution()) {
                             case FALSE:
                                 solver.getAssignment().replaceLast(varX);
@@ -313,7 +362,6 @@ public class TWiseConfiguration extends SortedIntegerList {
     }
 
     public void clear() {
-        traverser = null;
         visitor = null;
         solutionLiterals = null;
         solverSolutionIndex = null;
@@ -329,11 +377,15 @@ public class TWiseConfiguration extends SortedIntegerList {
 
     public void autoComplete() {
         if (!isComplete()) {
+            ensureWritable();
             if (util.hasSolver()) {
-                if (solverSolutionIndex.isEmpty()) {
+                syncSolverSolutions();
+                final int[] solverSolution = getLastSolverSolution();
+                if (solverSolution == null) {
                     final SAT4JSolutionSolver solver = util.getSolver();
                     final int orgAssignmentSize = setUpSolver(solver);
                     try {
+                        util.countSolverCall();
                         if (solver.hasSolution() == SATSolver.Result.TRUE) {
                             System.arraycopy(solver.getInternalSolution(), 0, integers, 0, integers.length);
                         }
@@ -341,12 +393,7 @@ public class TWiseConfiguration extends SortedIntegerList {
                         solver.getAssignment().clear(orgAssignmentSize);
                     }
                 } else {
-                    System.arraycopy(
-                            util.getSolverSolution(solverSolutionIndex.last()).getIntegers(),
-                            0,
-                            integers,
-                            0,
-                            integers.length);
+                    System.arraycopy(solverSolution, 0, integers, 0, integers.length);
                     solverSolutionIndex.clear();
                 }
             } else {
@@ -357,6 +404,9 @@ public class TWiseConfiguration extends SortedIntegerList {
                 }
             }
             countLiterals = numberOfVariableLiterals;
+            if (id >= 0) {
+                util.coverageIndex.setAll(id, integers);
+            }
         }
     }
 
@@ -366,10 +416,13 @@ public class TWiseConfiguration extends SortedIntegerList {
         } else {
             final int[] s;
             if (util.hasSolver()) {
-                if (solverSolutionIndex.isEmpty()) {
+                syncSolverSolutions();
+                final int[] solverSolution = getLastSolverSolution();
+                if (solverSolution == null) {
                     final SAT4JSolutionSolver solver = util.getSolver();
                     final int orgAssignmentSize = setUpSolver(solver);
                     try {
+                        util.countSolverCall();
                         final SATSolver.Result<Boolean> Result<Boolean> = solver.hasSolution();
                         switch (Result<Boolean>) {
                             case FALSE:
@@ -386,10 +439,7 @@ public class TWiseConfiguration extends SortedIntegerList {
                         solver.getAssignment().clear(orgAssignmentSize);
                     }
                 } else {
-                    s = util.getSolverSolution(solverSolutionIndex.last()).getIntegers();
-                    if (s == null) {
-                        throw new RuntimeException();
-                    }
+                    s = solverSolution;
                 }
             } else {
                 s = Arrays.copyOf(integers, integers.length);
@@ -409,6 +459,7 @@ public class TWiseConfiguration extends SortedIntegerList {
         final int orgAssignmentSize = setUpSolver(solver);
         try {
             for (int i = 0; i < count; i++) {
+                util.countSolverCall();
                 solver.hasSolution();
                 final int[] randomSolution = solver.getInternalSolution();
                 util.addSolverSolution(Arrays.copyOf(randomSolution, randomSolution.length));
@@ -425,6 +476,7 @@ public class TWiseConfiguration extends SortedIntegerList {
         final int orgAssignmentSize = setUpSolver(solver);
         solver.setSelectionStrategy(ISelectionStrategy.original());
         try {
+            util.countSolverCall();
             return solver.hasSolution() == SATSolver.Result.TRUE;
         } finally {
             solver.getAssignment().clear(orgAssignmentSize);
@@ -453,29 +505,19 @@ public class TWiseConfiguration extends SortedIntegerList {
 
     public void updateSolverSolutions() {
         if (util.hasSolver() && (solutionLiterals != null)) {
-            solverSolutionIndex.clear();
-            final int[] array = solutionLiterals.toArray();
-            final SortedIntegerList[] solverSolutions = util.getSolverSolutions();
-            solutionLoop:
-            for (int i = 0; i < solverSolutions.length; i++) {
-                final SortedIntegerList solverSolution = solverSolutions[i];
-                if (solverSolution == null) {
-                    break;
-                }
-                final int[] solverSolutionLiterals = solverSolution.getIntegers();
-                for (int j = 0, length = solutionLiterals.size(); j < length; j++) {
-                    final int k = Math.abs(array[j]) - 1;
-                    if (solverSolutionLiterals[k] == -integers[k]) {
-                        continue solutionLoop;
-                    }
-                }
-                solverSolutionIndex.push(i);
+            if (copyOnWrite) {
+                solverSolutionIndex = new VecInt();
+                ensureWritable();
             }
+            solverSolutionIndex.clear();
+            solverSolutionCount = util.findSolverSolutions(
+                    Arrays.copyOf(solutionLiterals.toArray(), solutionLiterals.size()), solverSolutionIndex);
         }
     }
 
     public void updateSolverSolutions(int[] solverSolution, int index) {
         if (solverSolutionIndex != null) {
+            ensureWritable();
             for (int i = 0; i < solverSolutionIndex.size(); i++) {
                 if (solverSolutionIndex.get(i) == index) {
                     solverSolutionIndex.delete(i);
@@ -493,10 +535,36 @@ public class TWiseConfiguration extends SortedIntegerList {
         }
     }
 
+    /**
+     * Returns the solution of the last valid entry of the solution index.
+     * Entries whose slot was reused by the solution pool in the meantime are
+     * removed.
+     *
+     * @return the solution literals or {@code null} if there is no valid entry
+     */
+    private int[] getLastSolverSolution() {
+        while (!solverSolutionIndex.isEmpty()) {
+            final SortedIntegerList solution = util.getSolverSolution(this, solverSolutionIndex.last());
+            if (solution != null) {
+                return solution.getIntegers();
+            }
+            ensureWritable();
+            solverSolutionIndex.pop();
+        }
+        return null;
+    }
+
     public VecInt getSolverSolutionIndex() {
+        syncSolverSolutions();
         return solverSolutionIndex;
     }
 
+    private void syncSolverSolutions() {
+        if (util.isParallel() && (solverSolutionIndex != null)) {
+            util.syncSolverSolutions(this);
+        }
+    }
+
 //    @Override
 //    public int hashCode() {
 //        return Arrays.hashCode(integers);
@@ -23,14 +23,24 @@ package de.featjar.formula.analysis.sat4j.todo.twise;
 import de.featjar.formula.analysis.todo.mig.solver.ModalImplicationGraph;
 import de.featjar.formula.analysis.sat4j.todo.configuration.AbstractConfigurationGenerator;
 import de.featjar.formula.analysis.sat4j.solver.ISelectionStrategy;
+import de.featjar.formula.analysis.sat4j.solver.SAT4JSolutionSolver;
 import de.featjar.formula.analysis.bool.ABooleanAssignmentList;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * YASA sampling algorithm. Generates configurations for a given propositional
@@ -55,6 +65,14 @@ public class TWiseConfigurationGenerator extends AbstractConfigurationGenerator
         SINGLE
     }
 
+    /**
+     * Strategy to cover a combination within the current sample.
+     */
+    public enum Cover {
+        ALL,
+        MIG_GUIDED
+    }
+
     /**
      * Converts a set of single literals into a grouped expression list.
      *
@@ -94,15 +112,33 @@ public class TWiseConfigurationGenerator extends AbstractConfigurationGenerator
     public static final int DEFAULT_ITERATIONS = 5;
     public static final int DEFAULT_RANDOM_SAMPLE_SIZE = 100;
     public static final int DEFAULT_LOG_FREQUENCY = 60_000;
+    public static final int DEFAULT_CHUNK_SIZE = 256;
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 600_000;
+    public static final int DEFAULT_CHECKPOINT_SOLUTION_LIMIT = 1_000;
 
     // TODO Variation Point: Iterations of removing low-contributing Configurations
     private int iterations = DEFAULT_ITERATIONS;
     private int randomSampleSize = DEFAULT_RANDOM_SAMPLE_SIZE;
     private int logFrequency = DEFAULT_LOG_FREQUENCY;
     private boolean useMig = true;
+    private boolean useStrongClosure = false;
     private ModalImplicationGraph modalImplicationGraph;
     private Deduce createConfigurationDeduce = Deduce.DP;
     private Deduce extendConfigurationDeduce = Deduce.NONE;
+    private Cover coverStrategy = Cover.ALL;
+    private int satBudget = CoverMIGGuided.DEFAULT_SAT_BUDGET;
+    private int threadCount = 1;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private Path checkpointPath = null;
+    private boolean resume = false;
+    private long checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+    private int checkpointSolutionLimit = DEFAULT_CHECKPOINT_SOLUTION_LIMIT;
+    private volatile long lastCheckpointTime;
+    private long modelHash;
+    private int iteration;
+    private List<List<PresenceCondition>> initialPresenceConditions;
+    private ITWiseSampleListener sampleListener = null;
+    private Path invalidCombinationStoreDirectory = null;
 
     protected TWiseConfigurationUtil util;
     protected TWiseCombiner combiner;
@@ -112,7 +148,13 @@ public class TWiseConfigurationGenerator extends AbstractConfigurationGenerator
     protected List<List<ABooleanAssignmentList>> nodes;
     protected PresenceConditionManager presenceConditionManager;
 
-    protected long numberOfCombinations, count, coveredCount, invalidCount;
+    protected long numberOfCombinations;
+    // updated by all workers in parallel mode
+    protected final AtomicLong count = new AtomicLong();
+    protected final AtomicLong coveredCount = new AtomicLong();
+    protected final AtomicLong invalidCount = new AtomicLong();
+    private double coverageEstimate;
+    protected long strategySolverCallCount, strategyCoveredCount;
     protected int phaseCount;
 
     private List<TWiseConfiguration> curResult = null;
@@ -176,6 +218,7 @@ public class TWiseConfigurationGenerator extends AbstractConfigurationGenerator
         util.setRandom(random);
         util.setCreateConfigurationDeduce(createConfigurationDeduce);
         util.setExtendConfigurationDeduce(extendConfigurationDeduce);
+        util.setParallel(threadCount > 1);
 
         FeatJAR.log().debug("Compute random sample... ");
 
@@ -187,6 +230,21 @@ public class TWiseConfigurationGenerator extends AbstractConfigurationGenerator
                 } else {
                     util.computeMIG(false, false);
                 }
+                if (useStrongClosure || (coverStrategy == Cover.MIG_GUIDED)) {
+                    util.computeStrongClosure();
+                }
+            }
+        }
+
+        if (checkpointPath != null) {
+            modelHash = InvalidCombinationStore.computeModelHash(cnf);
+        }
+
+        if (invalidCombinationStoreDirectory != null) {
+            try {
+                util.setInvalidCombinationStore(InvalidCombinationStore.open(invalidCombinationStoreDirectory, cnf, t));
+            } catch (final IOException e) {
+                FeatJAR.log().error(e);
             }
         }
 
@@ -194,10 +252,16 @@ public class TWiseConfigurationGenerator extends AbstractConfigurationGenerator
 
         // TODO Variation Point: Sorting Nodes
         presenceConditionManager = new PresenceConditionManager(util, nodes);
+        initialPresenceConditions = new ArrayList<>();
+        for (final List<PresenceCondition> group : presenceConditionManager.getGroupedPresenceConditions()) {
+            initialPresenceConditions.add(new ArrayList<>(group));
+        }
         // TODO Variation Point: Building Combinations
         combiner = new TWiseCombiner(cnf.getVariableMap().getVariableCount());
 
         phaseCount = 0;
+        strategySolverCallCount = 0;
+        strategyCoveredCount = 0;
 
         //		memoryMonitor = new UpdateThread(new MemoryMonitor(), 1);
         //		memoryMonitor.start();
@@ -206,12 +270,43 @@ public class TWiseConfigurationGenerator extends AbstractConfigurationGenerator
         //			samplingMonitor.start();
         //		}
         try {
-            for (int i = 0; i < iterations; i++) {
-                trimConfigurations();
-                buildCombinations();
+            TWiseCheckpoint checkpoint = resume ? readCheckpoint() : null;
+            int firstIteration = 0;
+            if (checkpoint != null) {
+                restoreCheckpoint(checkpoint);
+                firstIteration = checkpoint.iteration;
+                if (!checkpoint.started) {
+                    checkpoint = null;
+                }
+            }
+            lastCheckpointTime = System.currentTimeMillis();
+            final int iterations;
+            if (sampleListener != null) {
+                // later iterations could remove configurations that were already emitted
+                iterations = 1;
+                util.setCompletionListener(this::emitConfiguration);
+            } else {
+                iterations = this.iterations;
+            }
+            for (iteration = firstIteration; iteration < iterations; iteration++) {
+                if (checkpoint == null) {
+                    trimConfigurations();
+                }
+                buildCombinations(checkpoint);
+                checkpoint = null;
+                if (checkpointPath != null) {
+                    writeCheckpoint(iteration + 1, false);
+                }
+            }
+            if (sampleListener != null) {
+                util.setCompletionListener(null);
+                for (final TWiseConfiguration configuration : util.getIncompleteSolutionList()) {
+                    emitConfiguration(configuration);
+                }
             }
             Collections.reverse(bestResult);
         } finally {
+            closeInvalidCombinationStore();
             //			memoryMonitor.finish();
             if (TWiseConfigurationGenerator.VERBOSE) {
                 samplingMonitor.interrupt();
@@ -243,29 +338,42 @@ public class TWiseConfigurationGenerator extends AbstractConfigurationGenerator
             int index = 0;
             index = removeSolutions(normConfigValues, reference, index, util.getIncompleteSolutionList());
             index = removeSolutions(normConfigValues, reference, index, util.getCompleteSolutionList());
+            util.rebuildCoverageIndex();
         }
     }
 
     private int removeSolutions(
             double[] values, final double reference, int index, List<TWiseConfiguration> solutionList) {
-        for (final Iterator<TWiseConfiguration> iterator = solutionList.iterator(); iterator.hasNext(); ) {
-            iterator.next();
-            if (values[index++] < reference) {
-                iterator.remove();
+        final List<TWiseConfiguration> remainingSolutions = new ArrayList<>(solutionList.size());
+        for (final TWiseConfiguration solution : solutionList) {
+            if (values[index++] >= reference) {
+                remainingSolutions.add(solution);
             }
         }
+        solutionList.clear();
+        solutionList.addAll(remainingSolutions);
         return index;
     }
 
-    private void buildCombinations() {
+    /**
+     * Covers all combinations of presence conditions.
+     *
+     * @param checkpoint a checkpoint from within the current iteration or
+     *            {@code null}. If given, the order of presence conditions is
+     *            kept and all combinations processed before the checkpoint are
+     *            skipped.
+     */
+    private void buildCombinations(TWiseCheckpoint checkpoint) {
         // TODO Variation Point: Cover Strategies
         final List<? extends ICoverStrategy> phaseList = Arrays.asList( //
-                new CoverAll(util) //
+                createCoverStrategy() //
                 );
 
         // TODO Variation Point: Combination order
         final ICombinationSupplier<ABooleanAssignmentList> it;
-        presenceConditionManager.shuffleSort(random);
+        if (checkpoint == null) {
+            presenceConditionManager.shuffleSort(random);
+        }
         final List<List<PresenceCondition>> groupedPresenceConditions =
                 presenceConditionManager.getGroupedPresenceConditions();
         if (groupedPresenceConditions.size() == 1) {
@@ -276,11 +384,29 @@ public class TWiseConfigurationGenerator extends AbstractConfigurationGenerator
         }
         numberOfCombinations = it.size();
 
-        coveredCount = 0;
-        invalidCount = 0;
+        coveredCount.set(0);
+        invalidCount.set(0);
+        count.set(0);
+        resetCoverageEstimate();
+        if (checkpoint != null) {
+            for (long i = 0; i < checkpoint.count; i++) {
+                if (it.get() == null) {
+                    break;
+                }
+            }
+            count.set(checkpoint.count);
+            coveredCount.set(checkpoint.coveredCount);
+            invalidCount.set(checkpoint.invalidCount);
+        }
+
+        if (threadCount > 1) {
+            phaseCount++;
+            buildCombinationsParallel(it);
+            updateResult();
+            return;
+        }
 
         final List<ABooleanAssignmentList> combinationListUncovered = new ArrayList<>();
-        count = coveredCount;
         phaseCount++;
         ICoverStrategy phase = phaseList.get(0);
         while (true) {
@@ -289,7 +415,7 @@ public class TWiseConfigurationGenerator extends AbstractConfigurationGenerator
                 break;
             }
             if (combinedCondition.isEmpty()) {
-                invalidCount++;
+                invalidCount.incrementAndGet();
             } else {
                 final ICoverStrategy.CombinationStatus covered = phase.cover(combinedCondition);
                 switch (covered) {
@@ -297,11 +423,11 @@ public class TWiseConfigurationGenerator extends AbstractConfigurationGenerator
                         combinationListUncovered.add(combinedCondition);
                         break;
                     case COVERED:
-                        coveredCount++;
+                        coveredCount.incrementAndGet();
                         combinedCondition.clear();
                         break;
                     case INVALID:
-                        invalidCount++;
+                        invalidCount.incrementAndGet();
                         combinedCondition.clear();
                         break;
                     default:
@@ -309,44 +435,385 @@ public class TWiseConfigurationGenerator extends AbstractConfigurationGenerator
                         break;
                 }
             }
-            count++;
+            final long processedCount = count.incrementAndGet();
+            if ((checkpointPath != null)
+                    && ((processedCount & 0x3FF) == 0)
+                    && ((System.currentTimeMillis() - lastCheckpointTime) >= checkpointInterval)) {
+                writeCheckpoint(iteration, true);
+            }
         }
 
         int coveredIndex = -1;
         for (int j = 1; j < phaseList.size(); j++) {
             phaseCount++;
             phase = phaseList.get(j);
-            count = coveredCount + invalidCount;
+            count.set(coveredCount.get() + invalidCount.get());
             for (int i = coveredIndex + 1; i < combinationListUncovered.size(); i++) {
                 final ABooleanAssignmentList combination = combinationListUncovered.get(i);
                 final ICoverStrategy.CombinationStatus covered = phase.cover(combination);
                 switch (covered) {
                     case COVERED:
                         Collections.swap(combinationListUncovered, i, ++coveredIndex);
-                        coveredCount++;
+                        coveredCount.incrementAndGet();
                         break;
                     case NOT_COVERED:
                         break;
                     case INVALID:
                         Collections.swap(combinationListUncovered, i, ++coveredIndex);
-                        invalidCount++;
+                        invalidCount.incrementAndGet();
                         break;
                     default:
                         break;
                 }
-                count++;
+                count.incrementAndGet();
             }
         }
 
+        phaseList.forEach(this::collectStrategyStatistics);
+        updateResult();
+    }
+
+    private ICoverStrategy createCoverStrategy() {
+        switch (coverStrategy) {
+            case MIG_GUIDED:
+                return new CoverMIGGuided(util, satBudget);
+            case ALL:
+            default:
+                return new CoverAll(util);
+        }
+    }
+
+    private synchronized void collectStrategyStatistics(ICoverStrategy phase) {
+        if (phase instanceof CoverMIGGuided) {
+            final CoverMIGGuided migGuided = (CoverMIGGuided) phase;
+            strategySolverCallCount += migGuided.getSolverCallCount();
+            strategyCoveredCount += migGuided.getCoveredCount();
+            FeatJAR.log()
+                    .debug("Solver calls per covered combination: " + migGuided.getSolverCallsPerCoveredCombination()
+                            + " (already covered: " + migGuided.getAlreadyCoveredCount()
+                            + ", pruned candidates: " + migGuided.getPrunedCount() + ")");
+        }
+    }
+
+    /**
+     * Returns the average number of solver calls per covered combination over
+     * all iterations. Only tracked for the {@link Cover#MIG_GUIDED MIG-guided}
+     * cover strategy.
+     *
+     * @return the number of solver calls per covered combination
+     */
+    public double getSolverCallsPerCoveredCombination() {
+        return strategyCoveredCount == 0 ? 0 : (double) strategySolverCallCount / strategyCoveredCount;
+    }
+
+    private void updateResult() {
         curResult = util.getResultList();
         if ((bestResult == null) || (bestResult.size() > curResult.size())) {
             bestResult = new ArrayList<>(curResult.size());
             curResult.stream().map(TWiseConfiguration::clone).forEach(bestResult::add);
         }
+        FeatJAR.log()
+                .debug("Sample size " + curResult.size() + " (best " + bestResult.size() + ") with " + threadCount
+                        + (threadCount > 1 ? " threads" : " thread"));
+    }
+
+    /**
+     * Tracks the chunks of the parallel build that are done. Chunks are taken
+     * in the order of the combination supplier, but may finish in any order.
+     * Only the longest prefix of finished chunks counts as processed, so a
+     * checkpoint never skips a combination that is still being covered.
+     */
+    private static final class ChunkProgress {
+
+        private final TreeMap<Long, long[]> finishedChunks = new TreeMap<>();
+        private long taken, count, coveredCount, invalidCount;
+
+        private ChunkProgress(long count, long coveredCount, long invalidCount) {
+            taken = count;
+            this.count = count;
+            this.coveredCount = coveredCount;
+            this.invalidCount = invalidCount;
+        }
+
+        private synchronized long take(int size) {
+            final long start = taken;
+            taken += size;
+            return start;
+        }
+
+        private synchronized boolean finish(long start, int size, long coveredCount, long invalidCount) {
+            finishedChunks.put(start, new long[] {size, coveredCount, invalidCount});
+            boolean advanced = false;
+            for (long[] chunk = finishedChunks.remove(count); chunk != null; chunk = finishedChunks.remove(count)) {
+                count += chunk[0];
+                this.coveredCount += chunk[1];
+                this.invalidCount += chunk[2];
+                advanced = true;
+            }
+            return advanced;
+        }
+    }
+
+    /**
+     * Covers all combinations of the given supplier using {@link #threadCount}
+     * workers. Each worker takes chunks of {@link #chunkSize} combinations from
+     * the supplier and covers them with its own solver against the shared list
+     * of partial configurations. Configurations are locked individually while a
+     * worker extends them. If a checkpoint path is set, checkpoints are written
+     * at chunk boundaries.
+     *
+     * @param it the combination supplier
+     */
+    private void buildCombinationsParallel(ICombinationSupplier<ABooleanAssignmentList> it) {
+        final ChunkProgress progress = new ChunkProgress(count.get(), coveredCount.get(), invalidCount.get());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            final List<Future<?>> futures = new ArrayList<>(threadCount);
+            for (int i = 0; i < threadCount; i++) {
+                final SAT4JSolutionSolver workerSolver =
+                        util.hasSolver() ? util.createWorkerSolver(new Random(random.nextLong())) : null;
+                futures.add(executor.submit(() -> {
+                    util.setWorkerSolver(workerSolver);
+                    final ICoverStrategy phase = createCoverStrategy();
+                    try {
+                        final List<ABooleanAssignmentList> chunk = new ArrayList<>(chunkSize);
+                        for (long chunkStart = nextChunk(it, chunk, progress);
+                                chunkStart >= 0;
+                                chunkStart = nextChunk(it, chunk, progress)) {
+                            long chunkCoveredCount = 0;
+                            long chunkInvalidCount = 0;
+                            for (final ABooleanAssignmentList combinedCondition : chunk) {
+                                if (combinedCondition.isEmpty()) {
+                                    chunkInvalidCount++;
+                                } else {
+                                    switch (phase.cover(combinedCondition)) {
+                                        case COVERED:
+                                            chunkCoveredCount++;
+                                            break;
+                                        case INVALID:
+                                            chunkInvalidCount++;
+                                            break;
+                                        default:
+                                            break;
+                                    }
+                                    combinedCondition.clear();
+                                }
+                            }
+                            coveredCount.addAndGet(chunkCoveredCount);
+                            invalidCount.addAndGet(chunkInvalidCount);
+                            count.addAndGet(chunk.size());
+                            if (progress.finish(chunkStart, chunk.size(), chunkCoveredCount, chunkInvalidCount)) {
+                                writeChunkCheckpoint(progress);
+                            }
+                            chunk.clear();
+                        }
+                    } finally {
+                        collectStrategyStatistics(phase);
+                        util.setWorkerSolver(null);
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (final ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Takes the next chunk of combinations from the supplier.
+     *
+     * @param it the combination supplier
+     * @param chunk the list to which the combinations are added
+     * @param progress the progress of the parallel build
+     * @return the position of the first combination of the chunk within the
+     *         supplier or -1, if the supplier is exhausted
+     */
+    private long nextChunk(
+            ICombinationSupplier<ABooleanAssignmentList> it,
+            List<ABooleanAssignmentList> chunk,
+            ChunkProgress progress) {
+        synchronized (it) {
+            for (int i = 0; i < chunkSize; i++) {
+                final ABooleanAssignmentList combinedCondition = it.get();
+                if (combinedCondition == null) {
+                    break;
+                }
+                chunk.add(combinedCondition);
+            }
+            return chunk.isEmpty() ? -1 : progress.take(chunk.size());
+        }
+    }
+
+    private void writeChunkCheckpoint(ChunkProgress progress) {
+        if ((checkpointPath != null) && ((System.currentTimeMillis() - lastCheckpointTime) >= checkpointInterval)) {
+            synchronized (progress) {
+                if ((System.currentTimeMillis() - lastCheckpointTime) >= checkpointInterval) {
+                    writeCheckpoint(
+                            iteration, true, progress.count, progress.coveredCount, progress.invalidCount);
+                    // avoids rewriting a checkpoint that fails repeatedly after every chunk
+                    lastCheckpointTime = System.currentTimeMillis();
+                }
+            }
+        }
+    }
+
+    private void closeInvalidCombinationStore() {
+        final InvalidCombinationStore store = util.getInvalidCombinationStore();
+        if (store != null) {
+            util.setInvalidCombinationStore(null);
+            try {
+                store.close();
+            } catch (final IOException e) {
+                FeatJAR.log().error(e);
+            }
+        }
+    }
+
+    private synchronized void emitConfiguration(TWiseConfiguration configuration) {
+        sampleListener.onConfiguration(configuration.getCompleteSolution(), getCoverageEstimate());
+    }
+
+    /**
+     * Estimates the t-wise coverage of the current sample. Assumes that the
+     * ratio of invalid combinations among the remaining combinations equals
+     * the ratio among the processed ones. The estimate never decreases within
+     * an iteration, as the counters of parallel workers are not read atomically.
+     *
+     * @return the estimated coverage between 0 and 1
+     */
+    public synchronized double getCoverageEstimate() {
+        final long coveredCount = getCoveredCount();
+        final long invalidCount = getInvalidCount();
+        final long processedCount = getCount();
+        if ((processedCount > 0) && (numberOfCombinations > 0)) {
+            final double validCount = numberOfCombinations * (1 - ((double) invalidCount / processedCount));
+            final double estimate = validCount > 0 ? Math.min(1, coveredCount / validCount) : 1;
+            coverageEstimate = Math.max(coverageEstimate, estimate);
+        }
+        return coverageEstimate;
+    }
+
+    private synchronized void resetCoverageEstimate() {
+        coverageEstimate = 0;
+    }
+
+    private TWiseCheckpoint readCheckpoint() {
+        if (!Files.exists(checkpointPath)) {
+            FeatJAR.log().debug("No checkpoint found at " + checkpointPath);
+            return null;
+        }
+        try {
+            final TWiseCheckpoint checkpoint = TWiseCheckpoint.read(checkpointPath);
+            if ((checkpoint.t != t)
+                    || (checkpoint.variableCount != util.getCnf().getVariableMap().getVariableCount())
+                    || (checkpoint.modelHash != modelHash)
+                    || (checkpoint.presenceConditionOrder.length != initialPresenceConditions.size())) {
+                FeatJAR.log().debug("Checkpoint at " + checkpointPath + " does not match the current input");
+                return null;
+            }
+            FeatJAR.log().debug("Resume from checkpoint " + checkpointPath);
+            return checkpoint;
+        } catch (final IOException e) {
+            FeatJAR.log().error(e);
+            return null;
+        }
+    }
+
+    private void restoreCheckpoint(TWiseCheckpoint checkpoint) {
+        final List<List<PresenceCondition>> groupedPresenceConditions =
+                presenceConditionManager.getGroupedPresenceConditions();
+        for (int i = 0; i < checkpoint.presenceConditionOrder.length; i++) {
+            final List<PresenceCondition> initialGroup = initialPresenceConditions.get(i);
+            final List<PresenceCondition> group = groupedPresenceConditions.get(i);
+            group.clear();
+            for (final int index : checkpoint.presenceConditionOrder[i]) {
+                group.add(initialGroup.get(index));
+            }
+        }
+        for (final int[] solution : checkpoint.solverSolutions) {
+            util.addSolverSolution(solution);
+        }
+        for (final int[] literals : checkpoint.incompleteConfigurations) {
+            util.addConfiguration(util.createConfiguration(literals));
+        }
+        for (final int[] literals : checkpoint.completeConfigurations) {
+            util.addConfiguration(util.createConfiguration(literals));
+        }
+        if (checkpoint.bestResult != null) {
+            bestResult = new ArrayList<>(checkpoint.bestResult.size());
+            for (final int[] literals : checkpoint.bestResult) {
+                bestResult.add(util.createConfiguration(literals));
+            }
+        }
+        curResult = util.getResultList();
+    }
+
+    /**
+     * Writes the current state to the checkpoint file. Errors are logged and do
+     * not abort the sampling.
+     *
+     * @param iteration the iteration to continue with
+     * @param started whether the iteration was already started
+     */
+    private void writeCheckpoint(int iteration, boolean started) {
+        writeCheckpoint(iteration, started, count.get(), coveredCount.get(), invalidCount.get());
+    }
+
+    private void writeCheckpoint(
+            int iteration, boolean started, long count, long coveredCount, long invalidCount) {
+        final TWiseCheckpoint checkpoint = new TWiseCheckpoint();
+        checkpoint.t = t;
+        checkpoint.variableCount = util.getCnf().getVariableMap().getVariableCount();
+        checkpoint.modelHash = modelHash;
+        checkpoint.iteration = iteration;
+        checkpoint.started = started;
+        checkpoint.count = count;
+        checkpoint.coveredCount = coveredCount;
+        checkpoint.invalidCount = invalidCount;
+
+        final List<List<PresenceCondition>> groupedPresenceConditions =
+                presenceConditionManager.getGroupedPresenceConditions();
+        checkpoint.presenceConditionOrder = new int[groupedPresenceConditions.size()][];
+        for (int i = 0; i < checkpoint.presenceConditionOrder.length; i++) {
+            final IdentityHashMap<PresenceCondition, Integer> initialIndex = new IdentityHashMap<>();
+            final List<PresenceCondition> initialGroup = initialPresenceConditions.get(i);
+            for (int j = 0; j < initialGroup.size(); j++) {
+                initialIndex.put(initialGroup.get(j), j);
+            }
+            checkpoint.presenceConditionOrder[i] =
+                    groupedPresenceConditions.get(i).stream().mapToInt(initialIndex::get).toArray();
+        }
+
+        util.copyConfigurations(checkpoint.incompleteConfigurations, checkpoint.completeConfigurations);
+        if (bestResult != null) {
+            checkpoint.bestResult = new ArrayList<>(bestResult.size());
+            for (final TWiseConfiguration configuration : bestResult) {
+                checkpoint.bestResult.add(configuration.getIntegers());
+            }
+        }
+        checkpoint.solverSolutions.addAll(util.getRecentSolverSolutions(checkpointSolutionLimit));
+
+        try {
+            checkpoint.write(checkpointPath);
+            lastCheckpointTime = System.currentTimeMillis();
+        } catch (final IOException e) {
+            FeatJAR.log().error(e);
+        }
     }
 
     public boolean printStatus() {
         if (VERBOSE) {
+            final long invalidCount = getInvalidCount();
+            final long coveredCount = getCoveredCount();
+            final long count = getCount();
             final long uncoveredCount = (numberOfCombinations - coveredCount) - invalidCount;
             final double phaseProgress =
                     ((int) Math.floor((1 - (((double) count) / numberOfCombinations)) * 1000)) / 10.0;
@@ -394,6 +861,33 @@ public class TWiseConfigurationGenerator extends AbstractConfigurationGenerator
         return true;
     }
 
+    /**
+     * Returns the number of processed combinations in the current iteration.
+     *
+     * @return the number of processed combinations
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the number of combinations covered in the current iteration.
+     *
+     * @return the number of covered combinations
+     */
+    public long getCoveredCount() {
+        return coveredCount.get();
+    }
+
+    /**
+     * Returns the number of invalid combinations found in the current iteration.
+     *
+     * @return the number of invalid combinations
+     */
+    public long getInvalidCount() {
+        return invalidCount.get();
+    }
+
     public TWiseConfigurationUtil getUtil() {
         return util;
     }
@@ -422,6 +916,14 @@ public class TWiseConfigurationGenerator extends AbstractConfigurationGenerator
         this.useMig = useMig;
     }
 
+    public boolean isUseStrongClosure() {
+        return useStrongClosure;
+    }
+
+    public void setUseStrongClosure(boolean useStrongClosure) {
+        this.useStrongClosure = useStrongClosure;
+    }
+
     public void setMIG(ModalImplicationGraph modalImplicationGraph) {
         this.modalImplicationGraph = modalImplicationGraph;
     }
@@ -442,6 +944,141 @@ public class TWiseConfigurationGenerator extends AbstractConfigurationGenerator
         this.logFrequency = logFrequency;
     }
 
+    public Path getInvalidCombinationStoreDirectory() {
+        return invalidCombinationStoreDirectory;
+    }
+
+    /**
+     * Sets a directory for persistent {@link InvalidCombinationStore stores} of
+     * invalid combinations, which are shared between runs on the same model.
+     *
+     * @param invalidCombinationStoreDirectory the directory or {@code null}
+     */
+    public void setInvalidCombinationStoreDirectory(Path invalidCombinationStoreDirectory) {
+        this.invalidCombinationStoreDirectory = invalidCombinationStoreDirectory;
+    }
+
+    public ITWiseSampleListener getSampleListener() {
+        return sampleListener;
+    }
+
+    /**
+     * Enables incremental mode. The listener receives each configuration as
+     * soon as it is complete and the remaining ones after all combinations
+     * are covered. In incremental mode, only one iteration is performed, as
+     * subsequent iterations may discard emitted configurations.
+     *
+     * @param sampleListener the listener or {@code null} to disable incremental
+     *            mode
+     */
+    public void setSampleListener(ITWiseSampleListener sampleListener) {
+        this.sampleListener = sampleListener;
+    }
+
+    public Path getCheckpointPath() {
+        return checkpointPath;
+    }
+
+    /**
+     * Sets the file to which the generator state is written periodically and
+     * after each iteration. With a single thread, a checkpoint within an
+     * iteration records all combinations processed so far. With multiple
+     * threads, checkpoints are written at chunk boundaries and only record the
+     * longest prefix of finished chunks, as later chunks may finish before
+     * earlier ones. Resuming restores the configurations and counters of the
+     * checkpoint and skips the recorded prefix of combinations. Combinations of
+     * chunks that finished after the prefix are processed again, but are
+     * usually found to be covered by the restored configurations already.
+     *
+     * @param checkpointPath the checkpoint file or {@code null} to disable
+     *            checkpointing
+     */
+    public void setCheckpointPath(Path checkpointPath) {
+        this.checkpointPath = checkpointPath;
+    }
+
+    /**
+     * Continues sampling from the given checkpoint file, if it exists and
+     * matches the current input, and keeps writing checkpoints to it.
+     * The resumed run is not guaranteed to produce the same sample as an
+     * uninterrupted run, as the state of the random generator is not stored.
+     *
+     * @param checkpointPath the checkpoint file
+     */
+    public void resume(Path checkpointPath) {
+        this.checkpointPath = checkpointPath;
+        resume = true;
+    }
+
+    public long getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * @param checkpointInterval the minimum time between two checkpoints in
+     *            milliseconds
+     */
+    public void setCheckpointInterval(long checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public int getCheckpointSolutionLimit() {
+        return checkpointSolutionLimit;
+    }
+
+    /**
+     * @param checkpointSolutionLimit the maximum number of recent solver
+     *            solutions that are stored in a checkpoint
+     */
+    public void setCheckpointSolutionLimit(int checkpointSolutionLimit) {
+        this.checkpointSolutionLimit = checkpointSolutionLimit;
+    }
+
+    public Cover getCoverStrategy() {
+        return coverStrategy;
+    }
+
+    public void setCoverStrategy(Cover coverStrategy) {
+        this.coverStrategy = coverStrategy;
+    }
+
+    public int getSatBudget() {
+        return satBudget;
+    }
+
+    /**
+     * Sets the maximum number of partial configurations that the
+     * {@link Cover#MIG_GUIDED MIG-guided} cover strategy tries to extend with
+     * the solver before it creates a new configuration for a combination.
+     *
+     * @param satBudget the number of solver calls per combination
+     */
+    public void setSatBudget(int satBudget) {
+        this.satBudget = Math.max(0, satBudget);
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Sets the number of worker threads used for covering combinations. With
+     * more than one thread, each worker uses its own solver instance.
+     *
+     * @param threadCount the number of worker threads
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
     public Deduce getCreateConfigurationDeduce() {
         return createConfigurationDeduce;
     }
@@ -98,7 +98,7 @@ public class TWiseConfigurationTester {
      *         </ul>
      */
     public CoverageStatistic getCoverage() {
-        final List<CoverageStatistic> coveragePerSample = new TWiseStatisticGenerator(util)
+        final List<CoverageStatistic> coveragePerSample = new TWiseStatisticParallelGenerator(util)
                 .getCoverage(
                         Arrays.asList(sample),
                         presenceConditionManager.getGroupedPresenceConditions(),
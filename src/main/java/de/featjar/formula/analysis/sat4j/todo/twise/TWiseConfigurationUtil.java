@@ -24,7 +24,9 @@ import de.featjar.formula.analysis.todo.mig.io.MIGFormat;
 import de.featjar.formula.analysis.todo.mig.solver.ModalImplicationGraph;
 import de.featjar.formula.analysis.todo.mig.solver.MIGBuilder;
 import de.featjar.formula.analysis.todo.mig.solver.RegularMIGBuilder;
+import de.featjar.formula.analysis.todo.mig.solver.StrongClosure;
 import de.featjar.formula.analysis.todo.mig.solver.Vertex;
+import de.featjar.formula.analysis.todo.mig.solver.visitor.Traverser;
 import de.featjar.formula.analysis.sat4j.todo.configuration.FastRandomConfigurationGenerator;
 import de.featjar.formula.analysis.sat4j.solver.ISelectionStrategy;
 import de.featjar.formula.analysis.sat4j.solver.SAT4JSolutionSolver;
@@ -34,17 +36,23 @@ import de.featjar.base.data.Pair;
 import de.featjar.base.io.IO;
 import de.featjar.base.task.Executor;
 import de.featjar.base.log.Log;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 import org.sat4j.core.VecInt;
 
@@ -63,27 +71,47 @@ public class TWiseConfigurationUtil {
     }
 
     public static final int GLOBAL_SOLUTION_LIMIT = 100_000;
+    /**
+     * Memory budget in bytes for the solution pool. Limits the number of stored
+     * solutions for formulas with many variables.
+     */
+    public static long SOLUTION_POOL_MEMORY = 512L << 20;
 
     static final Comparator<Pair<SortedIntegerList, TWiseConfiguration>> candidateLengthComparator =
             new CandidateLengthComparator();
 
-    protected final SortedIntegerList[] solverSolutions = new SortedIntegerList[GLOBAL_SOLUTION_LIMIT];
-    protected final HashSet<SortedIntegerList> solutionSet = new HashSet<>();
+    protected final SolutionPool solutionPool;
     protected Random random = new Random(42);
 
     protected List<SortedIntegerList> randomSample;
 
-    private final List<TWiseConfiguration> incompleteSolutionList = new LinkedList<>();
-    private final List<TWiseConfiguration> completeSolutionList = new ArrayList<>();
-    private final HashSet<SortedIntegerList> invalidSortedIntegerLists = new HashSet<>();
+    private final List<TWiseConfiguration> incompleteSolutionList = new CopyOnWriteArrayList<>();
+    private final List<TWiseConfiguration> completeSolutionList = new CopyOnWriteArrayList<>();
+    private final Set<SortedIntegerList> invalidSortedIntegerLists = ConcurrentHashMap.newKeySet();
     private InvalidClausesList invalidClausesList = InvalidClausesList.None;
+    private InvalidCombinationStore invalidCombinationStore = null;
+
+    /**
+     * Guards structural changes of the solution lists. Readers iterate over
+     * snapshots of the lists and do not need to acquire it.
+     */
+    private final Object solutionListLock = new Object();
+
+    private final ThreadLocal<SAT4JSolutionSolver> workerSolver = new ThreadLocal<>();
+    private final ThreadLocal<long[]> solverCallCount = ThreadLocal.withInitial(() -> new long[1]);
+    private final AtomicLong solverTimeoutCount = new AtomicLong();
+    private boolean parallel = false;
+    private Consumer<TWiseConfiguration> completionListener = null;
 
     protected final CNF cnf;
     protected final SAT4JSolutionSolver localSolver;
     protected final boolean hasSolver;
+    protected final CoverageIndex coverageIndex;
 
     protected ModalImplicationGraph modalImplicationGraph;
+    private ThreadLocal<Traverser> traversers;
     protected SortedIntegerList[] strongHull;
+    protected StrongClosure strongClosure;
     protected SortedIntegerList coreDead;
 
     protected int maxSampleSize = Integer.MAX_VALUE;
@@ -95,6 +123,11 @@ public class TWiseConfigurationUtil {
         this.cnf = cnf;
         this.localSolver = localSolver;
         hasSolver = localSolver != null;
+        final int variableCount = cnf.getVariableMap().getVariableCount();
+        coverageIndex = new CoverageIndex(variableCount);
+        solutionPool = new SolutionPool(
+                variableCount,
+                SolutionPool.getCapacity(variableCount, SOLUTION_POOL_MEMORY, GLOBAL_SOLUTION_LIMIT));
 
         randomSample = Collections.emptyList();
     }
@@ -131,6 +164,9 @@ public class TWiseConfigurationUtil {
     }
 
     private void setupMIG() {
+        strongClosure = null;
+        final ModalImplicationGraph graph = modalImplicationGraph;
+        traversers = ThreadLocal.withInitial(() -> new Traverser(graph));
         strongHull = new SortedIntegerList[modalImplicationGraph.getVertices().size()];
 
         for (final Vertex vertex : modalImplicationGraph.getVertices()) {
@@ -139,6 +175,22 @@ public class TWiseConfigurationUtil {
         }
     }
 
+    /**
+     * Precomputes the transitive closure of the strong edges in the current MIG.
+     * Afterwards, {@link #isCombinationInvalidMIG(SortedIntegerList)} uses bit
+     * lookups instead of scanning the strong hull of each literal.
+     */
+    public void computeStrongClosure() {
+        if (hasMig()) {
+            FeatJAR.log().debug("\tCompute strong closure... ");
+            strongClosure = new StrongClosure(modalImplicationGraph);
+        }
+    }
+
+    public StrongClosure getStrongClosure() {
+        return strongClosure;
+    }
+
     public SortedIntegerList getDeadCoreFeatures() {
         if (coreDead == null) {
             if (hasMig()) {
@@ -214,8 +266,96 @@ public class TWiseConfigurationUtil {
         return cnf;
     }
 
+    /**
+     * Returns the solver bound to the current worker thread or the local
+     * solver, if the current thread is not a worker.
+     *
+     * @return the solver to use in the current thread
+     */
     public SAT4JSolutionSolver getSolver() {
-        return localSolver;
+        final SAT4JSolutionSolver solver = workerSolver.get();
+        return solver != null ? solver : localSolver;
+    }
+
+    /**
+     * Creates a new solver for a worker thread that is set up like the local
+     * solver, i.e., it contains all core and dead features in its assignment.
+     *
+     * @param random the random instance used for the worker's selection strategy
+     * @return a new solver instance
+     */
+    public SAT4JSolutionSolver createWorkerSolver(Random random) {
+        final SAT4JSolutionSolver solver = new SAT4JSolutionSolver(cnf);
+        solver.rememberSolutionHistory(10);
+        solver.setSelectionStrategy(ISelectionStrategy.random(random));
+        final SortedIntegerList coreDead = getDeadCoreFeatures();
+        if (!coreDead.isEmpty()) {
+            solver.getAssignment().addAll(coreDead.getIntegers());
+        }
+        return solver;
+    }
+
+    /**
+     * Binds a solver to the current thread. All subsequent calls of
+     * {@link #getSolver()} from this thread return the given solver.
+     *
+     * @param solver the solver or {@code null} to remove the binding
+     */
+    public void setWorkerSolver(SAT4JSolutionSolver solver) {
+        if (solver == null) {
+            workerSolver.remove();
+        } else {
+            workerSolver.set(solver);
+        }
+    }
+
+    /**
+     * Returns the number of solver calls made by the current thread to check
+     * the validity of combinations or to extend configurations.
+     *
+     * @return the number of solver calls
+     */
+    public long getSolverCallCount() {
+        return solverCallCount.get()[0];
+    }
+
+    /**
+     * Counts a solver call made by the current thread, e.g., while propagating
+     * or completing a {@link TWiseConfiguration configuration}.
+     */
+    public void countSolverCall() {
+        solverCallCount.get()[0]++;
+    }
+
+    /**
+     * Returns the number of validity checks of combinations that were aborted by
+     * a solver timeout. Such combinations are neither considered valid nor
+     * recorded as invalid.
+     *
+     * @return the number of solver timeouts
+     */
+    public long getSolverTimeoutCount() {
+        return solverTimeoutCount.get();
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * In parallel mode, new solver solutions are not pushed to all incomplete
+     * configurations. Instead, each configuration catches up lazily while it is
+     * locked by a worker (see {@link #syncSolverSolutions(TWiseConfiguration)}).
+     *
+     * @param parallel whether multiple workers use this instance concurrently
+     */
+    public void setParallel(boolean parallel) {
+        if (this.parallel && !parallel) {
+            for (final TWiseConfiguration configuration : incompleteSolutionList) {
+                syncSolverSolutions(configuration);
+            }
+        }
+        this.parallel = parallel;
     }
 
     public ModalImplicationGraph getMig() {
@@ -226,6 +366,17 @@ public class TWiseConfigurationUtil {
         return hasSolver;
     }
 
+    /**
+     * Returns the traverser of the current thread. All configurations share one
+     * traverser per thread, which must be set up with the configuration's model
+     * before each traversal.
+     *
+     * @return the traverser for the modal implication graph
+     */
+    public Traverser getTraverser() {
+        return traversers.get();
+    }
+
     public boolean hasMig() {
         return modalImplicationGraph != null;
     }
@@ -234,31 +385,83 @@ public class TWiseConfigurationUtil {
         return random;
     }
 
-    protected int solverSolutionEndIndex = -1;
-
     public void addSolverSolution(int[] literals) {
         final SortedIntegerList solution = new SortedIntegerList(literals, SortedIntegerList.Order.INDEX, false);
-        if (solutionSet.add(solution)) {
-            solverSolutionEndIndex++;
-            solverSolutionEndIndex %= GLOBAL_SOLUTION_LIMIT;
-            final SortedIntegerList oldSolution = solverSolutions[solverSolutionEndIndex];
-            if (oldSolution != null) {
-                solutionSet.remove(oldSolution);
+        final int slot = solutionPool.add(solution);
+        if ((slot >= 0) && !parallel) {
+            for (final TWiseConfiguration configuration : getIncompleteSolutionList()) {
+                configuration.updateSolverSolutions(literals, slot);
             }
-            solverSolutions[solverSolutionEndIndex] = solution;
+        }
+    }
 
-            for (final TWiseConfiguration configuration : getIncompleteSolutionList()) {
-                configuration.updateSolverSolutions(literals, solverSolutionEndIndex);
+    /**
+     * @return the total number of solutions that were added to the solution
+     *         pool so far
+     */
+    public long getSolverSolutionCount() {
+        return solutionPool.getInsertionCount();
+    }
+
+    /**
+     * Updates the solution index of a configuration with all solutions that
+     * were added to the pool since its last update. Must only be called while
+     * the configuration is locked.
+     *
+     * @param configuration the configuration
+     */
+    void syncSolverSolutions(TWiseConfiguration configuration) {
+        final long seen = configuration.solverSolutionCount;
+        if (seen < getSolverSolutionCount()) {
+            final SolutionPool.Insertions insertions = solutionPool.getSince(seen);
+            if (insertions == null) {
+                configuration.updateSolverSolutions();
+            } else {
+                for (int i = 0; i < insertions.slots.length; i++) {
+                    configuration.updateSolverSolutions(insertions.solutions[i].getIntegers(), insertions.slots[i]);
+                }
+                configuration.solverSolutionCount = insertions.insertionCount;
             }
         }
     }
 
+    /**
+     * Collects all solutions in the pool that contain the given literals.
+     *
+     * @param literals the literals
+     * @param result   the list to which the indices of the solutions are added
+     * @return the number of solutions that were added to the pool at the time
+     *         of the query
+     */
+    public long findSolverSolutions(int[] literals, VecInt result) {
+        return solutionPool.findAll(literals, result);
+    }
+
+    /**
+     * Returns the most recent solutions of the solution pool, oldest first.
+     *
+     * @param limit the maximum number of solutions
+     * @return a list of solution literal arrays
+     */
+    public List<int[]> getRecentSolverSolutions(int limit) {
+        return solutionPool.getRecent(limit);
+    }
+
     public SortedIntegerList getSolverSolution(int index) {
-        return solverSolutions[index];
+        return solutionPool.get(index);
     }
 
-    public SortedIntegerList[] getSolverSolutions() {
-        return solverSolutions;
+    /**
+     * Returns a solution from the solution index of a configuration. In parallel
+     * mode, the slot may have been evicted and reused since the configuration
+     * was synchronized with the pool, in which case the index entry is stale.
+     *
+     * @param configuration the configuration, which must be locked
+     * @param index         an entry of the configuration's solution index
+     * @return the solution or {@code null} if the entry is stale
+     */
+    public SortedIntegerList getSolverSolution(TWiseConfiguration configuration, int index) {
+        return parallel ? solutionPool.get(index, configuration.solverSolutionCount) : solutionPool.get(index);
     }
 
     public boolean isCombinationValid(SortedIntegerList literals) {
@@ -269,29 +472,38 @@ public class TWiseConfigurationUtil {
         if (hasSolver()) {
             if (invalidClausesList == InvalidClausesList.Use) {
                 for (final SortedIntegerList literalSet : clauses) {
-                    if (invalidSortedIntegerLists.contains(literalSet)) {
+                    if (invalidSortedIntegerLists.contains(literalSet) || isStoredInvalid(literalSet)) {
                         return false;
                     }
                 }
                 return !clauses.isEmpty();
             }
+            if (invalidCombinationStore != null) {
+                for (final SortedIntegerList literalSet : clauses) {
+                    if (isStoredInvalid(literalSet)) {
+                        return false;
+                    }
+                }
+            }
             if (hasMig()) {
                 for (final SortedIntegerList literalSet : clauses) {
                     if (isCombinationInvalidMIG(literalSet)) {
-                        if (invalidClausesList == InvalidClausesList.Create) {
-                            invalidSortedIntegerLists.add(literalSet);
-                        }
+                        addInvalid(literalSet);
                         return false;
                     }
                 }
             }
             for (final SortedIntegerList literalSet : clauses) {
-                if (isCombinationValidSAT(literalSet)) {
-                    return true;
-                } else {
-                    if (invalidClausesList == InvalidClausesList.Create) {
-                        invalidSortedIntegerLists.add(literalSet);
-                    }
+                switch (checkCombinationSAT(literalSet)) {
+                    case TRUE:
+                        return true;
+                    case FALSE:
+                        addInvalid(literalSet);
+                        break;
+                    case TIMEOUT:
+                    default:
+                        // unknown, must not be persisted as invalid
+                        break;
                 }
             }
             return false;
@@ -299,7 +511,27 @@ public class TWiseConfigurationUtil {
         return !clauses.isEmpty();
     }
 
+    private boolean isStoredInvalid(SortedIntegerList literalSet) {
+        return (invalidCombinationStore != null) && invalidCombinationStore.contains(literalSet.getIntegers());
+    }
+
+    private void addInvalid(SortedIntegerList literalSet) {
+        if (invalidClausesList == InvalidClausesList.Create) {
+            invalidSortedIntegerLists.add(literalSet);
+        }
+        if (invalidCombinationStore != null) {
+            try {
+                invalidCombinationStore.add(literalSet.getIntegers());
+            } catch (final IOException e) {
+                FeatJAR.log().error(e);
+            }
+        }
+    }
+
     public boolean isCombinationInvalidMIG(SortedIntegerList literals) {
+        if (strongClosure != null) {
+            return strongClosure.isConflicting(literals.getIntegers());
+        }
         if (hasMig()) {
             for (final int literal : literals.getIntegers()) {
                 if (strongHull[ModalImplicationGraph.getVertexIndex(literal)].conflictsWith(literals)) {
@@ -311,11 +543,21 @@ public class TWiseConfigurationUtil {
     }
 
     public boolean isCombinationValidSAT(SortedIntegerList literals) {
+        return checkCombinationSAT(literals) == SATSolver.Result.TRUE;
+    }
+
+    /**
+     * Checks whether the given literals are satisfiable together.
+     *
+     * @param literals the literals of a combination
+     * @return {@link SATSolver.Result#TRUE TRUE} if the combination is valid or
+     *         there is no solver, {@link SATSolver.Result#FALSE FALSE} if it is
+     *         proven to be invalid, or {@link SATSolver.Result#TIMEOUT TIMEOUT}
+     */
+    private SATSolver.Result<Boolean> checkCombinationSAT(SortedIntegerList literals) {
         if (hasSolver()) {
-            for (final SortedIntegerList s : randomSample) {
-                if (!s.conflictsWith(literals)) {
-                    return true;
-                }
+            if (solutionPool.find(literals.getIntegers()) != null) {
+                return SATSolver.Result.TRUE;
             }
 
             final SAT4JSolutionSolver solver = getSolver();
@@ -323,6 +565,7 @@ public class TWiseConfigurationUtil {
             final int orgAssignmentLength = solver.getAssignment().size();
             try {
                 solver.getAssignment().addAll(literals.getIntegers());
+                countSolverCall();
                 final SATSolver.Result<Boolean> hasSolution = solver.hasSolution();
                 switch (hasSolution) {
                     case TRUE:
@@ -330,17 +573,20 @@ public class TWiseConfigurationUtil {
                         addSolverSolution(Arrays.copyOf(solution, solution.length));
                         solver.shuffleOrder(random);
                         break;
-                    case FALSE:
                     case TIMEOUT:
-                        return false;
+                        solverTimeoutCount.incrementAndGet();
+                        FeatJAR.log().debug("Solver timeout while checking combination " + literals);
+                        break;
+                    case FALSE:
                     default:
                         break;
                 }
+                return hasSolution;
             } finally {
                 solver.getAssignment().clear(orgAssignmentLength);
             }
         }
-        return true;
+        return SATSolver.Result.TRUE;
     }
 
     public boolean removeInvalidClauses(
@@ -424,19 +670,14 @@ public class TWiseConfigurationUtil {
     }
 
     private boolean isSelectionPossibleSol(Pair<SortedIntegerList, TWiseConfiguration> candidate) {
-        final VecInt solverSolutionIndex = candidate.getValue().getSolverSolutionIndex();
-        for (int i = 0; i < solverSolutionIndex.size(); i++) {
-            if (!getSolverSolution(solverSolutionIndex.get(i)).conflictsWith(candidate.getKey())) {
-                return true;
-            }
-        }
-        return false;
+        return isSelectionPossibleSol(candidate.getKey(), candidate.getValue());
     }
 
     private boolean isSelectionPossibleSol(SortedIntegerList literals, TWiseConfiguration configuration) {
         final VecInt solverSolutionIndex = configuration.getSolverSolutionIndex();
         for (int i = 0; i < solverSolutionIndex.size(); i++) {
-            if (!getSolverSolution(solverSolutionIndex.get(i)).conflictsWith(literals)) {
+            final SortedIntegerList solution = getSolverSolution(configuration, solverSolutionIndex.get(i));
+            if ((solution != null) && !solution.conflictsWith(literals)) {
                 return true;
             }
         }
@@ -456,6 +697,7 @@ public class TWiseConfigurationUtil {
                     }
                 }
                 if (orgAssignmentSize < localSolver.getAssignment().size()) {
+                    countSolverCall();
                     if (localSolver.hasSolution() == SATSolver.Result.TRUE) {
                         final int[] solution = localSolver.getInternalSolution();
                         addSolverSolution(Arrays.copyOf(solution, solution.length));
@@ -495,7 +737,28 @@ public class TWiseConfigurationUtil {
     }
 
     public boolean isCovered(ABooleanAssignmentList condition) {
-        return isCovered(condition, completeSolutionList) || isCovered(condition, incompleteSolutionList);
+        for (final SortedIntegerList literals : condition) {
+            if (coverageIndex.isCovered(literals)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reassigns the ids of all configurations in the coverage index. Must be
+     * called after configurations were removed from the solution lists.
+     */
+    public void rebuildCoverageIndex() {
+        synchronized (solutionListLock) {
+            coverageIndex.clear();
+            for (final TWiseConfiguration configuration : incompleteSolutionList) {
+                configuration.id = coverageIndex.add(configuration, false);
+            }
+            for (final TWiseConfiguration configuration : completeSolutionList) {
+                configuration.id = coverageIndex.add(configuration, true);
+            }
+        }
     }
 
     public boolean select(
@@ -504,14 +767,19 @@ public class TWiseConfigurationUtil {
 
         if (solution.isComplete()) {
             solution.clear();
-            for (final Iterator<TWiseConfiguration> iterator = incompleteSolutionList.iterator();
-                    iterator.hasNext(); ) {
-                if (iterator.next() == solution) {
-                    iterator.remove();
-                    completeSolutionList.add(solution);
-                    break;
+            synchronized (solutionListLock) {
+                for (int i = 0; i < incompleteSolutionList.size(); i++) {
+                    if (incompleteSolutionList.get(i) == solution) {
+                        incompleteSolutionList.remove(i);
+                        completeSolutionList.add(solution);
+                        coverageIndex.setComplete(solution.id);
+                        break;
+                    }
                 }
             }
+            if (completionListener != null) {
+                completionListener.accept(solution);
+            }
             return true;
         } else {
             return false;
@@ -544,11 +812,7 @@ public class TWiseConfigurationUtil {
     }
 
     public void addCandidates(final SortedIntegerList literals, List<Pair<SortedIntegerList, TWiseConfiguration>> candidatesList) {
-        for (final TWiseConfiguration configuration : getIncompleteSolutionList()) {
-            if (isCandidate(literals, configuration)) {
-                candidatesList.add(new Pair<>(literals, configuration));
-            }
-        }
+        coverageIndex.addCandidates(literals, candidatesList);
     }
 
     public void initCandidatesListPara(
@@ -566,21 +830,42 @@ public class TWiseConfigurationUtil {
             ABooleanAssignmentList nextCondition, List<Pair<SortedIntegerList, TWiseConfiguration>> candidatesList) {
         candidatesList.clear();
         for (final SortedIntegerList literals : nextCondition) {
-            for (final TWiseConfiguration configuration : getIncompleteSolutionList()) {
-                if (isCandidate(literals, configuration)) {
-                    candidatesList.add(new Pair<>(literals, configuration));
-                }
+            coverageIndex.addCandidates(literals, candidatesList);
+        }
+        if (parallel) {
+            // other workers may change the literal counts while sorting
+            final IdentityHashMap<TWiseConfiguration, Integer> literalCounts = new IdentityHashMap<>();
+            for (final Pair<SortedIntegerList, TWiseConfiguration> pair : candidatesList) {
+                literalCounts.computeIfAbsent(pair.getValue(), TWiseConfiguration::countLiterals);
             }
+            Collections.sort(candidatesList, (o1, o2) -> {
+                final int diff = literalCounts.get(o2.getValue()) - literalCounts.get(o1.getValue());
+                return diff != 0 ? diff : o2.getKey().size() - o1.getKey().size();
+            });
+        } else {
+            Collections.sort(candidatesList, candidateLengthComparator);
         }
-        Collections.sort(candidatesList, candidateLengthComparator);
+    }
+
+    /**
+     * Checks whether a candidate can still be selected. Another worker may have
+     * completed the configuration or added conflicting literals since the
+     * candidate list was created.
+     */
+    private boolean isSelectable(Pair<SortedIntegerList, TWiseConfiguration> pair) {
+        final TWiseConfiguration configuration = pair.getValue();
+        return !configuration.isComplete() && isCandidate(pair);
     }
 
     protected boolean coverSol(List<Pair<SortedIntegerList, TWiseConfiguration>> candidatesList) {
         for (final Pair<SortedIntegerList, TWiseConfiguration> pair : candidatesList) {
-            if (isSelectionPossibleSol(pair.getKey(), pair.getValue())) {
-                assert pair.getValue().isValid();
-                select(pair.getValue(), extendConfigurationDeduce, pair.getKey());
-                return true;
+            final TWiseConfiguration configuration = pair.getValue();
+            synchronized (configuration) {
+                if (isSelectable(pair) && isSelectionPossibleSol(pair.getKey(), configuration)) {
+                    assert configuration.isValid();
+                    select(configuration, extendConfigurationDeduce, pair.getKey());
+                    return true;
+                }
             }
         }
         return false;
@@ -588,9 +873,19 @@ public class TWiseConfigurationUtil {
 
     protected boolean coverSat(List<Pair<SortedIntegerList, TWiseConfiguration>> candidatesList) {
         for (final Pair<SortedIntegerList, TWiseConfiguration> pair : candidatesList) {
-            if (isSelectionPossibleSat(pair.getKey(), pair.getValue())) {
-                select(pair.getValue(), extendConfigurationDeduce, pair.getKey());
-                assert pair.getValue().isValid();
+            if (coverSat(pair)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected boolean coverSat(Pair<SortedIntegerList, TWiseConfiguration> pair) {
+        final TWiseConfiguration configuration = pair.getValue();
+        synchronized (configuration) {
+            if (isSelectable(pair) && isSelectionPossibleSat(pair.getKey(), configuration)) {
+                select(configuration, extendConfigurationDeduce, pair.getKey());
+                assert configuration.isValid();
                 return true;
             }
         }
@@ -599,8 +894,13 @@ public class TWiseConfigurationUtil {
 
     protected boolean coverNoSat(List<Pair<SortedIntegerList, TWiseConfiguration>> candidatesList) {
         for (final Pair<SortedIntegerList, TWiseConfiguration> pair : candidatesList) {
-            select(pair.getValue(), extendConfigurationDeduce, pair.getKey());
-            return true;
+            final TWiseConfiguration configuration = pair.getValue();
+            synchronized (configuration) {
+                if (isSelectable(pair)) {
+                    select(configuration, extendConfigurationDeduce, pair.getKey());
+                    return true;
+                }
+            }
         }
         return false;
     }
@@ -626,13 +926,59 @@ public class TWiseConfigurationUtil {
             selectLiterals(configuration, createConfigurationDeduce, literals);
             assert configuration.isValid();
             configuration.updateSolverSolutions();
-            if (configuration.isComplete()) {
+            addConfiguration(configuration);
+        }
+    }
+
+    /**
+     * Creates a configuration that contains the given literals without
+     * deducing further literals with the solver.
+     *
+     * @param literals the literals, indexed by variable (0 for unassigned
+     *            variables)
+     * @return the new configuration, which is not yet part of the sample
+     */
+    public TWiseConfiguration createConfiguration(int[] literals) {
+        final TWiseConfiguration configuration = new TWiseConfiguration(this);
+        configuration.setLiteral(Arrays.stream(literals).filter(l -> l != 0).toArray());
+        configuration.updateSolverSolutions();
+        return configuration;
+    }
+
+    /**
+     * Adds a configuration to the sample.
+     *
+     * @param configuration the configuration
+     */
+    public void addConfiguration(TWiseConfiguration configuration) {
+        final boolean complete;
+        synchronized (solutionListLock) {
+            complete = configuration.isComplete();
+            if (complete) {
                 configuration.clear();
                 completeSolutionList.add(configuration);
+                configuration.id = coverageIndex.add(configuration, true);
             } else {
                 incompleteSolutionList.add(configuration);
-                Collections.sort(incompleteSolutionList, (a, b) -> a.countLiterals() - b.countLiterals());
+                sortIncompleteSolutionList();
+                configuration.id = coverageIndex.add(configuration, false);
+            }
+        }
+        if (complete && (completionListener != null)) {
+            completionListener.accept(configuration);
+        }
+    }
+
+    private void sortIncompleteSolutionList() {
+        if (parallel) {
+            // other workers may change the literal counts while sorting
+            final IdentityHashMap<TWiseConfiguration, Integer> literalCounts = new IdentityHashMap<>();
+            for (final TWiseConfiguration configuration : incompleteSolutionList) {
+                literalCounts.put(configuration, configuration.countLiterals());
             }
+            incompleteSolutionList.sort(Comparator.comparingInt(literalCounts::get));
+        } else {
+            incompleteSolutionList.sort((a, b) -> a.countLiterals() - b.countLiterals());
         }
     }
 
@@ -644,6 +990,36 @@ public class TWiseConfigurationUtil {
         return completeSolutionList;
     }
 
+    /**
+     * Copies the literals of all configurations. Each configuration is locked
+     * while it is copied, so this can be called while workers extend
+     * configurations.
+     *
+     * @param incompleteConfigurations the list to which the literals of all
+     *            incomplete configurations are added
+     * @param completeConfigurations the list to which the literals of all
+     *            complete configurations are added
+     */
+    public void copyConfigurations(List<int[]> incompleteConfigurations, List<int[]> completeConfigurations) {
+        final List<TWiseConfiguration> incompleteSolutions;
+        final List<TWiseConfiguration> completeSolutions;
+        synchronized (solutionListLock) {
+            incompleteSolutions = new ArrayList<>(incompleteSolutionList);
+            completeSolutions = new ArrayList<>(completeSolutionList);
+        }
+        // configurations are locked before the list lock elsewhere, so never hold both here
+        for (final TWiseConfiguration configuration : incompleteSolutions) {
+            synchronized (configuration) {
+                incompleteConfigurations.add(configuration.getIntegers().clone());
+            }
+        }
+        for (final TWiseConfiguration configuration : completeSolutions) {
+            synchronized (configuration) {
+                completeConfigurations.add(configuration.getIntegers().clone());
+            }
+        }
+    }
+
     public List<TWiseConfiguration> getResultList() {
         final ArrayList<TWiseConfiguration> resultList =
                 new ArrayList<>(completeSolutionList.size() + incompleteSolutionList.size());
@@ -677,6 +1053,31 @@ public class TWiseConfigurationUtil {
         setupMIG();
     }
 
+    /**
+     * Sets a listener that is notified whenever a configuration of the sample
+     * becomes complete.
+     *
+     * @param completionListener the listener or {@code null}
+     */
+    public void setCompletionListener(Consumer<TWiseConfiguration> completionListener) {
+        this.completionListener = completionListener;
+    }
+
+    public InvalidCombinationStore getInvalidCombinationStore() {
+        return invalidCombinationStore;
+    }
+
+    /**
+     * Sets a persistent store of invalid combinations. Combinations in the
+     * store are considered invalid without further checks and newly found
+     * invalid combinations are appended to it.
+     *
+     * @param invalidCombinationStore the store or {@code null}
+     */
+    public void setInvalidCombinationStore(InvalidCombinationStore invalidCombinationStore) {
+        this.invalidCombinationStore = invalidCombinationStore;
+    }
+
     public void setInvalidClausesList(InvalidClausesList invalidClausesList) {
         this.invalidClausesList = invalidClausesList;
     }
@@ -0,0 +1,374 @@
+/*
+ * Copyright (C) 2022 Sebastian Krieter
+ *
+ * This file is part of formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.sat4j.todo.twise;
+
+import de.featjar.formula.analysis.bool.ABooleanAssignmentList;
+import de.featjar.formula.analysis.sat4j.solver.SAT4JSolutionSolver;
+import de.featjar.formula.analysis.sat4j.todo.twise.TWiseStatisticGenerator.ConfigurationScore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Calculates the same statistics as {@link TWiseStatisticGenerator}, but
+ * stores each sample column-wise as one bitset per literal over the
+ * configurations. The configurations covering a combination are computed by
+ * ANDing the bitsets of its presence conditions and counted with
+ * {@link Long#bitCount(long)}. Combinations are partitioned by their first
+ * presence condition and processed in parallel on the common fork-join pool.
+ * <br>
+ * Validity checks use {@link TWiseConfigurationUtil#isCombinationValid(ABooleanAssignmentList)}
+ * with one solver per thread, so the invalid clause list of the util can be
+ * used to cache their results.
+ *
+ * @author Sebastian Krieter
+ */
+public class TWiseStatisticParallelGenerator {
+
+    /**
+     * Statistics for one partition of the combinations.
+     */
+    private static final class PartialStatistic {
+
+        private final long[] validCount, invalidCount, coveredCount, uncoveredCount;
+        private final double[][] scores;
+
+        private PartialStatistic(List<List<? extends SortedIntegerList>> samples, boolean withScores) {
+            final int sampleCount = samples.size();
+            validCount = new long[sampleCount];
+            invalidCount = new long[sampleCount];
+            coveredCount = new long[sampleCount];
+            uncoveredCount = new long[sampleCount];
+            scores = new double[sampleCount][];
+            if (withScores) {
+                for (int i = 0; i < sampleCount; i++) {
+                    scores[i] = new double[samples.get(i).size()];
+                }
+            }
+        }
+
+        private PartialStatistic merge(PartialStatistic other) {
+            for (int i = 0; i < validCount.length; i++) {
+                validCount[i] += other.validCount[i];
+                invalidCount[i] += other.invalidCount[i];
+                coveredCount[i] += other.coveredCount[i];
+                uncoveredCount[i] += other.uncoveredCount[i];
+                final double[] score = scores[i];
+                if (score != null) {
+                    final double[] otherScore = other.scores[i];
+                    for (int j = 0; j < score.length; j++) {
+                        score[j] += otherScore[j];
+                    }
+                }
+            }
+            return this;
+        }
+    }
+
+    private final TWiseConfigurationUtil util;
+    private final ThreadLocal<SAT4JSolutionSolver> solvers;
+
+    public TWiseStatisticParallelGenerator(TWiseConfigurationUtil util) {
+        this.util = util;
+        final Random random = new Random(util.random.nextLong());
+        solvers = ThreadLocal.withInitial(() -> util.createWorkerSolver(new Random(random.nextLong())));
+    }
+
+    private static int getRow(int literal) {
+        return literal < 0 ? (-(literal + 1)) << 1 : ((literal - 1) << 1) + 1;
+    }
+
+    /**
+     * Computes the literal columns of a sample.
+     *
+     * @param sample the sample
+     * @param variableCount the number of variables
+     * @return for each literal, a bitset over the configurations that contain
+     *         it
+     */
+    private static long[][] getColumns(List<? extends SortedIntegerList> sample, int variableCount) {
+        final int words = (sample.size() + 63) >>> 6;
+        final long[][] columns = new long[variableCount << 1][words];
+        int configurationIndex = 0;
+        for (final SortedIntegerList configuration : sample) {
+            final int word = configurationIndex >>> 6;
+            final long mask = 1L << configurationIndex;
+            for (final int literal : configuration.getIntegers()) {
+                if (literal != 0) {
+                    columns[getRow(literal)][word] |= mask;
+                }
+            }
+            configurationIndex++;
+        }
+        return columns;
+    }
+
+    /**
+     * Computes the bitset of configurations that satisfy a presence condition,
+     * i.e., that contain all literals of at least one of its clauses.
+     */
+    private static long[] getPresenceConditionBits(PresenceCondition presenceCondition, long[][] columns, int size) {
+        final int words = (size + 63) >>> 6;
+        final long[] bits = new long[words];
+        for (final SortedIntegerList literals : presenceCondition) {
+            for (int w = 0; w < words; w++) {
+                long word = (w < (words - 1)) || ((size & 63) == 0) ? -1L : (1L << size) - 1;
+                for (final int literal : literals.getIntegers()) {
+                    word &= columns[getRow(literal)][w];
+                }
+                bits[w] |= word;
+            }
+        }
+        return bits;
+    }
+
+    public List<CoverageStatistic> getCoverage(
+            List<List<? extends SortedIntegerList>> samples,
+            List<List<PresenceCondition>> groupedPresenceConditions,
+            int t,
+            ConfigurationScore configurationScoreType,
+            boolean identifyValidCombinations) {
+        final int sampleCount = samples.size();
+        final int variableCount = util.getCnf().getVariableMap().getVariableCount();
+        final boolean withScores = configurationScoreType != ConfigurationScore.NONE;
+
+        final long[][][] columns = new long[sampleCount][][];
+        for (int i = 0; i < sampleCount; i++) {
+            columns[i] = getColumns(samples.get(i), variableCount);
+        }
+        if (identifyValidCombinations && util.hasSolver()) {
+            util.getDeadCoreFeatures();
+        }
+
+        final PartialStatistic total = new PartialStatistic(samples, withScores);
+        for (List<PresenceCondition> expressions : groupedPresenceConditions) {
+            if (expressions.size() < t) {
+                if (expressions.size() == 0) {
+                    continue;
+                }
+                final ArrayList<PresenceCondition> paddedExpressions = new ArrayList<>(t);
+                paddedExpressions.addAll(expressions);
+                for (int i = expressions.size(); i < t; i++) {
+                    paddedExpressions.add(expressions.get(0));
+                }
+                expressions = paddedExpressions;
+            }
+            final List<PresenceCondition> presenceConditions = expressions;
+            final int n = presenceConditions.size();
+
+            final long[][][] presenceConditionBits = new long[sampleCount][n][];
+            for (int i = 0; i < sampleCount; i++) {
+                final int size = samples.get(i).size();
+                for (int j = 0; j < n; j++) {
+                    presenceConditionBits[i][j] = getPresenceConditionBits(presenceConditions.get(j), columns[i], size);
+                }
+            }
+
+            final PartialStatistic groupStatistic = IntStream.range(0, (n - t) + 1)
+                    .parallel()
+                    .mapToObj(first -> getCoverage(
+                            samples,
+                            presenceConditions,
+                            presenceConditionBits,
+                            first,
+                            t,
+                            configurationScoreType,
+                            identifyValidCombinations))
+                    .reduce(PartialStatistic::merge)
+                    .get();
+            total.merge(groupStatistic);
+        }
+
+        final List<CoverageStatistic> statisticList = new ArrayList<>(sampleCount);
+        for (int sampleIndex = 0; sampleIndex < sampleCount; sampleIndex++) {
+            final CoverageStatistic statistic = new CoverageStatistic();
+            statistic.setNumberOfValidConditions(total.validCount[sampleIndex]);
+            statistic.setNumberOfInvalidConditions(total.invalidCount[sampleIndex]);
+            statistic.setNumberOfCoveredConditions(total.coveredCount[sampleIndex]);
+            statistic.setNumberOfUncoveredConditions(total.uncoveredCount[sampleIndex]);
+            if (withScores) {
+                statistic.initScores(samples.get(sampleIndex).size());
+                final double[] scores = total.scores[sampleIndex];
+                int confIndex = 0;
+                for (final SortedIntegerList configuration : samples.get(sampleIndex)) {
+                    int selectionCount = 0;
+                    for (final int literal : configuration.getIntegers()) {
+                        if (literal == 0) {
+                            selectionCount++;
+                        }
+                    }
+                    final double ratio = (double) selectionCount / configuration.size();
+                    statistic.setScore(confIndex, scores[confIndex] * (2 - Math.pow(ratio, t)));
+                    confIndex++;
+                }
+            }
+            statisticList.add(statistic);
+        }
+        return statisticList;
+    }
+
+    /**
+     * Processes all combinations whose first presence condition has the given
+     * index.
+     */
+    private PartialStatistic getCoverage(
+            List<List<? extends SortedIntegerList>> samples,
+            List<PresenceCondition> presenceConditions,
+            long[][][] presenceConditionBits,
+            int first,
+            int t,
+            ConfigurationScore configurationScoreType,
+            boolean identifyValidCombinations) {
+        final int sampleCount = samples.size();
+        final int n = presenceConditions.size();
+        final PartialStatistic statistic =
+                new PartialStatistic(samples, configurationScoreType != ConfigurationScore.NONE);
+
+        // prefix[s][j] = configurations of sample s that cover the first j + 1 presence conditions
+        final long[][][] prefix = new long[sampleCount][t][];
+        for (int s = 0; s < sampleCount; s++) {
+            prefix[s][0] = presenceConditionBits[s][first];
+            for (int j = 1; j < t; j++) {
+                prefix[s][j] = new long[prefix[s][0].length];
+            }
+        }
+        final boolean[] covered = new boolean[sampleCount];
+
+        final boolean checkValidity = identifyValidCombinations && util.hasSolver();
+        final TWiseCombiner combiner = identifyValidCombinations
+                ? new TWiseCombiner(util.getCnf().getVariableMap().getVariableCount())
+                : null;
+        final ABooleanAssignmentList combinedCondition = new ABooleanAssignmentList();
+        final PresenceCondition[] clauseListArray = new PresenceCondition[t];
+
+        final int[] c = new int[t];
+        c[0] = first;
+        for (int j = 1; j < t; j++) {
+            c[j] = first + j;
+        }
+        int changed = 1;
+
+        if (checkValidity) {
+            util.setWorkerSolver(solvers.get());
+        }
+        try {
+            while (true) {
+                boolean anyCovered = false;
+                for (int s = 0; s < sampleCount; s++) {
+                    final long[][] sPrefix = prefix[s];
+                    for (int j = changed; j < t; j++) {
+                        final long[] previous = sPrefix[j - 1];
+                        final long[] current = sPrefix[j];
+                        final long[] bits = presenceConditionBits[s][c[j]];
+                        for (int w = 0; w < current.length; w++) {
+                            current[w] = previous[w] & bits[w];
+                        }
+                    }
+                    final long[] last = sPrefix[t - 1];
+                    int count = 0;
+                    for (final long word : last) {
+                        count += Long.bitCount(word);
+                    }
+                    covered[s] = count > 0;
+                    if (count > 0) {
+                        anyCovered = true;
+                        statistic.coveredCount[s]++;
+                        addScores(statistic.scores[s], last, count, configurationScoreType);
+                    }
+                }
+
+                if (identifyValidCombinations) {
+                    boolean valid = anyCovered;
+                    if (!valid) {
+                        for (int j = 0; j < t; j++) {
+                            clauseListArray[j] = presenceConditions.get(c[j]);
+                        }
+                        combinedCondition.clear();
+                        combiner.combineConditions(clauseListArray, combinedCondition);
+                        valid = util.isCombinationValid(combinedCondition);
+                    }
+                    for (int s = 0; s < sampleCount; s++) {
+                        if (valid) {
+                            statistic.validCount[s]++;
+                            if (!covered[s]) {
+                                statistic.uncoveredCount[s]++;
+                            }
+                        } else {
+                            statistic.invalidCount[s]++;
+                        }
+                    }
+                } else {
+                    for (int s = 0; s < sampleCount; s++) {
+                        if (!covered[s]) {
+                            statistic.uncoveredCount[s]++;
+                        }
+                    }
+                }
+
+                // next combination with the same first element in lexicographic order
+                int i = t - 1;
+                while ((i > 0) && (c[i] == ((n - t) + i))) {
+                    i--;
+                }
+                if (i == 0) {
+                    break;
+                }
+                c[i]++;
+                for (int j = i + 1; j < t; j++) {
+                    c[j] = c[j - 1] + 1;
+                }
+                changed = i;
+            }
+        } finally {
+            if (checkValidity) {
+                util.setWorkerSolver(null);
+            }
+        }
+        return statistic;
+    }
+
+    private static void addScores(double[] scores, long[] bits, int count, ConfigurationScore configurationScoreType) {
+        final double value;
+        switch (configurationScoreType) {
+            case NONE:
+                return;
+            case SIMPLE:
+                if (count != 1) {
+                    return;
+                }
+                value = 1;
+                break;
+            case COMPLETE:
+                value = 1.0 / count;
+                break;
+            default:
+                throw new IllegalStateException(configurationScoreType.toString());
+        }
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                scores[(w << 6) + Long.numberOfTrailingZeros(word)] += value;
+                word &= word - 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) 2022 Sebastian Krieter
+ *
+ * This file is part of formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.todo.mig;
+
+import de.featjar.base.data.Result;
+import de.featjar.formula.analysis.bool.BooleanAssignment;
+import de.featjar.formula.analysis.bool.BooleanSolution;
+import de.featjar.formula.analysis.sat4j.solver.ISelectionStrategy;
+import de.featjar.formula.analysis.todo.mig.solver.ModalImplicationGraph;
+import de.featjar.formula.analysis.todo.mig.solver.SAT4JMIGSolver;
+import de.featjar.formula.analysis.todo.mig.solver.Vertex;
+import de.featjar.formula.analysis.todo.mig.solver.visitor.CollectingVisitor;
+import de.featjar.formula.analysis.todo.mig.solver.visitor.Traverser;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.sat4j.core.VecInt;
+
+/**
+ * Answers many "which literals are implied by this partial configuration"
+ * queries concurrently. All queries share one read-only
+ * {@link ModalImplicationGraph}. Each worker thread owns its own
+ * {@link SAT4JMIGSolver} and {@link Traverser}. A query is first answered by
+ * MIG propagation; the solver is only called for the literals that propagation
+ * cannot decide.
+ *
+ * @author Sebastian Krieter
+ * @see ConditionallyCoreDeadAnalysisMIG
+ */
+public class ConditionallyCoreDeadServiceMIG implements AutoCloseable {
+
+    /**
+     * Records query latencies in a bounded ring buffer and computes percentiles
+     * over the most recent entries. All methods are synchronized, as latencies
+     * are recorded by the worker threads of the service.
+     */
+    public static class LatencyStatistic {
+
+        private final long[] latencies;
+        private long count;
+
+        public LatencyStatistic(int capacity) {
+            latencies = new long[capacity];
+        }
+
+        public synchronized void record(long nanos) {
+            latencies[(int) (count++ % latencies.length)] = nanos;
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        /**
+         * Computes a percentile over the recorded latencies.
+         *
+         * @param percentile a value between 0 and 100
+         * @return the latency in nanoseconds, or 0 if nothing was recorded
+         */
+        public synchronized long getPercentile(double percentile) {
+            final int size = (int) Math.min(count, latencies.length);
+            if (size == 0) {
+                return 0;
+            }
+            final long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            final int index = (int) Math.ceil((percentile / 100.0) * size) - 1;
+            return sorted[Math.max(0, Math.min(size - 1, index))];
+        }
+
+        public synchronized void reset() {
+            count = 0;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "LatencyStatistic [count=" + getCount() + ", p50=" + getPercentile(50) + "ns, p90="
+                    + getPercentile(90) + "ns, p99=" + getPercentile(99) + "ns]";
+        }
+    }
+
+    private class Worker {
+
+        private final SAT4JMIGSolver solver = new SAT4JMIGSolver(modalImplicationGraph);
+        private final Traverser traverser = modalImplicationGraph.traverse();
+        private final CollectingVisitor visitor = new CollectingVisitor();
+        private final int[] knownValues = new int[coreValues.length];
+        private final Random random = new Random(112358);
+
+        private Worker() {
+            solver.setTimeout(timeout);
+            traverser.setVisitor(visitor);
+        }
+
+        private Result<BooleanAssignment> query(int[] fixedLiterals) {
+            solver.getAssignment().clear();
+            System.arraycopy(coreValues, 0, knownValues, 0, knownValues.length);
+            visitor.getResult()[0].clear();
+            visitor.getResult()[1].clear();
+
+            for (final int literal : fixedLiterals) {
+                final int i = Math.abs(literal) - 1;
+                if (knownValues[i] == -literal) {
+                    return unsatisfiable();
+                }
+                knownValues[i] = literal;
+            }
+            traverser.setModel(knownValues);
+            traverser.traverse(fixedLiterals);
+            if (traverser.isConflict()) {
+                return unsatisfiable();
+            }
+            final VecInt valuesToCompute = visitor.getResult()[1];
+
+            for (final int var : knownValues) {
+                if (var != 0) {
+                    solver.getAssignment().add(var);
+                }
+            }
+
+            if (!valuesToCompute.isEmpty()) {
+                solver.setSelectionStrategy(ISelectionStrategy.positive());
+                final Result<Boolean> hasSolution = solver.hasSolution();
+                if (Result.of(false).equals(hasSolution)) {
+                    return unsatisfiable();
+                }
+                final Result<BooleanSolution> solution = solver.getSolutionHistory().getLastSolution();
+                if (hasSolution.isEmpty() || solution.isEmpty()) {
+                    return Result.empty();
+                }
+                int[] unknownValues = Arrays.copyOf(solution.get().get(), knownValues.length);
+
+                solver.setSelectionStrategy(ISelectionStrategy.negative());
+                final Result<BooleanSolution> solution2 = solver.findSolution();
+                if (solution2.isEmpty()) {
+                    return Result.empty();
+                }
+                unknownValues = BooleanSolution.removeConflicts(unknownValues, solution2.get().get());
+                solver.setSelectionStrategy(ISelectionStrategy.inverse(unknownValues));
+
+                for (int k = 0; k < knownValues.length; k++) {
+                    if (knownValues[k] != 0) {
+                        unknownValues[k] = 0;
+                    }
+                }
+                sat(unknownValues, valuesToCompute);
+            } else {
+                final Result<Boolean> hasSolution = solver.hasSolution();
+                if (Result.of(false).equals(hasSolution)) {
+                    return unsatisfiable();
+                } else if (hasSolution.isEmpty()) {
+                    return Result.empty();
+                }
+            }
+            return Result.of(solver.getAssignment().toAssignment());
+        }
+
+        private Result<BooleanAssignment> unsatisfiable() {
+            return Result.empty(new IllegalArgumentException(
+                    "Partial configuration contradicts the core/dead literals or itself"));
+        }
+
+        private void sat(int[] unknownValues, VecInt valuesToCompute) {
+            final VecInt newFoundValues = visitor.getResult()[0];
+            while (!valuesToCompute.isEmpty()) {
+                final int varX = valuesToCompute.last();
+                valuesToCompute.pop();
+                final int i = Math.abs(varX) - 1;
+                if (unknownValues[i] == varX) {
+                    solver.getAssignment().add(-varX);
+                    final Result<Boolean> hasSolution = solver.hasSolution();
+                    if (Result.of(false).equals(hasSolution)) {
+                        solver.getAssignment().replaceLast(varX);
+                        unknownValues[i] = 0;
+                        newFoundValues.clear();
+                        traverser.traverseStrong(varX);
+                        for (int j = 0; j < newFoundValues.size(); j++) {
+                            final int var = newFoundValues.get(j);
+                            if (var != varX) {
+                                solver.getAssignment().add(var);
+                            }
+                            unknownValues[Math.abs(var) - 1] = 0;
+                        }
+                    } else if (Result.empty().equals(hasSolution)) {
+                        solver.getAssignment().remove();
+                        unknownValues[i] = 0;
+                    } else {
+                        solver.getAssignment().remove();
+                        unknownValues = BooleanSolution.removeConflicts(unknownValues, solver.getInternalSolution());
+                        solver.shuffleOrder(random);
+                    }
+                }
+            }
+        }
+    }
+
+    public static final int DEFAULT_LATENCY_CAPACITY = 100_000;
+
+    private final ModalImplicationGraph modalImplicationGraph;
+    private final int[] coreValues;
+    private final ExecutorService executor;
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+    private final LatencyStatistic latencyStatistic;
+
+    private Duration timeout = Duration.ofSeconds(1);
+
+    public ConditionallyCoreDeadServiceMIG(ModalImplicationGraph modalImplicationGraph) {
+        this(modalImplicationGraph, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ConditionallyCoreDeadServiceMIG(ModalImplicationGraph modalImplicationGraph, int threadCount) {
+        this.modalImplicationGraph = modalImplicationGraph;
+        modalImplicationGraph.indexComplexClauses();
+        coreValues = new int[modalImplicationGraph.size()];
+        for (final Vertex vertex : modalImplicationGraph.getVertices()) {
+            if (vertex.isCore()) {
+                final int var = vertex.getVar();
+                coreValues[Math.abs(var) - 1] = var;
+            }
+        }
+        executor = Executors.newFixedThreadPool(threadCount);
+        latencyStatistic = new LatencyStatistic(DEFAULT_LATENCY_CAPACITY);
+    }
+
+    /**
+     * Computes all literals implied by the given partial configuration on the
+     * calling thread.
+     *
+     * @param fixedLiterals the literals of the partial configuration
+     * @return the core literals, the given literals, and all literals implied
+     *         by them, or an empty result if the partial configuration is
+     *         contradictory (with an {@link IllegalArgumentException} as problem)
+     *         or the solver timed out
+     */
+    public Result<BooleanAssignment> query(int... fixedLiterals) {
+        final long start = System.nanoTime();
+        try {
+            return workers.get().query(fixedLiterals);
+        } finally {
+            latencyStatistic.record(System.nanoTime() - start);
+        }
+    }
+
+    public CompletableFuture<Result<BooleanAssignment>> submit(int... fixedLiterals) {
+        return CompletableFuture.supplyAsync(() -> query(fixedLiterals), executor);
+    }
+
+    public List<CompletableFuture<Result<BooleanAssignment>>> submitAll(List<int[]> queries) {
+        final List<CompletableFuture<Result<BooleanAssignment>>> futures = new ArrayList<>(queries.size());
+        for (final int[] fixedLiterals : queries) {
+            futures.add(submit(fixedLiterals));
+        }
+        return futures;
+    }
+
+    /**
+     * Answers a batch of queries in parallel and waits for all of them.
+     *
+     * @param queries the partial configurations
+     * @return the results in the same order as the given queries
+     */
+    public List<Result<BooleanAssignment>> queryAll(List<int[]> queries) {
+        final List<CompletableFuture<Result<BooleanAssignment>>> futures = submitAll(queries);
+        final List<Result<BooleanAssignment>> results = new ArrayList<>(futures.size());
+        for (final CompletableFuture<Result<BooleanAssignment>> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    public LatencyStatistic getLatencyStatistic() {
+        return latencyStatistic;
+    }
+
+    public ModalImplicationGraph getMig() {
+        return modalImplicationGraph;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Sets the solver timeout. Only affects worker threads that have not yet
+     * answered a query.
+     *
+     * @param timeout the timeout
+     */
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
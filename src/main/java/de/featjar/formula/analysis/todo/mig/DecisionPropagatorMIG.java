@@ -0,0 +1,349 @@
+/*
+ * Copyright (C) 2022 Sebastian Krieter
+ *
+ * This file is part of formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.todo.mig;
+
+import de.featjar.base.data.Result;
+import de.featjar.formula.analysis.bool.BooleanAssignment;
+import de.featjar.formula.analysis.bool.BooleanSolution;
+import de.featjar.formula.analysis.todo.mig.solver.ModalImplicationGraph;
+import de.featjar.formula.analysis.todo.mig.solver.SAT4JMIGSolver;
+import de.featjar.formula.analysis.todo.mig.solver.Vertex;
+import de.featjar.formula.analysis.todo.mig.solver.visitor.Traverser;
+import de.featjar.formula.analysis.todo.mig.solver.visitor.Visitor;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import org.sat4j.core.VecInt;
+
+/**
+ * Incrementally computes all literals implied by a sequence of decisions, as
+ * needed for interactive configuration. Each decision is propagated through the
+ * {@link ModalImplicationGraph} first. Only literals that are reachable via weak
+ * edges, and thus cannot be decided by the graph alone, are checked with the
+ * SAT solver. Decisions can be undone in the reverse order of their application
+ * using a trail of assigned literals.
+ *
+ * <br>
+ * <br>
+ * The result of each decision that required the SAT solver is cached by the
+ * set of decisions, so repeating a decision set (e.g., after an undo) does not
+ * call the solver again.
+ *
+ * @author Sebastian Krieter
+ */
+public class DecisionPropagatorMIG {
+
+    public static final int DEFAULT_CACHE_LIMIT = 1_000;
+
+    private static final class DecisionKey {
+
+        private final int[] decisions;
+        private final int hashCode;
+
+        private DecisionKey(VecInt decisions) {
+            this.decisions = Arrays.copyOf(decisions.toArray(), decisions.size());
+            Arrays.sort(this.decisions);
+            hashCode = Arrays.hashCode(this.decisions);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if ((obj == null) || (getClass() != obj.getClass())) {
+                return false;
+            }
+            return Arrays.equals(decisions, ((DecisionKey) obj).decisions);
+        }
+    }
+
+    private class TrailVisitor implements Visitor<Void> {
+
+        @Override
+        public VisitResult visitStrong(int literal) {
+            trail.push(literal);
+            return VisitResult.Continue;
+        }
+
+        @Override
+        public VisitResult visitWeak(int literal) {
+            candidates.push(literal);
+            return VisitResult.Continue;
+        }
+
+        @Override
+        public Void getResult() {
+            return null;
+        }
+    }
+
+    private final ModalImplicationGraph modalImplicationGraph;
+    private final SAT4JMIGSolver solver;
+    private final Traverser traverser;
+
+    private final int[] model;
+    private final VecInt trail = new VecInt();
+    private final VecInt levels = new VecInt();
+    private final VecInt decisions = new VecInt();
+    private final VecInt candidates = new VecInt();
+    private final int coreCount;
+
+    private final LinkedHashMap<DecisionKey, int[]> cache;
+    private int cacheLimit = DEFAULT_CACHE_LIMIT;
+    private long cacheHits, solverCalls;
+
+    private Random random = new Random(112358);
+
+    public DecisionPropagatorMIG(ModalImplicationGraph modalImplicationGraph) {
+        this.modalImplicationGraph = modalImplicationGraph;
+        solver = new SAT4JMIGSolver(modalImplicationGraph);
+        model = new int[modalImplicationGraph.size()];
+
+        for (final Vertex vertex : modalImplicationGraph.getVertices()) {
+            if (vertex.isCore()) {
+                final int var = vertex.getVar();
+                model[Math.abs(var) - 1] = var;
+                trail.push(var);
+            }
+        }
+        coreCount = trail.size();
+
+        traverser = modalImplicationGraph.traverse();
+        traverser.setModel(model);
+        traverser.setVisitor(new TrailVisitor());
+
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<DecisionKey, int[]> eldest) {
+                return size() > cacheLimit;
+            }
+        };
+    }
+
+    /**
+     * Applies a decision and propagates all literals implied by it.
+     *
+     * @param literal the decided literal
+     * @return {@code false} if the literal contradicts the current decisions,
+     *         i.e., its complement is already implied or propagating it leads to
+     *         a conflict (nothing is changed in this case), {@code true}
+     *         otherwise. If the solver times out, the decision is kept with the
+     *         literals implied so far, but the result is not cached.
+     */
+    public boolean decide(int literal) {
+        final int value = model[Math.abs(literal) - 1];
+        if (value == -literal) {
+            return false;
+        }
+        levels.push(trail.size());
+        decisions.push(literal);
+        if (value == literal) {
+            return true;
+        }
+
+        final DecisionKey key = new DecisionKey(decisions);
+        final int[] cachedLiterals = cache.get(key);
+        if (cachedLiterals != null) {
+            cacheHits++;
+            for (final int cachedLiteral : cachedLiterals) {
+                final int index = Math.abs(cachedLiteral) - 1;
+                if (model[index] == 0) {
+                    model[index] = cachedLiteral;
+                    trail.push(cachedLiteral);
+                }
+            }
+            return true;
+        }
+
+        candidates.clear();
+        traverser.traverse(literal);
+        if (traverser.isConflict()) {
+            undo();
+            return false;
+        }
+        if (!candidates.isEmpty()) {
+            final Result<Boolean> complete = propagateWithSolver();
+            if (Result.of(false).equals(complete)) {
+                undo();
+                return false;
+            } else if (Result.of(true).equals(complete)) {
+                cache.put(key, Arrays.copyOfRange(trail.toArray(), coreCount, trail.size()));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks the weak candidates with the solver.
+     *
+     * @return {@code true} if all candidates were decided, {@code false} if the
+     *         current decisions are unsatisfiable, or an empty result if the
+     *         solver timed out
+     */
+    private Result<Boolean> propagateWithSolver() {
+        solver.getAssignment().clear();
+        for (int i = 0; i < trail.size(); i++) {
+            solver.getAssignment().add(trail.get(i));
+        }
+
+        final Result<Boolean> satisfiable = solver.hasSolution();
+        solverCalls++;
+        if (!Result.of(true).equals(satisfiable)) {
+            return satisfiable;
+        }
+        final Result<BooleanSolution> solution = solver.getSolutionHistory().getLastSolution();
+        if (solution.isEmpty()) {
+            return Result.empty();
+        }
+        boolean complete = true;
+        int[] unknownValues = Arrays.copyOf(solution.get().get(), model.length);
+        for (int i = 0; i < model.length; i++) {
+            if (model[i] != 0) {
+                unknownValues[i] = 0;
+            }
+        }
+
+        for (int i = 0; i < candidates.size(); i++) {
+            final int candidate = candidates.get(i);
+            final int index = Math.abs(candidate) - 1;
+            if ((model[index] == 0) && (unknownValues[index] == candidate)) {
+                solver.getAssignment().add(-candidate);
+                solverCalls++;
+                final Result<Boolean> hasSolution = solver.hasSolution();
+                if (Result.of(false).equals(hasSolution)) {
+                    solver.getAssignment().replaceLast(candidate);
+                    final int trailSize = trail.size();
+                    traverser.traverseStrong(candidate);
+                    for (int j = trailSize; j < trail.size(); j++) {
+                        final int impliedLiteral = trail.get(j);
+                        unknownValues[Math.abs(impliedLiteral) - 1] = 0;
+                        if (impliedLiteral != candidate) {
+                            solver.getAssignment().add(impliedLiteral);
+                        }
+                    }
+                } else if (hasSolution.isEmpty()) {
+                    solver.getAssignment().remove();
+                    unknownValues[index] = 0;
+                    complete = false;
+                } else {
+                    solver.getAssignment().remove();
+                    unknownValues = BooleanSolution.removeConflicts(unknownValues, solver.getInternalSolution());
+                    solver.shuffleOrder(random);
+                }
+            }
+        }
+        return complete ? Result.of(true) : Result.empty();
+    }
+
+    /**
+     * Reverts the most recent decision and all literals implied by it.
+     *
+     * @return {@code false} if there is no decision to undo
+     */
+    public boolean undo() {
+        if (levels.isEmpty()) {
+            return false;
+        }
+        final int levelStart = levels.last();
+        levels.pop();
+        decisions.pop();
+        for (int i = trail.size() - 1; i >= levelStart; i--) {
+            model[Math.abs(trail.get(i)) - 1] = 0;
+        }
+        trail.shrinkTo(levelStart);
+        return true;
+    }
+
+    /**
+     * Reverts all decisions.
+     */
+    public void reset() {
+        while (undo()) {}
+    }
+
+    /**
+     * Returns the value of the given variable in the current state.
+     *
+     * @param variable the variable
+     * @return the positive or negative literal of the variable, or 0 if the
+     *         variable is not implied by the current decisions
+     */
+    public int getValue(int variable) {
+        return model[variable - 1];
+    }
+
+    public BooleanAssignment getImpliedLiterals() {
+        return new BooleanAssignment(Arrays.copyOf(trail.toArray(), trail.size()));
+    }
+
+    public BooleanAssignment getDecisions() {
+        return new BooleanAssignment(Arrays.copyOf(decisions.toArray(), decisions.size()));
+    }
+
+    public int getDecisionLevel() {
+        return levels.size();
+    }
+
+    public ModalImplicationGraph getMig() {
+        return modalImplicationGraph;
+    }
+
+    public SAT4JMIGSolver getSolver() {
+        return solver;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public long getSolverCalls() {
+        return solverCalls;
+    }
+
+    public int getCacheLimit() {
+        return cacheLimit;
+    }
+
+    public void setCacheLimit(int cacheLimit) {
+        this.cacheLimit = cacheLimit;
+    }
+
+    public void clearCache() {
+        cache.clear();
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+}
@@ -20,6 +20,7 @@
  */
 package de.featjar.formula.analysis.todo.mig.solver;
 
+import de.featjar.base.FeatJAR;
 import de.featjar.formula.analysis.sat4j.solver.ISelectionStrategy;
 import de.featjar.formula.analysis.sat4j.solver.SAT4JSolutionSolver;
 import de.featjar.base.computation.Progress;
@@ -51,6 +52,9 @@ public abstract class MIGBuilder implements IMonitorableFunction<CNF, ModalImpli
 
     protected boolean checkRedundancy = true;
     protected boolean detectStrong = true;
+    protected boolean compact = false;
+
+    protected MIGCompactor.CompactionStatistic compactionStatistic;
 
     protected SAT4JSolutionSolver solver;
     protected List<SortedIntegerList> cleanedClausesList;
@@ -429,6 +433,11 @@ public abstract class MIGBuilder implements IMonitorableFunction<CNF, ModalImpli
             vertex.finish();
         }
         modalImplicationGraph.getDetectedStrong().trimToSize();
+        if (compact) {
+            compactionStatistic = new MIGCompactor(modalImplicationGraph).compact();
+            FeatJAR.log().debug(compactionStatistic);
+        }
+        modalImplicationGraph.resetComplexClauseIndex();
     }
 
     public boolean isCheckRedundancy() {
@@ -439,6 +448,28 @@ public abstract class MIGBuilder implements IMonitorableFunction<CNF, ModalImpli
         this.checkRedundancy = checkRedundancy;
     }
 
+    public boolean isCompact() {
+        return compact;
+    }
+
+    /**
+     * Sets whether redundant weak edges are removed from the finished graph.
+     *
+     * @param compact whether to compact the graph
+     * @see MIGCompactor
+     */
+    public void setCompact(boolean compact) {
+        this.compact = compact;
+    }
+
+    /**
+     * @return the statistic of the last compaction, or {@code null} if the graph
+     *         was not compacted
+     */
+    public MIGCompactor.CompactionStatistic getCompactionStatistic() {
+        return compactionStatistic;
+    }
+
     public boolean isDetectStrong() {
         return detectStrong;
     }
@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2022 Sebastian Krieter
+ *
+ * This file is part of formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.todo.mig.solver;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Removes redundant weak edges from a {@link ModalImplicationGraph}. A complex
+ * clause is redundant if it is subsumed by another complex clause or by a
+ * binary clause that is already represented by the strong edges. Additionally,
+ * identical clauses of different vertices are replaced by a single shared
+ * instance.
+ *
+ * <br>
+ * <br>
+ * Removing these clauses does not change the result of unit propagation along
+ * the graph, but reduces the number of weak edges a traverser has to visit.
+ * Strong edges must already be transitively closed (as done by
+ * {@link MIGBuilder}).
+ *
+ * @author Sebastian Krieter
+ */
+public class MIGCompactor {
+
+    /**
+     * Summary of the effects of a compaction.
+     */
+    public static class CompactionStatistic {
+
+        private static final int OBJECT_HEADER_BYTES = 16;
+        private static final int ARRAY_HEADER_BYTES = 16;
+
+        int internedInstances;
+        int subsumedClauses;
+        int strongImpliedClauses;
+        int removedEdges;
+        long removedEdgeLiterals;
+        long savedBytes;
+
+        void addInterned(SortedIntegerList clause) {
+            internedInstances++;
+            savedBytes += getSize(clause);
+        }
+
+        void addRemovedEdge(SortedIntegerList clause) {
+            removedEdges++;
+            removedEdgeLiterals += clause.size();
+            // one reference in the vertex's clause list
+            savedBytes += 4;
+        }
+
+        void addRemovedClause(SortedIntegerList clause) {
+            savedBytes += getSize(clause);
+        }
+
+        private static long getSize(SortedIntegerList clause) {
+            return OBJECT_HEADER_BYTES + ARRAY_HEADER_BYTES + (4L * clause.size());
+        }
+
+        /**
+         * @return the number of clause instances that were replaced by an equal
+         *         shared instance
+         */
+        public int getInternedInstances() {
+            return internedInstances;
+        }
+
+        /**
+         * @return the number of distinct clauses removed because another complex
+         *         clause subsumes them
+         */
+        public int getSubsumedClauses() {
+            return subsumedClauses;
+        }
+
+        /**
+         * @return the number of distinct clauses removed because a strong edge
+         *         subsumes them
+         */
+        public int getStrongImpliedClauses() {
+            return strongImpliedClauses;
+        }
+
+        /**
+         * @return the number of removed weak edges, i.e., clause occurrences in
+         *         the vertices' clause lists
+         */
+        public int getRemovedEdges() {
+            return removedEdges;
+        }
+
+        /**
+         * @return the number of literals a traverser no longer visits when it
+         *         expands every vertex once
+         */
+        public long getRemovedEdgeLiterals() {
+            return removedEdgeLiterals;
+        }
+
+        /**
+         * @return an estimate of the heap memory saved in bytes
+         */
+        public long getSavedBytes() {
+            return savedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "CompactionStatistic [internedInstances=" + internedInstances + ", subsumedClauses="
+                    + subsumedClauses + ", strongImpliedClauses=" + strongImpliedClauses + ", removedEdges="
+                    + removedEdges + ", removedEdgeLiterals=" + removedEdgeLiterals + ", savedBytes=" + savedBytes
+                    + "]";
+        }
+    }
+
+    private final ModalImplicationGraph modalImplicationGraph;
+
+    public MIGCompactor(ModalImplicationGraph modalImplicationGraph) {
+        this.modalImplicationGraph = modalImplicationGraph;
+    }
+
+    public CompactionStatistic compact() {
+        final CompactionStatistic statistic = new CompactionStatistic();
+        final List<SortedIntegerList> clauses = intern(statistic);
+        final HashSet<SortedIntegerList> redundantClauses = findRedundantClauses(clauses, statistic);
+
+        if (!redundantClauses.isEmpty()) {
+            for (final SortedIntegerList clause : redundantClauses) {
+                statistic.addRemovedClause(clause);
+            }
+            for (final Vertex vertex : modalImplicationGraph.getVertices()) {
+                vertex.getComplexClauses().removeIf(clause -> {
+                    if (redundantClauses.contains(clause)) {
+                        statistic.addRemovedEdge(clause);
+                        return true;
+                    }
+                    return false;
+                });
+                vertex.complexSortedIntegerLists.trimToSize();
+            }
+        }
+        modalImplicationGraph.resetComplexClauseIndex();
+        return statistic;
+    }
+
+    private List<SortedIntegerList> intern(CompactionStatistic statistic) {
+        final HashMap<SortedIntegerList, SortedIntegerList> canonicalClauses = new HashMap<>();
+        for (final Vertex vertex : modalImplicationGraph.getVertices()) {
+            final List<SortedIntegerList> complexClauses = vertex.getComplexClauses();
+            for (int i = 0; i < complexClauses.size(); i++) {
+                final SortedIntegerList clause = complexClauses.get(i);
+                final SortedIntegerList canonicalClause = canonicalClauses.putIfAbsent(clause, clause);
+                if ((canonicalClause != null) && (canonicalClause != clause)) {
+                    complexClauses.set(i, canonicalClause);
+                    statistic.addInterned(clause);
+                }
+            }
+        }
+        final ArrayList<SortedIntegerList> clauses = new ArrayList<>(canonicalClauses.keySet());
+        clauses.sort(Comparator.comparingInt(SortedIntegerList::size));
+        return clauses;
+    }
+
+    private HashSet<SortedIntegerList> findRedundantClauses(
+            List<SortedIntegerList> clauses, CompactionStatistic statistic) {
+        final HashSet<SortedIntegerList> redundantClauses = new HashSet<>();
+        final int[] mark = new int[modalImplicationGraph.getVertices().size()];
+        int stamp = 0;
+
+        for (final SortedIntegerList clause : clauses) {
+            stamp++;
+            final int[] literals = clause.getIntegers();
+            for (final int literal : literals) {
+                mark[ModalImplicationGraph.getVertexIndex(literal)] = stamp;
+            }
+
+            if (isImpliedByStrongEdge(literals, mark, stamp)) {
+                redundantClauses.add(clause);
+                statistic.strongImpliedClauses++;
+            } else if (isSubsumed(clause, mark, stamp)) {
+                redundantClauses.add(clause);
+                statistic.subsumedClauses++;
+            }
+        }
+        return redundantClauses;
+    }
+
+    private boolean isImpliedByStrongEdge(int[] literals, int[] mark, int stamp) {
+        for (final int literal : literals) {
+            // strong edge -literal -> other corresponds to the binary clause (literal, other)
+            for (final Vertex strongVertex : modalImplicationGraph.getVertex(-literal).getStrongEdges()) {
+                final int other = strongVertex.getVar();
+                if ((other != literal) && (mark[ModalImplicationGraph.getVertexIndex(other)] == stamp)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isSubsumed(SortedIntegerList clause, int[] mark, int stamp) {
+        // a clause containing a literal l is stored as weak edge of the vertex -l
+        for (final int literal : clause.getIntegers()) {
+            candidateLoop:
+            for (final SortedIntegerList candidate :
+                    modalImplicationGraph.getVertex(-literal).getComplexClauses()) {
+                // check each candidate only once, via its first literal
+                final int[] candidateLiterals = candidate.getIntegers();
+                if ((candidate.size() < clause.size()) && (candidateLiterals[0] == literal)) {
+                    for (final int candidateLiteral : candidateLiterals) {
+                        if (mark[ModalImplicationGraph.getVertexIndex(candidateLiteral)] != stamp) {
+                            continue candidateLoop;
+                        }
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
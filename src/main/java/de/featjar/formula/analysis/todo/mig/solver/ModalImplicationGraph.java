@@ -24,6 +24,7 @@ import de.featjar.formula.analysis.todo.mig.solver.Vertex.Status;
 import de.featjar.formula.analysis.todo.mig.solver.visitor.Traverser;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
 /**
@@ -47,6 +48,10 @@ public class ModalImplicationGraph {
         return getVertexIndex(vertex.getVar());
     }
 
+    public static int getLiteral(int vertexIndex) {
+        return (vertexIndex & 1) == 0 ? -((vertexIndex >> 1) + 1) : ((vertexIndex >> 1) + 1);
+    }
+
     private final ArrayList<SortedIntegerList> detectedStrong = new ArrayList<>();
 
     private final List<Vertex> adjList;
@@ -55,6 +60,10 @@ public class ModalImplicationGraph {
     private BuildStatus redundancyStatus = BuildStatus.None;
     private BuildStatus strongStatus = BuildStatus.None;
 
+    private int[][] complexClauseIds;
+    private int[] complexClauseOffsets;
+    private int[] complexClauseLiterals;
+
     public ModalImplicationGraph(CNF cnf) {
         this.cnf = cnf;
         final int numVariables = cnf.getVariableMap().getVariableCount();
@@ -72,6 +81,81 @@ public class ModalImplicationGraph {
 
     public void copyValues(ModalImplicationGraph other) {
         adjList.addAll(other.adjList);
+        resetComplexClauseIndex();
+    }
+
+    /**
+     * Assigns an id to each distinct complex clause of this graph and stores
+     * the literals of all clauses in one flat array. The clause with id
+     * {@code i} occupies the range from {@code getComplexClauseOffsets()[i]}
+     * (inclusive) to {@code getComplexClauseOffsets()[i + 1]} (exclusive).
+     * The index is computed once and shared by all traversers of this graph.
+     */
+    public synchronized void indexComplexClauses() {
+        if (complexClauseIds != null) {
+            return;
+        }
+        final HashMap<SortedIntegerList, Integer> clauseIdMap = new HashMap<>();
+        final ArrayList<SortedIntegerList> clauses = new ArrayList<>();
+        final int[][] vertexClauseIds = new int[adjList.size()][];
+        int literalCount = 0;
+        for (final Vertex vertex : adjList) {
+            final List<SortedIntegerList> complexClauses = vertex.getComplexClauses();
+            final int[] ids = new int[complexClauses.size()];
+            for (int i = 0; i < ids.length; i++) {
+                final SortedIntegerList clause = complexClauses.get(i);
+                Integer id = clauseIdMap.get(clause);
+                if (id == null) {
+                    id = clauses.size();
+                    clauseIdMap.put(clause, id);
+                    clauses.add(clause);
+                    literalCount += clause.size();
+                }
+                ids[i] = id;
+            }
+            vertexClauseIds[getVertexIndex(vertex)] = ids;
+        }
+
+        final int[] offsets = new int[clauses.size() + 1];
+        final int[] literals = new int[literalCount];
+        int offset = 0;
+        for (int i = 0; i < clauses.size(); i++) {
+            final SortedIntegerList clause = clauses.get(i);
+            offsets[i] = offset;
+            System.arraycopy(clause.getIntegers(), 0, literals, offset, clause.size());
+            offset += clause.size();
+        }
+        offsets[clauses.size()] = offset;
+
+        complexClauseOffsets = offsets;
+        complexClauseLiterals = literals;
+        complexClauseIds = vertexClauseIds;
+    }
+
+    public synchronized void resetComplexClauseIndex() {
+        complexClauseIds = null;
+        complexClauseOffsets = null;
+        complexClauseLiterals = null;
+    }
+
+    public synchronized int getComplexClauseCount() {
+        indexComplexClauses();
+        return complexClauseOffsets.length - 1;
+    }
+
+    public synchronized int[][] getComplexClauseIds() {
+        indexComplexClauses();
+        return complexClauseIds;
+    }
+
+    public synchronized int[] getComplexClauseOffsets() {
+        indexComplexClauses();
+        return complexClauseOffsets;
+    }
+
+    public synchronized int[] getComplexClauseLiterals() {
+        indexComplexClauses();
+        return complexClauseLiterals;
     }
 
     public Traverser traverse() {
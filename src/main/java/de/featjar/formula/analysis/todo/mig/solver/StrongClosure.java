@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2022 Sebastian Krieter
+ *
+ * This file is part of formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.todo.mig.solver;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Precomputed transitive closure of the strong edges of a
+ * {@link ModalImplicationGraph}. Strongly connected components are condensed
+ * first and reachability is then propagated in reverse topological order using
+ * 64-bit word-parallel bitsets. Afterwards, checking whether selecting one
+ * literal implies another is a single bit lookup.
+ *
+ * <br>
+ * <br>
+ * Each component stores one bitset over all vertices, so the memory required
+ * is quadratic in the number of components. The closure is reflexive, i.e.,
+ * each literal implies itself.
+ *
+ * @author Sebastian Krieter
+ */
+public class StrongClosure {
+
+    private final int vertexCount;
+    private final int[] component;
+    private final long[][] reachable;
+
+    public StrongClosure(ModalImplicationGraph modalImplicationGraph) {
+        final List<Vertex> vertices = modalImplicationGraph.getVertices();
+        vertexCount = vertices.size();
+        final int words = (vertexCount + 63) >>> 6;
+
+        final int[][] successors = new int[vertexCount][];
+        for (final Vertex vertex : vertices) {
+            final List<Vertex> strongEdges = vertex.getStrongEdges();
+            final int[] vertexSuccessors = new int[strongEdges.size()];
+            for (int i = 0; i < vertexSuccessors.length; i++) {
+                vertexSuccessors[i] = ModalImplicationGraph.getVertexIndex(strongEdges.get(i));
+            }
+            successors[ModalImplicationGraph.getVertexIndex(vertex)] = vertexSuccessors;
+        }
+
+        component = new int[vertexCount];
+        final int componentCount = computeComponents(successors);
+
+        final int[] memberStart = new int[componentCount + 1];
+        for (int v = 0; v < vertexCount; v++) {
+            memberStart[component[v] + 1]++;
+        }
+        for (int c = 0; c < componentCount; c++) {
+            memberStart[c + 1] += memberStart[c];
+        }
+        final int[] members = new int[vertexCount];
+        final int[] memberPosition = Arrays.copyOf(memberStart, componentCount);
+        for (int v = 0; v < vertexCount; v++) {
+            members[memberPosition[component[v]]++] = v;
+        }
+
+        // Tarjan's algorithm completes sinks first, so successor components always have a smaller id.
+        reachable = new long[componentCount][];
+        final int[] lastMerged = new int[componentCount];
+        Arrays.fill(lastMerged, -1);
+        for (int c = 0; c < componentCount; c++) {
+            final long[] bits = new long[words];
+            lastMerged[c] = c;
+            for (int m = memberStart[c]; m < memberStart[c + 1]; m++) {
+                final int v = members[m];
+                bits[v >>> 6] |= 1L << v;
+                for (final int w : successors[v]) {
+                    final int successorComponent = component[w];
+                    if (lastMerged[successorComponent] != c) {
+                        lastMerged[successorComponent] = c;
+                        final long[] successorBits = reachable[successorComponent];
+                        for (int i = 0; i < words; i++) {
+                            bits[i] |= successorBits[i];
+                        }
+                    }
+                }
+            }
+            reachable[c] = bits;
+        }
+    }
+
+    private int computeComponents(int[][] successors) {
+        final int[] index = new int[vertexCount];
+        final int[] lowLink = new int[vertexCount];
+        final int[] edgePosition = new int[vertexCount];
+        final boolean[] onStack = new boolean[vertexCount];
+        final int[] stack = new int[vertexCount];
+        final int[] callStack = new int[vertexCount];
+        Arrays.fill(index, -1);
+
+        int nextIndex = 0;
+        int stackSize = 0;
+        int componentCount = 0;
+        for (int root = 0; root < vertexCount; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int callDepth = 0;
+            index[root] = lowLink[root] = nextIndex++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            callStack[callDepth++] = root;
+
+            while (callDepth > 0) {
+                final int v = callStack[callDepth - 1];
+                final int[] vertexSuccessors = successors[v];
+                if (edgePosition[v] < vertexSuccessors.length) {
+                    final int w = vertexSuccessors[edgePosition[v]++];
+                    if (index[w] < 0) {
+                        index[w] = lowLink[w] = nextIndex++;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        callStack[callDepth++] = w;
+                    } else if (onStack[w]) {
+                        lowLink[v] = Math.min(lowLink[v], index[w]);
+                    }
+                } else {
+                    callDepth--;
+                    if (lowLink[v] == index[v]) {
+                        int w;
+                        do {
+                            w = stack[--stackSize];
+                            onStack[w] = false;
+                            component[w] = componentCount;
+                        } while (w != v);
+                        componentCount++;
+                    }
+                    if (callDepth > 0) {
+                        final int u = callStack[callDepth - 1];
+                        lowLink[u] = Math.min(lowLink[u], lowLink[v]);
+                    }
+                }
+            }
+        }
+        return componentCount;
+    }
+
+    /**
+     * Checks whether selecting {@code literal} implies {@code impliedLiteral} via
+     * strong edges.
+     *
+     * @param literal the selected literal
+     * @param impliedLiteral the literal to check
+     * @return {@code true} if {@code impliedLiteral} is implied
+     */
+    public boolean implies(int literal, int impliedLiteral) {
+        final int vertexIndex = ModalImplicationGraph.getVertexIndex(impliedLiteral);
+        return (getClosure(literal)[vertexIndex >>> 6] & (1L << vertexIndex)) != 0;
+    }
+
+    /**
+     * Checks whether selecting all given literals together contradicts the strong
+     * edges, i.e., whether one literal implies the complement of another.
+     *
+     * @param literals the literals to check
+     * @return {@code true} if the literals are in conflict
+     */
+    public boolean isConflicting(int... literals) {
+        for (final int literal : literals) {
+            final long[] closure = getClosure(literal);
+            for (final int other : literals) {
+                final int vertexIndex = ModalImplicationGraph.getVertexIndex(-other);
+                if ((closure[vertexIndex >>> 6] & (1L << vertexIndex)) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the closure of the given literal as a bitset over vertex indices.
+     * The returned array is shared between all literals of the same strongly
+     * connected component and must not be modified.
+     *
+     * @param literal the literal
+     * @return the closure bitset
+     * @see ModalImplicationGraph#getVertexIndex(int)
+     */
+    public long[] getClosure(int literal) {
+        return reachable[component[ModalImplicationGraph.getVertexIndex(literal)]];
+    }
+
+    /**
+     * Returns all literals implied by the given literal, excluding the literal
+     * itself.
+     *
+     * @param literal the literal
+     * @return the implied literals
+     */
+    public int[] getClosureLiterals(int literal) {
+        final long[] closure = getClosure(literal);
+        int count = 0;
+        for (final long word : closure) {
+            count += Long.bitCount(word);
+        }
+        final int[] literals = new int[count - 1];
+        final int ownIndex = ModalImplicationGraph.getVertexIndex(literal);
+        int i = 0;
+        for (int w = 0; w < closure.length; w++) {
+            long word = closure[w];
+            while (word != 0) {
+                final int vertexIndex = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                if (vertexIndex != ownIndex) {
+                    literals[i++] = ModalImplicationGraph.getLiteral(vertexIndex);
+                }
+            }
+        }
+        return literals;
+    }
+
+    public int getComponentCount() {
+        return reachable.length;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+}
@@ -21,10 +21,18 @@
 package de.featjar.formula.analysis.todo.mig.solver.visitor;
 
 import de.featjar.formula.analysis.todo.mig.solver.ModalImplicationGraph;
+import java.util.Arrays;
 
 abstract class ATraverser implements ITraverser {
 
-    protected final boolean[] dfsMark;
+    /**
+     * Vertex marks of the current traversal. A vertex is marked iff its entry
+     * equals {@link #dfsEpoch}, so starting a new traversal only requires
+     * incrementing the epoch instead of clearing the array.
+     */
+    protected final int[] dfsMark;
+
+    protected int dfsEpoch = 1;
     protected final ModalImplicationGraph modalImplicationGraph;
 
     protected Visitor<?> visitor = null;
@@ -32,7 +40,22 @@ abstract class ATraverser implements ITraverser {
 
     public ATraverser(ModalImplicationGraph modalImplicationGraph) {
         this.modalImplicationGraph = modalImplicationGraph;
-        dfsMark = new boolean[modalImplicationGraph.getVertices().size()];
+        dfsMark = new int[modalImplicationGraph.getVertices().size()];
+    }
+
+    protected void resetMarks() {
+        if (++dfsEpoch == Integer.MAX_VALUE) {
+            Arrays.fill(dfsMark, 0);
+            dfsEpoch = 1;
+        }
+    }
+
+    protected boolean isMarked(int vertexIndex) {
+        return dfsMark[vertexIndex] == dfsEpoch;
+    }
+
+    protected void mark(int vertexIndex) {
+        dfsMark[vertexIndex] = dfsEpoch;
     }
 
     @Override
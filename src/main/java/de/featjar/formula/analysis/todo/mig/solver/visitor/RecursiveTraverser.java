@@ -23,7 +23,6 @@ package de.featjar.formula.analysis.todo.mig.solver.visitor;
 import de.featjar.formula.analysis.todo.mig.solver.ModalImplicationGraph;
 import de.featjar.formula.analysis.todo.mig.solver.Vertex;
 
-import java.util.Arrays;
 import java.util.List;
 
 import org.sat4j.core.VecInt;
@@ -38,7 +37,7 @@ public class RecursiveTraverser extends ATraverser {
     @Override
     public void setModel(int[] model) {
         super.setModel(model);
-        Arrays.fill(dfsMark, false);
+        resetMarks();
     }
 
     @Override
@@ -122,8 +121,8 @@ public class RecursiveTraverser extends ATraverser {
         }
 
         final int vertexIndex = ModalImplicationGraph.getVertexIndex(curLiteral);
-        if (!dfsMark[vertexIndex]) {
-            dfsMark[vertexIndex] = true;
+        if (!isMarked(vertexIndex)) {
+            mark(vertexIndex);
             if (!strongPath) {
                 visitor.visitWeak(curLiteral);
             }
@@ -39,7 +39,7 @@ public class TransitiveTraverser extends ATraverser {
     @Override
     public void traverse(int... curLiterals) {
         final HashMap<SortedIntegerList, VecInt> complexClauseMap = new HashMap<>();
-        Arrays.fill(dfsMark, false);
+        resetMarks();
 
         traverseStrong(complexClauseMap, curLiterals);
         mainLoop:
@@ -54,8 +54,8 @@ public class TransitiveTraverser extends ATraverser {
                         final int literal = iterator.next();
                         if (currentConfiguration[Math.abs(literal) - 1] == 0) {
                             final int vertexIndex = ModalImplicationGraph.getVertexIndex(literal);
-                            if (!dfsMark[vertexIndex]) {
-                                dfsMark[vertexIndex] = true;
+                            if (!isMarked(vertexIndex)) {
+                                mark(vertexIndex);
                                 final Vertex vertex = modalImplicationGraph.getVertex(literal);
                                 boolean changed = false;
                                 final Visitor.VisitResult visitWeakResult = visitor.visitWeak(literal);
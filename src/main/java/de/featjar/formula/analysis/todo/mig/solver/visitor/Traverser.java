@@ -25,21 +25,64 @@ import de.featjar.formula.analysis.todo.mig.solver.Vertex;
 import de.featjar.formula.analysis.todo.mig.solver.visitor.Visitor.VisitResult;
 
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map.Entry;
-
-import org.sat4j.core.VecInt;
-import org.sat4j.specs.IteratorInt;
 
+/**
+ * Traverses a {@link ModalImplicationGraph} without allocating memory during a
+ * traversal. All scratch state (vertex marks, open clauses, and their remaining
+ * literals) is kept in arrays that are allocated once per traverser and reused
+ * by epoch stamping.
+ *
+ * @author Sebastian Krieter
+ */
 public class Traverser extends ATraverser {
 
     private static class CancelException extends Exception {
+        private CancelException() {
+            super(null, null, false, false);
+        }
     }
 
+    private static final CancelException CANCEL = new CancelException();
+
+    private final int[][] vertexClauseIds;
+    private final int[] clauseOffsets;
+    private final int[] clauseLiterals;
+
+    /**
+     * Remaining literals of each open clause, stored at the same offset as in
+     * {@link #clauseLiterals}.
+     */
+    private final int[] openLiterals;
+
+    private final int[] openSize;
+
+    /**
+     * A clause is open iff its entry equals {@link #clauseEpoch} and closed iff
+     * its entry equals {@code -clauseEpoch}.
+     */
+    private final int[] clauseMark;
+
+    private final int[] openClauses;
+    private final int[] unitClauses;
+
+    private int clauseEpoch = 1;
+    private int openClauseCount = 0;
+    private boolean conflict;
+
     public Traverser(ModalImplicationGraph modalImplicationGraph) {
         super(modalImplicationGraph);
+        modalImplicationGraph.indexComplexClauses();
+        vertexClauseIds = modalImplicationGraph.getComplexClauseIds();
+        clauseOffsets = modalImplicationGraph.getComplexClauseOffsets();
+        clauseLiterals = modalImplicationGraph.getComplexClauseLiterals();
+
+        final int clauseCount = clauseOffsets.length - 1;
+        openLiterals = new int[clauseLiterals.length];
+        openSize = new int[clauseCount];
+        clauseMark = new int[clauseCount];
+        openClauses = new int[clauseCount];
+        unitClauses = new int[clauseCount];
     }
 
     @Override
@@ -51,40 +94,40 @@ public class Traverser extends ATraverser {
     }
 
     private void traverseAll(int... curLiterals) throws CancelException {
-        final HashMap<SortedIntegerList, VecInt> openClauseMap = new HashMap<>();
-        Arrays.fill(dfsMark, false);
+        resetClauses();
+        resetMarks();
+        conflict = false;
 
-        traverseStrong(openClauseMap, curLiterals);
+        traverseStrongLiterals(curLiterals);
         mainLoop:
         while (true) {
-            for (final Iterator<Entry<SortedIntegerList, VecInt>> openClauseIterator =
-                 openClauseMap.entrySet().iterator();
-                 openClauseIterator.hasNext(); ) {
-                final VecInt openClause = openClauseIterator.next().getValue();
-                if (openClause != null) {
-                    for (final IteratorInt literalIterator = openClause.iterator(); literalIterator.hasNext(); ) {
-                        final int literal = literalIterator.next();
+            for (int i = 0; i < openClauseCount; i++) {
+                final int clauseId = openClauses[i];
+                if (clauseMark[clauseId] == clauseEpoch) {
+                    final int offset = clauseOffsets[clauseId];
+                    for (int j = offset, end = offset + openSize[clauseId]; j < end; j++) {
+                        final int literal = openLiterals[j];
                         if (currentConfiguration[getIndex(literal)] == 0) {
                             final int vertexIndex = ModalImplicationGraph.getVertexIndex(literal);
-                            if (!dfsMark[vertexIndex]) {
-                                dfsMark[vertexIndex] = true;
+                            if (!isMarked(vertexIndex)) {
+                                mark(vertexIndex);
                                 boolean changed = false;
                                 final VisitResult visitWeakResult = visitor.visitWeak(literal);
                                 switch (visitWeakResult) {
                                     case Cancel:
                                         return;
                                     case Continue:
-                                        changed |= addComplexClauses(openClauseMap, modalImplicationGraph.getVertex(literal)) > 0;
+                                        changed |= addComplexClauses(literal) > 0;
                                         break;
                                     case Select:
-                                        changed |= attemptStrongSelect(literal, openClauseMap);
+                                        changed |= attemptStrongSelect(literal);
                                         break;
                                     case Skip:
                                         break;
                                     default:
                                         throw new AssertionError(visitWeakResult);
                                 }
-                                changed |= processComplexClauses(openClauseMap);
+                                changed |= processComplexClauses();
                                 if (changed) {
                                     continue mainLoop;
                                 }
@@ -100,68 +143,96 @@ public class Traverser extends ATraverser {
     @Override
     public void traverseStrong(int... curLiterals) {
         try {
-            traverseStrong(new HashMap<>(), curLiterals);
+            resetClauses();
+            conflict = false;
+            traverseStrongLiterals(curLiterals);
         } catch (final CancelException e) {
         }
     }
 
-    private void traverseStrong(final HashMap<SortedIntegerList, VecInt> complexClauseMap, int... curLiterals)
-            throws CancelException {
+    private void traverseStrongLiterals(int... curLiterals) throws CancelException {
         boolean changed = false;
         for (final int curLiteral : curLiterals) {
-            changed |= attemptStrongSelect(curLiteral, complexClauseMap);
+            changed |= selectRoot(curLiteral);
         }
         if (changed) {
-            processComplexClauses(complexClauseMap);
+            processComplexClauses();
         }
     }
 
-    private boolean processComplexClauses(final HashMap<SortedIntegerList, VecInt> complexClauseMap) throws CancelException {
+    private void resetClauses() {
+        if (++clauseEpoch == Integer.MAX_VALUE) {
+            Arrays.fill(clauseMark, 0);
+            clauseEpoch = 1;
+        }
+        openClauseCount = 0;
+    }
+
+    private boolean processComplexClauses() throws CancelException {
         boolean changedInLoop, changed = false;
         do {
             changedInLoop = false;
-            final List<VecInt> unitClauses = new LinkedList<>();
-            for (final Entry<SortedIntegerList, VecInt> entry : complexClauseMap.entrySet()) {
-                final VecInt v = entry.getValue();
-                if (v != null) {
-                    for (int j = v.size() - 1; j >= 0; j--) {
-                        final int literal = v.get(j);
+            int unitClauseCount = 0;
+            for (int i = 0; i < openClauseCount; i++) {
+                final int clauseId = openClauses[i];
+                if (clauseMark[clauseId] == clauseEpoch) {
+                    final int offset = clauseOffsets[clauseId];
+                    int size = openSize[clauseId];
+                    for (int j = offset + size - 1; j >= offset; j--) {
+                        final int literal = openLiterals[j];
                         final int value = currentConfiguration[getIndex(literal)];
                         if (value != 0) {
                             if (value == literal) {
-                                entry.setValue(null);
+                                clauseMark[clauseId] = -clauseEpoch;
                             } else {
-                                v.delete(j);
+                                openLiterals[j] = openLiterals[offset + --size];
                             }
                             changed = true;
                         }
                     }
+                    openSize[clauseId] = size;
 
-                    if (v.size() == 1) {
-                        entry.setValue(null);
-                        unitClauses.add(v);
+                    if (size == 0 && clauseMark[clauseId] == clauseEpoch) {
+                        clauseMark[clauseId] = -clauseEpoch;
+                        conflict = true;
+                    } else if (size == 1 && clauseMark[clauseId] == clauseEpoch) {
+                        clauseMark[clauseId] = -clauseEpoch;
+                        unitClauses[unitClauseCount++] = clauseId;
                     }
                 }
             }
 
-            for (final VecInt v : unitClauses) {
-                changedInLoop |= attemptStrongSelect(v.get(0), complexClauseMap);
+            for (int i = 0; i < unitClauseCount; i++) {
+                changedInLoop |= attemptStrongSelect(openLiterals[clauseOffsets[unitClauses[i]]]);
             }
             changed |= changedInLoop;
         } while (changedInLoop);
         return changed;
     }
 
-    private boolean attemptStrongSelect(final int curLiteral, final HashMap<SortedIntegerList, VecInt> complexClauseMap)
-            throws CancelException {
+    /**
+     * Selects a literal given to {@link #traverse(int...)} or
+     * {@link #traverseStrong(int...)}. In contrast to implied literals, a given
+     * literal that is already contained in the model is expanded as well, so that
+     * callers may write the literals into the model before the traversal.
+     */
+    private boolean selectRoot(final int curLiteral) throws CancelException {
+        if (currentConfiguration[getIndex(curLiteral)] == curLiteral) {
+            expand(curLiteral);
+            return true;
+        }
+        return attemptStrongSelect(curLiteral);
+    }
+
+    private boolean attemptStrongSelect(final int curLiteral) throws CancelException {
         final int modelIndex = getIndex(curLiteral);
         final int currentVariableSelection = currentConfiguration[modelIndex];
         if (currentVariableSelection == 0) {
             currentConfiguration[modelIndex] = curLiteral;
-            VisitResult visitStrongResult = visitor.visitStrong(curLiteral);
+            final VisitResult visitStrongResult = visitor.visitStrong(curLiteral);
             switch (visitStrongResult) {
                 case Cancel:
-                    throw new CancelException();
+                    throw CANCEL;
                 case Skip:
                     return true;
                 case Select:
@@ -170,48 +241,70 @@ public class Traverser extends ATraverser {
                 default:
                     throw new AssertionError(visitStrongResult);
             }
-
-            final Vertex curVertex = modalImplicationGraph.getVertex(curLiteral);
-            addComplexClauses(complexClauseMap, curVertex);
-
-            for (final Vertex strongVertex : curVertex.getStrongEdges()) {
-                final int literal = strongVertex.getVar();
-                final int strongVertexIndex = getIndex(literal);
-                if (currentConfiguration[strongVertexIndex] == 0) {
-                    currentConfiguration[strongVertexIndex] = literal;
-                    visitStrongResult = visitor.visitStrong(literal);
-                    switch (visitStrongResult) {
-                        case Cancel:
-                            throw new CancelException();
-                        case Skip:
-                            break;
-                        case Select:
-                        case Continue:
-                            addComplexClauses(complexClauseMap, strongVertex);
-                            break;
-                        default:
-                            throw new AssertionError(visitStrongResult);
-                    }
-                }
-            }
+            expand(curLiteral);
             return true;
         } else if (currentVariableSelection != curLiteral) {
-            // TODO
-
+            conflict = true;
         }
         return false;
     }
 
+    private void expand(final int curLiteral) throws CancelException {
+        addComplexClauses(curLiteral);
+
+        final List<Vertex> strongEdges =
+                modalImplicationGraph.getVertex(curLiteral).getStrongEdges();
+        for (int i = 0, size = strongEdges.size(); i < size; i++) {
+            final int literal = strongEdges.get(i).getVar();
+            final int strongVertexIndex = getIndex(literal);
+            final int value = currentConfiguration[strongVertexIndex];
+            if (value == 0) {
+                currentConfiguration[strongVertexIndex] = literal;
+                final VisitResult visitStrongResult = visitor.visitStrong(literal);
+                switch (visitStrongResult) {
+                    case Cancel:
+                        throw CANCEL;
+                    case Skip:
+                        break;
+                    case Select:
+                    case Continue:
+                        addComplexClauses(literal);
+                        break;
+                    default:
+                        throw new AssertionError(visitStrongResult);
+                }
+            } else if (value != literal) {
+                conflict = true;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the last traversal reached the complement of a literal in
+     * the model or a complex clause whose literals are all false. In this case,
+     * the model together with the traversed literals is unsatisfiable.
+     *
+     * @return {@code true} if a conflict was found, {@code false} otherwise
+     */
+    public boolean isConflict() {
+        return conflict;
+    }
+
     private int getIndex(final int literal) {
         return Math.abs(literal) - 1;
     }
 
-    private int addComplexClauses(final HashMap<SortedIntegerList, VecInt> complexClauseMap, final Vertex vertex) {
+    private int addComplexClauses(final int literal) {
         int added = 0;
-        final List<SortedIntegerList> complexSortedIntegerLists = vertex.getComplexClauses();
-        for (final SortedIntegerList sortedIntegerList : complexSortedIntegerLists) {
-            if (!complexClauseMap.containsKey(sortedIntegerList)) {
-                complexClauseMap.put(sortedIntegerList, new VecInt(Arrays.copyOf(sortedIntegerList.getIntegers(), sortedIntegerList.size())));
+        for (final int clauseId : vertexClauseIds[ModalImplicationGraph.getVertexIndex(literal)]) {
+            final int mark = clauseMark[clauseId];
+            if (mark != clauseEpoch && mark != -clauseEpoch) {
+                clauseMark[clauseId] = clauseEpoch;
+                final int offset = clauseOffsets[clauseId];
+                final int size = clauseOffsets[clauseId + 1] - offset;
+                System.arraycopy(clauseLiterals, offset, openLiterals, offset, size);
+                openSize[clauseId] = size;
+                openClauses[openClauseCount++] = clauseId;
                 added++;
             }
         }
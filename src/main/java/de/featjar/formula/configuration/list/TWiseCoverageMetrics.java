@@ -20,25 +20,32 @@
  */
 package de.featjar.formula.configuration.list;
 
+import de.featjar.base.FeatJAR;
 import de.featjar.formula.analysis.sat4j.solver.SAT4JSolutionSolver;
 import de.featjar.formula.analysis.sat4j.todo.twise.CoverageStatistic;
+import de.featjar.formula.analysis.sat4j.todo.twise.InvalidCombinationStore;
 import de.featjar.formula.analysis.sat4j.todo.twise.PresenceConditionManager;
 import de.featjar.formula.analysis.sat4j.todo.twise.TWiseConfigurationGenerator;
 import de.featjar.formula.analysis.sat4j.todo.twise.TWiseConfigurationUtil;
 import de.featjar.formula.analysis.sat4j.todo.twise.TWiseConfigurationUtil.InvalidClausesList;
 import de.featjar.formula.analysis.sat4j.todo.twise.TWiseStatisticGenerator;
+import de.featjar.formula.analysis.sat4j.todo.twise.TWiseStatisticParallelGenerator;
 import de.featjar.formula.analysis.bool.ABooleanAssignmentList;
 import de.featjar.formula.analysis.metrics.ISampleMetric;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Tests whether a set of configurations achieves t-wise feature coverage.
  *
  * @author Sebastian Krieter
  */
-public class TWiseCoverageMetrics {
+public class TWiseCoverageMetrics implements AutoCloseable {
 
     public class TWiseCoverageMetric implements ISampleMetric {
         private final int t;
@@ -50,21 +57,27 @@ public class TWiseCoverageMetrics {
 
         @Override
         public double get(DNF sample) {
-            final TWiseStatisticGenerator tWiseStatisticGenerator = new TWiseStatisticGenerator(util);
+            final TWiseStatisticParallelGenerator tWiseStatisticGenerator = new TWiseStatisticParallelGenerator(util);
             if (firstUse) {
                 firstUse = false;
             } else {
                 util.setInvalidClausesList(InvalidClausesList.Use);
             }
-
-            final CoverageStatistic statistic = tWiseStatisticGenerator
-                    .getCoverage(
-                            Arrays.asList(sample.getSolutionList()), //
-                            presenceConditionManager.getGroupedPresenceConditions(), //
-                            t, //
-                            TWiseStatisticGenerator.ConfigurationScore.NONE, //
-                            true)
-                    .get(0);
+            final CoverageStatistic statistic;
+            util.setInvalidCombinationStore(getInvalidCombinationStore(t));
+            try {
+                statistic = tWiseStatisticGenerator
+                        .getCoverage(
+                                Arrays.asList(sample.getSolutionList()), //
+                                presenceConditionManager.getGroupedPresenceConditions(), //
+                                t, //
+                                TWiseStatisticGenerator.ConfigurationScore.NONE, //
+                                true)
+                        .get(0);
+            } finally {
+                // the store stays open for later calls and is released in close()
+                util.setInvalidCombinationStore(null);
+            }
 
             final long numberOfValidConditions = statistic.getNumberOfValidConditions();
             final long numberOfCoveredConditions = statistic.getNumberOfCoveredConditions();
@@ -86,6 +99,53 @@ public class TWiseCoverageMetrics {
     private String name;
     private CNF cnf;
     private List<List<ABooleanAssignmentList>> expressions;
+    private Path invalidCombinationStoreDirectory;
+    private final Map<Integer, InvalidCombinationStore> invalidCombinationStores = new HashMap<>();
+
+    /**
+     * Sets a directory for persistent {@link InvalidCombinationStore stores} of
+     * invalid combinations, which can be shared with other metric and generator
+     * processes on the same model. The stores are kept open until
+     * {@link #close()} is called.
+     *
+     * @param invalidCombinationStoreDirectory the directory or {@code null}
+     */
+    public void setInvalidCombinationStoreDirectory(Path invalidCombinationStoreDirectory) {
+        this.invalidCombinationStoreDirectory = invalidCombinationStoreDirectory;
+    }
+
+    private InvalidCombinationStore getInvalidCombinationStore(int t) {
+        if (invalidCombinationStoreDirectory == null) {
+            return null;
+        }
+        return invalidCombinationStores.computeIfAbsent(t, key -> {
+            try {
+                return InvalidCombinationStore.open(invalidCombinationStoreDirectory, cnf, key);
+            } catch (final IOException e) {
+                FeatJAR.log().error(e);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Closes all {@link InvalidCombinationStore stores} opened by the metrics of
+     * this instance.
+     */
+    @Override
+    public void close() {
+        if (util != null) {
+            util.setInvalidCombinationStore(null);
+        }
+        for (final InvalidCombinationStore store : invalidCombinationStores.values()) {
+            try {
+                store.close();
+            } catch (final IOException e) {
+                FeatJAR.log().error(e);
+            }
+        }
+        invalidCombinationStores.clear();
+    }
 
     public void setCNF(CNF cnf) {
         this.cnf = cnf;
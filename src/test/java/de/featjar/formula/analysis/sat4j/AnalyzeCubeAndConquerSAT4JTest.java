@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2023 Sebastian Krieter
+ *
+ * This file is part of FeatJAR-formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.sat4j;
+
+import static de.featjar.base.computation.Computations.async;
+import static de.featjar.formula.structure.Expressions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.featjar.base.computation.Computations;
+import de.featjar.base.computation.ComputePresence;
+import de.featjar.formula.analysis.bool.BooleanClauseList;
+import de.featjar.formula.analysis.bool.BooleanSolution;
+import de.featjar.formula.analysis.bool.ComputeBooleanRepresentationOfCNFFormula;
+import de.featjar.formula.structure.formula.IFormula;
+import de.featjar.formula.transformer.ComputeCNFFormula;
+import de.featjar.formula.transformer.ComputeNNFFormula;
+import org.junit.jupiter.api.Test;
+
+public class AnalyzeCubeAndConquerSAT4JTest {
+    public boolean hasSolution(IFormula formula) {
+        final BooleanClauseList clauseList = async(formula)
+                .map(ComputeNNFFormula::new)
+                .map(ComputeCNFFormula::new)
+                .map(ComputeBooleanRepresentationOfCNFFormula::new)
+                .map(Computations::getKey)
+                .get()
+                .get();
+        final ComputeSolutionSAT4J analysis = new ComputeSolutionSAT4J(async(clauseList));
+        analysis.getCubeAndConquerDependency().set(analysis, async(Boolean.TRUE));
+        return analysis.map(ComputePresence<BooleanSolution>::new).get().get();
+    }
+
+    @Test
+    void satisfiableFormulaHasSolution() {
+        assertTrue(hasSolution(and(
+                or(literal("a"), literal("b"), literal("c")),
+                or(literal(false, "a"), literal("d")),
+                or(literal(false, "b"), literal(false, "c")),
+                or(literal(false, "d"), literal("e"), literal(false, "f")),
+                or(literal("c"), literal("f")))));
+    }
+
+    @Test
+    void unsatisfiableFormulaHasNoSolution() {
+        assertFalse(hasSolution(and(
+                or(literal("a"), literal("b")),
+                or(literal(false, "a"), literal("b")),
+                or(literal("a"), literal(false, "b")),
+                or(literal(false, "a"), literal(false, "b")),
+                or(literal("c"), literal("d"), literal("e")),
+                or(literal(false, "c"), literal("f")))));
+    }
+}
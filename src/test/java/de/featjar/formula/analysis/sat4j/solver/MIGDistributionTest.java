@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2023 Sebastian Krieter
+ *
+ * This file is part of FeatJAR-formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.sat4j.solver;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class MIGDistributionTest {
+
+    private static final int VARIABLE_COUNT = 8;
+
+    private final int[][] strongEdges = new int[2 * VARIABLE_COUNT][];
+    private final int[][][] complexClauses = new int[2 * VARIABLE_COUNT][][];
+    private final byte[] model = new byte[VARIABLE_COUNT];
+
+    private void createGraph(Random random) {
+        for (int i = 0; i < strongEdges.length; i++) {
+            // variable 1 is core, so neither of its vertices is normal
+            if (i > 1) {
+                strongEdges[i] = new int[random.nextInt(4)];
+                for (int j = 0; j < strongEdges[i].length; j++) {
+                    strongEdges[i][j] = getRandomLiteral(random);
+                }
+                complexClauses[i] = new int[random.nextInt(3)][];
+                for (int j = 0; j < complexClauses[i].length; j++) {
+                    complexClauses[i][j] = new int[2 + random.nextInt(3)];
+                    for (int k = 0; k < complexClauses[i][j].length; k++) {
+                        complexClauses[i][j][k] = getRandomLiteral(random);
+                    }
+                }
+            }
+        }
+    }
+
+    private int getRandomLiteral(Random random) {
+        final int var = random.nextInt(VARIABLE_COUNT) + 1;
+        return random.nextBoolean() ? var : -var;
+    }
+
+    private long[] computeWeights() {
+        final long one = 1L << 20;
+        final long[] weights = new long[2 * VARIABLE_COUNT];
+        for (int var = 1; var <= VARIABLE_COUNT; var++) {
+            if (model[var - 1] == 0) {
+                for (final int vertex : new int[] {MIGDistribution.getVertexIndex(-var), MIGDistribution.getVertexIndex(var)}) {
+                    if (strongEdges[vertex] != null) {
+                        for (final int strong : strongEdges[vertex]) {
+                            weights[MIGDistribution.getVertexIndex(strong)] += one;
+                        }
+                        for (final int[] clause : complexClauses[vertex]) {
+                            for (final int literal : clause) {
+                                weights[MIGDistribution.getVertexIndex(literal)] += one / Math.max(1, clause.length - 1);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return weights;
+    }
+
+    private void assertWeights(MIGDistribution distribution) {
+        final long[] expected = computeWeights();
+        for (int var = 1; var <= VARIABLE_COUNT; var++) {
+            assertEquals(expected[MIGDistribution.getVertexIndex(var)], distribution.getWeight(var));
+            assertEquals(expected[MIGDistribution.getVertexIndex(-var)], distribution.getWeight(-var));
+        }
+    }
+
+    private void set(MIGDistribution distribution, int literal) {
+        distribution.set(literal);
+        if (model[Math.abs(literal) - 1] == 0) {
+            model[Math.abs(literal) - 1] = (byte) (literal > 0 ? 1 : -1);
+        }
+        assertWeights(distribution);
+    }
+
+    private void unset(MIGDistribution distribution, int var) {
+        distribution.unset(var);
+        model[var - 1] = 0;
+        assertWeights(distribution);
+    }
+
+    @Test
+    void vertexIndexMatchesLiteral() {
+        assertEquals(0, MIGDistribution.getVertexIndex(-1));
+        assertEquals(1, MIGDistribution.getVertexIndex(1));
+        assertEquals(4, MIGDistribution.getVertexIndex(-3));
+        assertEquals(5, MIGDistribution.getVertexIndex(3));
+    }
+
+    @Test
+    void incrementalWeightsMatchRecomputation() {
+        for (int seed = 0; seed < 20; seed++) {
+            final Random random = new Random(seed);
+            createGraph(random);
+            final MIGDistribution distribution = new MIGDistribution(strongEdges, complexClauses);
+            Arrays.fill(model, (byte) 0);
+            assertWeights(distribution);
+
+            set(distribution, 2);
+            set(distribution, -5);
+            set(distribution, 7);
+            set(distribution, -2);
+            unset(distribution, 5);
+            set(distribution, 1);
+            unset(distribution, 2);
+            unset(distribution, 3);
+            set(distribution, -8);
+
+            distribution.reset();
+            Arrays.fill(model, (byte) 0);
+            assertWeights(distribution);
+
+            for (int i = 0; i < 3 * VARIABLE_COUNT; i++) {
+                final int literal = getRandomLiteral(random);
+                if (random.nextBoolean()) {
+                    set(distribution, literal);
+                } else {
+                    unset(distribution, Math.abs(literal));
+                }
+            }
+        }
+    }
+
+    @Test
+    void assignedVariablesDoNotContribute() {
+        createGraph(new Random(1));
+        final MIGDistribution distribution = new MIGDistribution(strongEdges, complexClauses);
+        for (int var = 1; var <= VARIABLE_COUNT; var++) {
+            distribution.set(var);
+        }
+        for (int var = 1; var <= VARIABLE_COUNT; var++) {
+            assertEquals(0, distribution.getWeight(var));
+            assertEquals(0, distribution.getWeight(-var));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2023 Sebastian Krieter
+ *
+ * This file is part of FeatJAR-formula-analysis-sat4j.
+ *
+ * formula-analysis-sat4j is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula-analysis-sat4j is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula-analysis-sat4j. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula-analysis-sat4j> for further information.
+ */
+package de.featjar.formula.analysis.sat4j.solver;
+
+import static de.featjar.base.computation.Computations.async;
+import static de.featjar.formula.structure.Expressions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.featjar.base.computation.Computations;
+import de.featjar.base.data.Result;
+import de.featjar.formula.analysis.bool.ABooleanAssignment;
+import de.featjar.formula.analysis.bool.BooleanClause;
+import de.featjar.formula.analysis.bool.BooleanClauseList;
+import de.featjar.formula.analysis.bool.BooleanSolution;
+import de.featjar.formula.analysis.bool.ComputeBooleanRepresentationOfCNFFormula;
+import de.featjar.formula.structure.formula.IFormula;
+import de.featjar.formula.transformer.ComputeCNFFormula;
+import de.featjar.formula.transformer.ComputeNNFFormula;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+public class SelectionStrategyTest {
+    public BooleanClauseList toClauseList(IFormula formula) {
+        return async(formula)
+                .map(ComputeNNFFormula::new)
+                .map(ComputeCNFFormula::new)
+                .map(ComputeBooleanRepresentationOfCNFFormula::new)
+                .map(Computations::getKey)
+                .get()
+                .get();
+    }
+
+    public IFormula createFormula() {
+        return and(
+                or(literal("a"), literal("b"), literal("c")),
+                or(literal(false, "a"), literal("d")),
+                or(literal(false, "b"), literal(false, "c")),
+                or(literal(false, "d"), literal("e"), literal(false, "f")),
+                or(literal("c"), literal("f")));
+    }
+
+    public IFormula createImplicationFormula() {
+        return and(
+                or(literal(false, "a"), literal("b")),
+                or(literal(false, "b"), literal("c")),
+                or(literal("a"), literal("d")),
+                or(literal(false, "c"), literal(false, "d")),
+                or(literal(false, "a"), literal("e")),
+                or(literal("e"), literal("f")),
+                or(literal(false, "e"), literal(false, "f")));
+    }
+
+    public boolean isValid(int[] solution, BooleanClauseList clauseList) {
+        for (final BooleanClause clause : clauseList.getAll()) {
+            boolean satisfied = false;
+            for (final int literal : clause.get()) {
+                if (solution[Math.abs(literal) - 1] == literal) {
+                    satisfied = true;
+                    break;
+                }
+            }
+            if (!satisfied) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Test
+    void migRandomStrategyFindsValidSolutions() {
+        final BooleanClauseList clauseList = toClauseList(createFormula());
+        final SAT4JSolutionSolver solver = new SAT4JSolutionSolver(clauseList);
+
+        final List<ABooleanAssignment> sample = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            solver.setSelectionStrategy(ISelectionStrategy.random(new Random(i)));
+            final Result<BooleanSolution> solution = solver.findSolution();
+            assertFalse(solution.isEmpty());
+            sample.add(solution.get());
+        }
+
+        final SampleDistribution dist = new SampleDistribution(sample);
+        dist.setRandom(new Random(0));
+        solver.setSelectionStrategy(ISelectionStrategy.mig(dist));
+        for (int i = 0; i < 20; i++) {
+            dist.reset();
+            final Result<BooleanSolution> solution = solver.findSolution();
+            assertFalse(solution.isEmpty());
+            assertTrue(isValid(solution.get().get(), clauseList));
+        }
+    }
+
+    @Test
+    void switchingStrategiesGivesSameSolutionsAsFreshSolver() {
+        // binary clauses without a path from any literal to its complement, so no
+        // search conflicts occur and each solution only depends on the strategy
+        final BooleanClauseList clauseList = toClauseList(createImplicationFormula());
+        final int variableCount = clauseList.getVariableCount();
+        final SAT4JSolutionSolver solver = new SAT4JSolutionSolver(clauseList);
+
+        for (int i = 0; i < 5; i++) {
+            final int seed = i;
+            final int[] model = new int[variableCount];
+            final Random random = new Random(seed);
+            for (int j = 0; j < variableCount; j++) {
+                model[j] = random.nextBoolean() ? j + 1 : -(j + 1);
+            }
+            final List<Supplier<ISelectionStrategy>> strategies = Arrays.asList(
+                    ISelectionStrategy::positive,
+                    () -> ISelectionStrategy.random(new Random(seed)),
+                    () -> ISelectionStrategy.fixed(model),
+                    ISelectionStrategy::negative,
+                    () -> ISelectionStrategy.inverse(model),
+                    () -> ISelectionStrategy.random(new Random(seed + 100)));
+            for (final Supplier<ISelectionStrategy> strategy : strategies) {
+                solver.setSelectionStrategy(strategy.get());
+                final Result<BooleanSolution> solution = solver.findSolution();
+
+                final SAT4JSolutionSolver freshSolver = new SAT4JSolutionSolver(clauseList);
+                freshSolver.setSelectionStrategy(strategy.get());
+                final Result<BooleanSolution> freshSolution = freshSolver.findSolution();
+
+                assertFalse(solution.isEmpty());
+                assertFalse(freshSolution.isEmpty());
+                assertArrayEquals(freshSolution.get().get(), solution.get().get());
+            }
+        }
+    }
+
+    @Test
+    void fixedStrategyAcceptsModelOfDifferentLength() {
+        final BooleanClauseList clauseList = toClauseList(createImplicationFormula());
+        final int variableCount = clauseList.getVariableCount();
+        final SAT4JSolutionSolver solver = new SAT4JSolutionSolver(clauseList);
+        solver.setSelectionStrategy(ISelectionStrategy.fixed(new int[variableCount]));
+        assertFalse(solver.findSolution().isEmpty());
+
+        final int[] model = new int[variableCount + 1];
+        for (int i = 0; i < model.length; i++) {
+            model[i] = i + 1;
+        }
+        final ISelectionStrategy strategy = ISelectionStrategy.fixed(model);
+        solver.setSelectionStrategy(strategy);
+        assertSame(strategy, solver.getSelectionStrategy());
+        final Result<BooleanSolution> solution = solver.findSolution();
+
+        final SAT4JSolutionSolver freshSolver = new SAT4JSolutionSolver(clauseList);
+        freshSolver.setSelectionStrategy(ISelectionStrategy.fixed(model));
+        final Result<BooleanSolution> freshSolution = freshSolver.findSolution();
+
+        assertFalse(solution.isEmpty());
+        assertFalse(freshSolution.isEmpty());
+        assertArrayEquals(freshSolution.get().get(), solution.get().get());
+    }
+}